@@ -0,0 +1,231 @@
+package com.jb.driver.sm2;
+
+import org.bouncycastle.asn1.gm.GMObjectIdentifiers;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.SM2Engine;
+import org.bouncycastle.crypto.params.ParametersWithRandom;
+
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * @author zhaojb
+ *         SM2签名/验签/加密/解密, 字节数组接口与批量接口
+ *         每个线程复用一个Signature和SM2Engine, 批量接口按线程池分段并行, 结果与输入顺序一致
+ */
+public final class SM2BouncyCastle {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static final ThreadLocal<Signature> SIGNATURE = ThreadLocal.withInitial(() -> {
+        try {
+            return Signature.getInstance(GMObjectIdentifiers.sm2sign_with_sm3.toString(), SM2Curve.getProvider());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private static final ThreadLocal<SM2Engine> ENGINE = ThreadLocal.withInitial(
+            () -> new SM2Engine(SM2Engine.Mode.C1C3C2));
+
+    /**
+     * 每个工作线程平均分到的段数, 段内只初始化一次Signature/SM2Engine
+     */
+    private static final int SEGMENTS_PER_THREAD = 4;
+
+    private SM2BouncyCastle() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+    // 单条
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * 签名, 输出DER编码的签名值
+     */
+    public static byte[] sign(SM2PrivateKeyHandle prvKey, byte[] data) throws GeneralSecurityException {
+        Signature signature = SIGNATURE.get();
+        signature.initSign(prvKey.getPrivateKey());
+        signature.update(data);
+        return signature.sign();
+    }
+
+    /**
+     * 验签, 签名值格式错误时返回false
+     */
+    public static boolean verify(SM2PublicKeyHandle pubKey, byte[] data, byte[] sign) throws GeneralSecurityException {
+        Signature signature = SIGNATURE.get();
+        signature.initVerify(pubKey.getPublicKey());
+        signature.update(data);
+        return verifyQuietly(signature, sign);
+    }
+
+    /**
+     * 加密, 输出C1C3C2顺序的密文
+     */
+    public static byte[] encrypt(SM2PublicKeyHandle pubKey, byte[] data) throws InvalidCipherTextException {
+        SM2Engine engine = ENGINE.get();
+        engine.init(true, new ParametersWithRandom(pubKey.getPublicKeyParameters(), RANDOM));
+        return engine.processBlock(data, 0, data.length);
+    }
+
+    /**
+     * 解密, 输入C1C3C2顺序的密文
+     */
+    public static byte[] decrypt(SM2PrivateKeyHandle prvKey, byte[] cipher) throws InvalidCipherTextException {
+        SM2Engine engine = ENGINE.get();
+        engine.init(false, prvKey.getPrivateKeyParameters());
+        return engine.processBlock(cipher, 0, cipher.length);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+    // 批量
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public static List<byte[]> signBatch(SM2PrivateKeyHandle prvKey, List<byte[]> data) {
+        return signBatch(prvKey, data, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 批量签名, 同一私钥
+     */
+    public static List<byte[]> signBatch(SM2PrivateKeyHandle prvKey, List<byte[]> data,
+            ExecutorService executorService) {
+        byte[][] results = new byte[data.size()][];
+        runSegments(executorService, data.size(), (from, to) -> {
+            Signature signature = SIGNATURE.get();
+            // SM2签名对象sign之后回到初始化状态, 段内只需initSign一次
+            signature.initSign(prvKey.getPrivateKey());
+            for (int i = from; i < to; ++i) {
+                signature.update(data.get(i));
+                results[i] = signature.sign();
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    public static List<Boolean> verifyBatch(SM2PublicKeyHandle pubKey, List<byte[]> data, List<byte[]> signs) {
+        return verifyBatch(pubKey, data, signs, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 批量验签, 同一公钥, 单条签名格式错误时该条结果为false
+     */
+    public static List<Boolean> verifyBatch(SM2PublicKeyHandle pubKey, List<byte[]> data, List<byte[]> signs,
+            ExecutorService executorService) {
+        if (data.size() != signs.size()) {
+            throw new IllegalArgumentException("data and signs size mismatch");
+        }
+        Boolean[] results = new Boolean[data.size()];
+        runSegments(executorService, data.size(), (from, to) -> {
+            Signature signature = SIGNATURE.get();
+            for (int i = from; i < to; ++i) {
+                // 验签初始化只计算Z值, 开销很小; 逐条初始化, 避免格式错误的签名残留摘要状态
+                signature.initVerify(pubKey.getPublicKey());
+                signature.update(data.get(i));
+                results[i] = verifyQuietly(signature, signs.get(i));
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    public static List<byte[]> encryptBatch(SM2PublicKeyHandle pubKey, List<byte[]> data) {
+        return encryptBatch(pubKey, data, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 批量加密, 同一公钥
+     */
+    public static List<byte[]> encryptBatch(SM2PublicKeyHandle pubKey, List<byte[]> data,
+            ExecutorService executorService) {
+        byte[][] results = new byte[data.size()][];
+        runSegments(executorService, data.size(), (from, to) -> {
+            SM2Engine engine = ENGINE.get();
+            engine.init(true, new ParametersWithRandom(pubKey.getPublicKeyParameters(), RANDOM));
+            for (int i = from; i < to; ++i) {
+                byte[] item = data.get(i);
+                results[i] = engine.processBlock(item, 0, item.length);
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    public static List<byte[]> decryptBatch(SM2PrivateKeyHandle prvKey, List<byte[]> ciphers) {
+        return decryptBatch(prvKey, ciphers, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 批量解密, 同一私钥, 单条密文被篡改或无法解密时该条结果为null
+     */
+    public static List<byte[]> decryptBatch(SM2PrivateKeyHandle prvKey, List<byte[]> ciphers,
+            ExecutorService executorService) {
+        byte[][] results = new byte[ciphers.size()][];
+        runSegments(executorService, ciphers.size(), (from, to) -> {
+            SM2Engine engine = ENGINE.get();
+            engine.init(false, prvKey.getPrivateKeyParameters());
+            for (int i = from; i < to; ++i) {
+                byte[] item = ciphers.get(i);
+                try {
+                    results[i] = engine.processBlock(item, 0, item.length);
+                } catch (InvalidCipherTextException | RuntimeException e) {
+                    results[i] = null;
+                }
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    private static boolean verifyQuietly(Signature signature, byte[] sign) {
+        try {
+            return signature.verify(sign);
+        } catch (GeneralSecurityException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 把[0, size)分段提交到线程池, 等待全部完成, 任一段失败则抛出异常
+     */
+    private static void runSegments(ExecutorService executorService, int size, Segment segment) {
+        if (size == 0) {
+            return;
+        }
+        int segments = Math.min(size, Runtime.getRuntime().availableProcessors() * SEGMENTS_PER_THREAD);
+        int step = (size + segments - 1) / segments;
+
+        List<Future<?>> futures = new ArrayList<>(segments);
+        for (int from = 0; from < size; from += step) {
+            int start = from;
+            int end = Math.min(size, from + step);
+            futures.add(executorService.submit(() -> {
+                segment.run(start, end);
+                return null;
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("sm2 batch interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("sm2 batch failed", e.getCause());
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Segment {
+        void run(int from, int to) throws Exception;
+    }
+}
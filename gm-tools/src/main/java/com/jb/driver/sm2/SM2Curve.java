@@ -0,0 +1,57 @@
+package com.jb.driver.sm2;
+
+import org.bouncycastle.asn1.gm.GMNamedCurves;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+
+import java.security.Provider;
+import java.security.Security;
+
+/**
+ * @author zhaojb
+ *         SM2曲线参数与BouncyCastle Provider
+ *         进程内共享一份, 只读, 避免每次调用都重新构建Provider和曲线参数
+ */
+public final class SM2Curve {
+    public static final String DEFAULT_STD_NAME = "sm2p256v1";
+
+    private static final Provider PROVIDER = initProvider();
+
+    private static final X9ECParameters X9_PARAMETERS = GMNamedCurves.getByName(DEFAULT_STD_NAME);
+
+    private static final ECParameterSpec PARAMETER_SPEC = new ECParameterSpec(X9_PARAMETERS.getCurve(),
+            X9_PARAMETERS.getG(), X9_PARAMETERS.getN(), X9_PARAMETERS.getH());
+
+    private static final ECDomainParameters DOMAIN_PARAMETERS = new ECDomainParameters(X9_PARAMETERS.getCurve(),
+            X9_PARAMETERS.getG(), X9_PARAMETERS.getN(), X9_PARAMETERS.getH());
+
+    private SM2Curve() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * 已注册的BC Provider优先, 否则新建一个(不注册到Security)
+     */
+    private static Provider initProvider() {
+        Provider provider = Security.getProvider(BouncyCastleProvider.PROVIDER_NAME);
+        return provider != null ? provider : new BouncyCastleProvider();
+    }
+
+    public static Provider getProvider() {
+        return PROVIDER;
+    }
+
+    public static X9ECParameters getX9Parameters() {
+        return X9_PARAMETERS;
+    }
+
+    public static ECParameterSpec getParameterSpec() {
+        return PARAMETER_SPEC;
+    }
+
+    public static ECDomainParameters getDomainParameters() {
+        return DOMAIN_PARAMETERS;
+    }
+}
@@ -0,0 +1,185 @@
+package com.jb.driver.sm2;
+
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.BigIntegers;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author zhaojb
+ *         SM2签名临时密钥池, 预先计算 (k, x1), x1 为 [k]G 的x坐标
+ *         后台守护线程以最低优先级补充, 池满时阻塞等待, 签名时取出即用, 只需模运算
+ *         每个条目只使用一次, 取出后由使用方调用 {@link Entry#zeroize()} 清零
+ */
+public final class SM2EphemeralPool {
+    /**
+     * 默认容量
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final int FIELD_LENGTH = 32;
+
+    private final int capacity;
+    private final BlockingQueue<Entry> queue;
+    private final SecureRandom random;
+    private final FixedPointCombMultiplier multiplier = new FixedPointCombMultiplier();
+    private final AtomicLong produced = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong missed = new AtomicLong();
+    private final Thread refillThread;
+
+    public SM2EphemeralPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SM2EphemeralPool(int capacity) {
+        this(capacity, new SecureRandom());
+    }
+
+    public SM2EphemeralPool(int capacity, SecureRandom random) {
+        this(capacity, random, true);
+    }
+
+    /**
+     * @param refill 是否启动后台补充线程, 不启动时池中只有 {@link #offer} 放入的条目
+     */
+    SM2EphemeralPool(int capacity, SecureRandom random, boolean refill) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.random = random;
+        if (refill) {
+            this.refillThread = new Thread(this::refill, "sm2-ephemeral-pool");
+            this.refillThread.setDaemon(true);
+            this.refillThread.setPriority(Thread.MIN_PRIORITY);
+            this.refillThread.start();
+        } else {
+            this.refillThread = null;
+        }
+    }
+
+    /**
+     * 取出一个条目, 池为空时当场计算一个, 不等待后台线程
+     */
+    public Entry take() {
+        Entry entry = this.queue.poll();
+        if (entry != null) {
+            this.consumed.incrementAndGet();
+            return entry;
+        }
+        this.missed.incrementAndGet();
+        return this.generate();
+    }
+
+    /**
+     * 停止后台补充, 清零并丢弃池中剩余条目
+     */
+    public void shutdown() {
+        if (this.refillThread != null) {
+            this.refillThread.interrupt();
+        }
+        Entry entry;
+        while ((entry = this.queue.poll()) != null) {
+            entry.zeroize();
+        }
+    }
+
+    /**
+     * 放入指定的 (k, x1), 池满时返回false
+     */
+    boolean offer(BigInteger k, BigInteger x1) {
+        return this.queue.offer(new Entry(BigIntegers.asUnsignedByteArray(FIELD_LENGTH, k),
+                BigIntegers.asUnsignedByteArray(FIELD_LENGTH, x1)));
+    }
+
+    /**
+     * 当前池中可用条目数
+     */
+    public int getDepth() {
+        return this.queue.size();
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * 后台线程累计生成的条目数
+     */
+    public long getProducedCount() {
+        return this.produced.get();
+    }
+
+    /**
+     * 从池中取走的条目数
+     */
+    public long getConsumedCount() {
+        return this.consumed.get();
+    }
+
+    /**
+     * 池为空而当场计算的次数
+     */
+    public long getMissCount() {
+        return this.missed.get();
+    }
+
+    private void refill() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Entry entry = this.generate();
+                try {
+                    this.queue.put(entry);
+                } catch (InterruptedException e) {
+                    entry.zeroize();
+                    throw e;
+                }
+                this.produced.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Entry generate() {
+        BigInteger n = SM2Curve.getDomainParameters().getN();
+        BigInteger k = BigIntegers.createRandomInRange(BigInteger.ONE, n.subtract(BigInteger.ONE), this.random);
+        ECPoint p = this.multiplier.multiply(SM2Curve.getDomainParameters().getG(), k).normalize();
+        return new Entry(BigIntegers.asUnsignedByteArray(FIELD_LENGTH, k),
+                p.getAffineXCoord().getEncoded());
+    }
+
+    /**
+     * 临时密钥k与 [k]G 的x坐标, 大端定长
+     */
+    public static final class Entry {
+        private final byte[] k;
+        private final byte[] x1;
+
+        private Entry(byte[] k, byte[] x1) {
+            this.k = k;
+            this.x1 = x1;
+        }
+
+        public BigInteger getK() {
+            return new BigInteger(1, this.k);
+        }
+
+        public BigInteger getX1() {
+            return new BigInteger(1, this.x1);
+        }
+
+        public void zeroize() {
+            Arrays.fill(this.k, (byte) 0);
+            Arrays.fill(this.x1, (byte) 0);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.jb.driver.sm2;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * @author zhaojb
+ *         按字符串缓存的LRU, 线程安全, 超出上限时淘汰最久未使用的项, 记录命中/未命中次数
+ */
+class SM2KeyCache<V> {
+    private final int maxSize;
+    private final Map<String, V> cache;
+    private long hitCount;
+    private long missCount;
+
+    SM2KeyCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.cache = new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return this.size() > SM2KeyCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * 构建不在锁内进行, 并发时可能重复构建, 结果相同
+     */
+    V get(String key, Function<String, V> loader) {
+        V value;
+        synchronized (this.cache) {
+            value = this.cache.get(key);
+            if (value != null) {
+                ++this.hitCount;
+            } else {
+                ++this.missCount;
+            }
+        }
+        if (value == null) {
+            value = loader.apply(key);
+            synchronized (this.cache) {
+                this.cache.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    int size() {
+        synchronized (this.cache) {
+            return this.cache.size();
+        }
+    }
+
+    long getHitCount() {
+        synchronized (this.cache) {
+            return this.hitCount;
+        }
+    }
+
+    long getMissCount() {
+        synchronized (this.cache) {
+            return this.missCount;
+        }
+    }
+
+    void clear() {
+        synchronized (this.cache) {
+            this.cache.clear();
+        }
+    }
+}
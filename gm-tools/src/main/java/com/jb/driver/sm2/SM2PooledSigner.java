@@ -0,0 +1,57 @@
+package com.jb.driver.sm2;
+
+import com.jb.driver.sm3.SM3Engine;
+import org.bouncycastle.crypto.signers.StandardDSAEncoding;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+/**
+ * @author zhaojb
+ *         使用临时密钥池的SM2签名, 默认ID, 输出与SM2Signer相同的DER编码
+ *         [k]G 由池预先计算, 签名时只有摘要与模n运算
+ */
+public final class SM2PooledSigner {
+
+    private SM2PooledSigner() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static byte[] sign(SM2PrivateKeyHandle prvKey, byte[] data, SM2EphemeralPool pool) {
+        SM2PrivateKeyHandle.SignContext context = prvKey.getSignContext();
+        BigInteger n = SM2Curve.getDomainParameters().getN();
+        BigInteger d = prvKey.getPrivateKeyParameters().getD();
+
+        // e = SM3(Z || M)
+        SM3Engine digest = SM3Engine.threadLocal();
+        digest.update(context.z, 0, context.z.length);
+        digest.update(data, 0, data.length);
+        BigInteger e = new BigInteger(1, digest.doFinal());
+
+        BigInteger r, s;
+        do {
+            BigInteger k;
+            SM2EphemeralPool.Entry entry = pool.take();
+            try {
+                k = entry.getK();
+                r = e.add(entry.getX1()).mod(n);
+            } finally {
+                entry.zeroize();
+            }
+            if (r.signum() == 0 || r.add(k).equals(n)) {
+                s = BigInteger.ZERO;
+                continue;
+            }
+
+            // s = ((1 + d)^-1 * (k - r * d)) mod n
+            s = k.subtract(r.multiply(d)).mod(n);
+            s = context.dPlus1Inverse.multiply(s).mod(n);
+        } while (s.signum() == 0);
+
+        try {
+            return StandardDSAEncoding.INSTANCE.encode(n, r, s);
+        } catch (IOException ex) {
+            throw new IllegalStateException("unable to encode signature", ex);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.jb.driver.sm2;
+
+import org.bouncycastle.crypto.digests.SM3Digest;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.jcajce.provider.asymmetric.ec.BCECPrivateKey;
+import org.bouncycastle.jce.spec.ECPrivateKeySpec;
+import org.bouncycastle.math.ec.ECFieldElement;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.util.BigIntegers;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+
+/**
+ * @author zhaojb
+ *         已解析的SM2私钥, 只读, 可在多线程间复用
+ *         同时持有JCA私钥(Signature使用)和轻量级API私钥参数(SM2Engine使用)
+ */
+public final class SM2PrivateKeyHandle {
+    /**
+     * 缓存的私钥个数上限
+     */
+    public static final int MAX_CACHE_SIZE = 256;
+
+    private static final SM2KeyCache<SM2PrivateKeyHandle> CACHE = new SM2KeyCache<>(MAX_CACHE_SIZE);
+
+    private final BCECPrivateKey privateKey;
+    private final ECPrivateKeyParameters privateKeyParameters;
+    private volatile SignContext signContext;
+
+    /**
+     * @param prvKey HEX私钥
+     */
+    public SM2PrivateKeyHandle(String prvKey) {
+        BigInteger d = new BigInteger(prvKey, 16);
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance("EC", SM2Curve.getProvider());
+            this.privateKey = (BCECPrivateKey) keyFactory
+                    .generatePrivate(new ECPrivateKeySpec(d, SM2Curve.getParameterSpec()));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("invalid sm2 private key", e);
+        }
+        this.privateKeyParameters = new ECPrivateKeyParameters(d, SM2Curve.getDomainParameters());
+    }
+
+    /**
+     * 按HEX私钥缓存的句柄
+     */
+    public static SM2PrivateKeyHandle fromHex(String prvKey) {
+        return CACHE.get(prvKey, SM2PrivateKeyHandle::new);
+    }
+
+    /**
+     * 清空缓存的私钥
+     */
+    public static void clearCache() {
+        CACHE.clear();
+    }
+
+    public BCECPrivateKey getPrivateKey() {
+        return this.privateKey;
+    }
+
+    public ECPrivateKeyParameters getPrivateKeyParameters() {
+        return this.privateKeyParameters;
+    }
+
+    /**
+     * 签名所需的与消息无关的值, 首次使用时计算
+     */
+    SignContext getSignContext() {
+        SignContext context = this.signContext;
+        if (context == null) {
+            context = new SignContext(this.privateKeyParameters.getD());
+            this.signContext = context;
+        }
+        return context;
+    }
+
+    /**
+     * Z = SM3(ENTL || ID || a || b || xG || yG || xA || yA), ID取默认值, 以及 (1 + d)^-1 mod n
+     */
+    static final class SignContext {
+        private static final byte[] DEFAULT_USER_ID = Hex.decodeStrict("31323334353637383132333435363738");
+
+        final byte[] z;
+        final BigInteger dPlus1Inverse;
+
+        private SignContext(BigInteger d) {
+            ECDomainParameters domainParameters = SM2Curve.getDomainParameters();
+            ECPoint publicPoint = new FixedPointCombMultiplier().multiply(domainParameters.getG(), d).normalize();
+
+            SM3Digest digest = new SM3Digest();
+            int len = DEFAULT_USER_ID.length * 8;
+            digest.update((byte) (len >> 8 & 0xFF));
+            digest.update((byte) (len & 0xFF));
+            digest.update(DEFAULT_USER_ID, 0, DEFAULT_USER_ID.length);
+            addFieldElement(digest, domainParameters.getCurve().getA());
+            addFieldElement(digest, domainParameters.getCurve().getB());
+            addFieldElement(digest, domainParameters.getG().getAffineXCoord());
+            addFieldElement(digest, domainParameters.getG().getAffineYCoord());
+            addFieldElement(digest, publicPoint.getAffineXCoord());
+            addFieldElement(digest, publicPoint.getAffineYCoord());
+            this.z = new byte[digest.getDigestSize()];
+            digest.doFinal(this.z, 0);
+
+            this.dPlus1Inverse = BigIntegers.modOddInverse(domainParameters.getN(), d.add(BigInteger.ONE));
+        }
+
+        private static void addFieldElement(SM3Digest digest, ECFieldElement v) {
+            byte[] p = v.getEncoded();
+            digest.update(p, 0, p.length);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.jb.driver.sm2;
+
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.jcajce.provider.asymmetric.ec.BCECPublicKey;
+import org.bouncycastle.jce.spec.ECPublicKeySpec;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+
+/**
+ * @author zhaojb
+ *         已解析的SM2公钥, 只读, 可在多线程间复用
+ *         同时持有JCA公钥(Signature使用)和轻量级API公钥参数(SM2Engine使用)
+ */
+public final class SM2PublicKeyHandle {
+    /**
+     * 缓存的公钥个数上限
+     */
+    public static final int MAX_CACHE_SIZE = 256;
+
+    private static final SM2KeyCache<SM2PublicKeyHandle> CACHE = new SM2KeyCache<>(MAX_CACHE_SIZE);
+
+    private final BCECPublicKey publicKey;
+    private final ECPublicKeyParameters publicKeyParameters;
+
+    /**
+     * @param pubKey HEX公钥, 压缩或非压缩编码
+     */
+    public SM2PublicKeyHandle(String pubKey) {
+        ECPoint q = SM2Curve.getX9Parameters().getCurve().decodePoint(Hex.decode(pubKey));
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance("EC", SM2Curve.getProvider());
+            this.publicKey = (BCECPublicKey) keyFactory
+                    .generatePublic(new ECPublicKeySpec(q, SM2Curve.getParameterSpec()));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("invalid sm2 public key", e);
+        }
+        this.publicKeyParameters = new ECPublicKeyParameters(q, SM2Curve.getDomainParameters());
+    }
+
+    /**
+     * 按HEX公钥缓存的句柄
+     */
+    public static SM2PublicKeyHandle fromHex(String pubKey) {
+        return CACHE.get(pubKey, SM2PublicKeyHandle::new);
+    }
+
+    /**
+     * 清空缓存的公钥
+     */
+    public static void clearCache() {
+        CACHE.clear();
+    }
+
+    public BCECPublicKey getPublicKey() {
+        return this.publicKey;
+    }
+
+    public ECPublicKeyParameters getPublicKeyParameters() {
+        return this.publicKeyParameters;
+    }
+
+    public ECPoint getQ() {
+        return this.publicKeyParameters.getQ();
+    }
+}
@@ -0,0 +1,55 @@
+package com.jb.driver.sm2;
+
+import org.bouncycastle.math.ec.WNafUtil;
+
+/**
+ * @author zhaojb
+ *         热点公钥预计算, 需显式使用
+ *         对公钥点Q按基点方式配置wNAF预计算表(WNafUtil.configureBasepoint), 表挂在ECPoint上,
+ *         验签的 [s]G + [t]Q 与加密的 [k]Q 均由BouncyCastle的wNAF乘法直接查表, 省去每次构建奇数倍点表
+ *         每个公钥的表约几KB, 按公钥字符串缓存, 数量有上限, 并记录命中/未命中次数
+ */
+public final class SM2PublicKeyPrecompute {
+    /**
+     * 缓存的热点公钥个数上限
+     */
+    public static final int MAX_CACHE_SIZE = 64;
+
+    private static final SM2KeyCache<SM2PublicKeyHandle> CACHE = new SM2KeyCache<>(MAX_CACHE_SIZE);
+
+    private SM2PublicKeyPrecompute() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * 获取带预计算表的公钥句柄
+     * 与SM2PublicKeyHandle.fromHex的缓存分开, 淘汰时预计算表随句柄一起释放
+     *
+     * @param pubKey HEX公钥
+     */
+    public static SM2PublicKeyHandle getInstance(String pubKey) {
+        return CACHE.get(pubKey, SM2PublicKeyPrecompute::precompute);
+    }
+
+    private static SM2PublicKeyHandle precompute(String pubKey) {
+        SM2PublicKeyHandle handle = new SM2PublicKeyHandle(pubKey);
+        WNafUtil.configureBasepoint(handle.getQ());
+        return handle;
+    }
+
+    public static long getHitCount() {
+        return CACHE.getHitCount();
+    }
+
+    public static long getMissCount() {
+        return CACHE.getMissCount();
+    }
+
+    public static int size() {
+        return CACHE.size();
+    }
+
+    public static void clearCache() {
+        CACHE.clear();
+    }
+}
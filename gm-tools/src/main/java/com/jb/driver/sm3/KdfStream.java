@@ -0,0 +1,89 @@
+package com.jb.driver.sm3;
+
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Pack;
+
+/**
+ * @author zhaojb
+ *         SM3密钥派生函数的流式输出, K = Ha1 || Ha2 || ..., Hai = SM3(Z || ct), ct 从1开始, 32位大端
+ *         Z 只吸收一次, 之后每个输出块从保存的中间状态复制, 再吸收4字节计数器
+ *         非线程安全
+ */
+public final class KdfStream {
+    /**
+     * 计数器为32位, 输出上限 (2^32 - 1) 块
+     */
+    private static final long MAX_COUNTER = 0xFFFFFFFFL;
+
+    private final SM3Engine prefix = new SM3Engine();
+    private final SM3Engine digest = new SM3Engine();
+    private final byte[] counter = new byte[4];
+    private final byte[] block = new byte[SM3Engine.DIGEST_LENGTH];
+    private int blockOffset = SM3Engine.DIGEST_LENGTH;
+    private long ct = 1;
+
+    /**
+     * @param z 共享数据, 构造时吸收, 之后修改数组不影响输出
+     */
+    public KdfStream(byte[] z) {
+        this.prefix.update(z, 0, z.length);
+    }
+
+    /**
+     * 读取下一段密钥流, 填满整个数组
+     */
+    public void read(byte[] out) {
+        this.read(out, 0, out.length);
+    }
+
+    /**
+     * 读取下一段密钥流, 写入 out[outOff, outOff + len)
+     */
+    public void read(byte[] out, int outOff, int len) {
+        int end = outOff + len;
+        while (outOff < end) {
+            if (this.blockOffset == SM3Engine.DIGEST_LENGTH) {
+                // 整块直接写入输出
+                if (end - outOff >= SM3Engine.DIGEST_LENGTH) {
+                    this.nextBlock(out, outOff);
+                    outOff += SM3Engine.DIGEST_LENGTH;
+                    continue;
+                }
+                this.nextBlock(this.block, 0);
+                this.blockOffset = 0;
+            }
+            int n = Math.min(SM3Engine.DIGEST_LENGTH - this.blockOffset, end - outOff);
+            System.arraycopy(this.block, this.blockOffset, out, outOff, n);
+            this.blockOffset += n;
+            outOff += n;
+        }
+    }
+
+    /**
+     * 读取len字节密钥流
+     */
+    public byte[] read(int len) {
+        byte[] out = new byte[len];
+        this.read(out, 0, len);
+        return out;
+    }
+
+    /**
+     * 清零缓存的输出块
+     */
+    public void clear() {
+        Arrays.fill(this.block, (byte) 0);
+        this.blockOffset = SM3Engine.DIGEST_LENGTH;
+    }
+
+    private void nextBlock(byte[] out, int outOff) {
+        if (this.ct > MAX_COUNTER) {
+            throw new IllegalStateException("kdf output exhausted");
+        }
+        Pack.intToBigEndian((int) this.ct, this.counter, 0);
+        ++this.ct;
+        this.digest.reset(this.prefix);
+        this.digest.update(this.counter, 0, this.counter.length);
+        this.digest.doFinal(out, outOff);
+    }
+}
@@ -0,0 +1,305 @@
+package com.jb.driver.sm3;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.util.Pack;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * @author zhaojb
+ *         SM3摘要, 结果与 SM3Digest 相同
+ *         状态与消息扩展使用对象内的 int 数组, update/doFinal 不分配内存, 可 reset 复用
+ *         压缩函数每4轮展开一次, 轮间不移动寄存器, 只轮换变量名
+ *         {@link #copy()} / {@link #reset(SM3Engine)} 复制中间状态, 用于公共前缀只吸收一次的场景
+ *         非线程安全, 多线程使用 {@link #threadLocal()}
+ */
+public final class SM3Engine implements Digest {
+    public static final int DIGEST_LENGTH = 32;
+
+    private static final int BLOCK_LENGTH = 64;
+
+    private static final int[] IV = {
+            0x7380166f, 0x4914b2b9, 0x172442d7, 0xda8a0600,
+            0xa96f30bc, 0x163138aa, 0xe38dee4d, 0xb0fb0e4e
+    };
+
+    /**
+     * 预先循环左移的常量 T[j] <<< j
+     */
+    private static final int[] T = new int[64];
+
+    private static final ThreadLocal<SM3Engine> THREAD_LOCAL = ThreadLocal.withInitial(SM3Engine::new);
+
+    static {
+        for (int j = 0; j < 16; ++j) {
+            T[j] = Integer.rotateLeft(0x79cc4519, j);
+        }
+        for (int j = 16; j < 64; ++j) {
+            T[j] = Integer.rotateLeft(0x7a879d8a, j);
+        }
+    }
+
+    private final int[] v = new int[8];
+    private final int[] w = new int[68];
+    private final byte[] block = new byte[BLOCK_LENGTH];
+    private int blockOffset;
+    private long byteCount;
+
+    public SM3Engine() {
+        this.reset();
+    }
+
+    public SM3Engine(SM3Engine other) {
+        this.reset(other);
+    }
+
+    /**
+     * 当前线程复用的实例, 已重置, 不要跨线程传递, 也不要在使用期间嵌套调用同样取此实例的方法
+     */
+    public static SM3Engine threadLocal() {
+        SM3Engine engine = THREAD_LOCAL.get();
+        engine.reset();
+        return engine;
+    }
+
+    @Override
+    public String getAlgorithmName() {
+        return "SM3";
+    }
+
+    @Override
+    public int getDigestSize() {
+        return DIGEST_LENGTH;
+    }
+
+    @Override
+    public void update(byte in) {
+        this.block[this.blockOffset++] = in;
+        ++this.byteCount;
+        if (this.blockOffset == BLOCK_LENGTH) {
+            this.processBlock(this.block, 0);
+            this.blockOffset = 0;
+        }
+    }
+
+    @Override
+    public void update(byte[] in, int inOff, int len) {
+        this.byteCount += len;
+        int end = inOff + len;
+
+        if (this.blockOffset != 0) {
+            int n = Math.min(BLOCK_LENGTH - this.blockOffset, len);
+            System.arraycopy(in, inOff, this.block, this.blockOffset, n);
+            this.blockOffset += n;
+            inOff += n;
+            if (this.blockOffset < BLOCK_LENGTH) {
+                return;
+            }
+            this.processBlock(this.block, 0);
+            this.blockOffset = 0;
+        }
+
+        // 整块直接从输入数组读取
+        for (; end - inOff >= BLOCK_LENGTH; inOff += BLOCK_LENGTH) {
+            this.processBlock(in, inOff);
+        }
+
+        int n = end - inOff;
+        System.arraycopy(in, inOff, this.block, 0, n);
+        this.blockOffset = n;
+    }
+
+    /**
+     * 吸收缓冲区 position 到 limit 之间的数据, 读取后 position 等于 limit
+     * 直接缓冲区与内存映射缓冲区按整块直接读取, 不经过中间数组
+     */
+    public void update(ByteBuffer in) {
+        if (in.hasArray()) {
+            int len = in.remaining();
+            this.update(in.array(), in.arrayOffset() + in.position(), len);
+            in.position(in.limit());
+            return;
+        }
+
+        while (this.blockOffset != 0 && in.hasRemaining()) {
+            this.update(in.get());
+        }
+
+        int blocks = in.remaining() / BLOCK_LENGTH;
+        if (blocks > 0) {
+            ByteBuffer source = in.duplicate().order(ByteOrder.BIG_ENDIAN);
+            for (int i = 0; i < blocks; ++i) {
+                for (int j = 0; j < 16; ++j) {
+                    this.w[j] = source.getInt();
+                }
+                this.compress();
+            }
+            this.byteCount += (long) blocks * BLOCK_LENGTH;
+            in.position(source.position());
+        }
+
+        int n = in.remaining();
+        in.get(this.block, this.blockOffset, n);
+        this.blockOffset += n;
+        this.byteCount += n;
+    }
+
+    @Override
+    public int doFinal(byte[] out, int outOff) {
+        long bitLength = this.byteCount << 3;
+
+        this.block[this.blockOffset++] = (byte) 0x80;
+        if (this.blockOffset > BLOCK_LENGTH - 8) {
+            Arrays.fill(this.block, this.blockOffset, BLOCK_LENGTH, (byte) 0);
+            this.processBlock(this.block, 0);
+            this.blockOffset = 0;
+        }
+        Arrays.fill(this.block, this.blockOffset, BLOCK_LENGTH - 8, (byte) 0);
+        Pack.longToBigEndian(bitLength, this.block, BLOCK_LENGTH - 8);
+        this.processBlock(this.block, 0);
+
+        Pack.intToBigEndian(this.v, out, outOff);
+        this.reset();
+        return DIGEST_LENGTH;
+    }
+
+    public byte[] doFinal() {
+        byte[] out = new byte[DIGEST_LENGTH];
+        this.doFinal(out, 0);
+        return out;
+    }
+
+    @Override
+    public void reset() {
+        System.arraycopy(IV, 0, this.v, 0, 8);
+        this.blockOffset = 0;
+        this.byteCount = 0;
+    }
+
+    /**
+     * 复制另一实例的中间状态
+     */
+    public void reset(SM3Engine other) {
+        System.arraycopy(other.v, 0, this.v, 0, 8);
+        System.arraycopy(other.block, 0, this.block, 0, other.blockOffset);
+        this.blockOffset = other.blockOffset;
+        this.byteCount = other.byteCount;
+    }
+
+    /**
+     * 复制当前中间状态到新实例
+     */
+    public SM3Engine copy() {
+        return new SM3Engine(this);
+    }
+
+    private void processBlock(byte[] in, int inOff) {
+        for (int j = 0; j < 16; ++j) {
+            this.w[j] = Pack.bigEndianToInt(in, inOff + (j << 2));
+        }
+        this.compress();
+    }
+
+    /**
+     * 压缩 w[0..15] 中的一个消息块
+     */
+    private void compress() {
+        int[] w = this.w;
+        for (int j = 16; j < 68; ++j) {
+            int x = w[j - 16] ^ w[j - 9] ^ Integer.rotateLeft(w[j - 3], 15);
+            w[j] = p1(x) ^ Integer.rotateLeft(w[j - 13], 7) ^ w[j - 6];
+        }
+
+        int a = this.v[0];
+        int b = this.v[1];
+        int c = this.v[2];
+        int d = this.v[3];
+        int e = this.v[4];
+        int f = this.v[5];
+        int g = this.v[6];
+        int h = this.v[7];
+        int a12;
+        int ss1;
+
+        // 0 <= j < 16, FF = GG = x ^ y ^ z
+        for (int j = 0; j < 16; j += 4) {
+            a12 = Integer.rotateLeft(a, 12);
+            ss1 = Integer.rotateLeft(a12 + e + T[j], 7);
+            d = (a ^ b ^ c) + d + (ss1 ^ a12) + (w[j] ^ w[j + 4]);
+            h = p0((e ^ f ^ g) + h + ss1 + w[j]);
+            b = Integer.rotateLeft(b, 9);
+            f = Integer.rotateLeft(f, 19);
+
+            a12 = Integer.rotateLeft(d, 12);
+            ss1 = Integer.rotateLeft(a12 + h + T[j + 1], 7);
+            c = (d ^ a ^ b) + c + (ss1 ^ a12) + (w[j + 1] ^ w[j + 5]);
+            g = p0((h ^ e ^ f) + g + ss1 + w[j + 1]);
+            a = Integer.rotateLeft(a, 9);
+            e = Integer.rotateLeft(e, 19);
+
+            a12 = Integer.rotateLeft(c, 12);
+            ss1 = Integer.rotateLeft(a12 + g + T[j + 2], 7);
+            b = (c ^ d ^ a) + b + (ss1 ^ a12) + (w[j + 2] ^ w[j + 6]);
+            f = p0((g ^ h ^ e) + f + ss1 + w[j + 2]);
+            d = Integer.rotateLeft(d, 9);
+            h = Integer.rotateLeft(h, 19);
+
+            a12 = Integer.rotateLeft(b, 12);
+            ss1 = Integer.rotateLeft(a12 + f + T[j + 3], 7);
+            a = (b ^ c ^ d) + a + (ss1 ^ a12) + (w[j + 3] ^ w[j + 7]);
+            e = p0((f ^ g ^ h) + e + ss1 + w[j + 3]);
+            c = Integer.rotateLeft(c, 9);
+            g = Integer.rotateLeft(g, 19);
+        }
+
+        // 16 <= j < 64
+        for (int j = 16; j < 64; j += 4) {
+            a12 = Integer.rotateLeft(a, 12);
+            ss1 = Integer.rotateLeft(a12 + e + T[j], 7);
+            d = ((a & b) | (a & c) | (b & c)) + d + (ss1 ^ a12) + (w[j] ^ w[j + 4]);
+            h = p0(((e & f) | (~e & g)) + h + ss1 + w[j]);
+            b = Integer.rotateLeft(b, 9);
+            f = Integer.rotateLeft(f, 19);
+
+            a12 = Integer.rotateLeft(d, 12);
+            ss1 = Integer.rotateLeft(a12 + h + T[j + 1], 7);
+            c = ((d & a) | (d & b) | (a & b)) + c + (ss1 ^ a12) + (w[j + 1] ^ w[j + 5]);
+            g = p0(((h & e) | (~h & f)) + g + ss1 + w[j + 1]);
+            a = Integer.rotateLeft(a, 9);
+            e = Integer.rotateLeft(e, 19);
+
+            a12 = Integer.rotateLeft(c, 12);
+            ss1 = Integer.rotateLeft(a12 + g + T[j + 2], 7);
+            b = ((c & d) | (c & a) | (d & a)) + b + (ss1 ^ a12) + (w[j + 2] ^ w[j + 6]);
+            f = p0(((g & h) | (~g & e)) + f + ss1 + w[j + 2]);
+            d = Integer.rotateLeft(d, 9);
+            h = Integer.rotateLeft(h, 19);
+
+            a12 = Integer.rotateLeft(b, 12);
+            ss1 = Integer.rotateLeft(a12 + f + T[j + 3], 7);
+            a = ((b & c) | (b & d) | (c & d)) + a + (ss1 ^ a12) + (w[j + 3] ^ w[j + 7]);
+            e = p0(((f & g) | (~f & h)) + e + ss1 + w[j + 3]);
+            c = Integer.rotateLeft(c, 9);
+            g = Integer.rotateLeft(g, 19);
+        }
+
+        this.v[0] ^= a;
+        this.v[1] ^= b;
+        this.v[2] ^= c;
+        this.v[3] ^= d;
+        this.v[4] ^= e;
+        this.v[5] ^= f;
+        this.v[6] ^= g;
+        this.v[7] ^= h;
+    }
+
+    private static int p0(int x) {
+        return x ^ Integer.rotateLeft(x, 9) ^ Integer.rotateLeft(x, 17);
+    }
+
+    private static int p1(int x) {
+        return x ^ Integer.rotateLeft(x, 15) ^ Integer.rotateLeft(x, 23);
+    }
+}
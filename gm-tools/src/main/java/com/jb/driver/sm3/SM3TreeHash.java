@@ -0,0 +1,127 @@
+package com.jb.driver.sm3;
+
+import com.jb.utils.SM3Utils;
+import org.bouncycastle.util.Pack;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * @author zhaojb
+ *         SM3树模式摘要, 文件按固定大小分块, 块摘要在ForkJoinPool上并行计算后逐层合并
+ *         结果与标准SM3摘要不同, 只用于内部完整性清单, 格式如下:
+ *         <pre>
+ *         分块: 长度为L的文件按块大小C切分为 n = max(1, ceil(L / C)) 块, 最后一块可不足C, 空文件为一个空块
+ *         叶子: leaf(i)        = SM3(0x00 || 第i块数据)
+ *         节点: node(lo, hi)   = lo == hi ? leaf(lo)
+ *                              : SM3(0x01 || node(lo, mid) || node(mid + 1, hi)), mid = lo + (hi - lo) / 2
+ *         根:   root           = SM3(0x02 || C(8字节大端) || L(8字节大端) || node(0, n - 1))
+ *         </pre>
+ *         树形只由 L 和 C 决定, 与线程数无关
+ */
+public final class SM3TreeHash {
+    /**
+     * 默认块大小 1M
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+    private static final byte ROOT_PREFIX = 0x02;
+
+    private SM3TreeHash() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * 树模式摘要, 读取整个文件, 不改变通道位置, 不关闭通道
+     *
+     * @param channel   文件通道
+     * @param chunkSize 块大小
+     * @param pool      计算块摘要的线程池
+     */
+    public static byte[] hash(FileChannel channel, int chunkSize, ForkJoinPool pool) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        long length = channel.size();
+        long chunks = Math.max(1, (length + chunkSize - 1) / chunkSize);
+        if (chunks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("too many chunks, use a larger chunkSize");
+        }
+
+        byte[] tree;
+        try {
+            tree = pool.invoke(new SM3TreeTask(channel, chunkSize, length, 0, (int) chunks - 1));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        SM3Engine digest = new SM3Engine();
+        digest.update(ROOT_PREFIX);
+        byte[] params = new byte[16];
+        Pack.longToBigEndian(chunkSize, params, 0);
+        Pack.longToBigEndian(length, params, 8);
+        digest.update(params, 0, params.length);
+        digest.update(tree, 0, tree.length);
+        return digest.doFinal();
+    }
+
+    /**
+     * 计算块区间 [low, high] 的节点摘要
+     */
+    static class SM3TreeTask extends RecursiveTask<byte[]> {
+        final FileChannel channel;
+        final int chunkSize;
+        final long length;
+        final int low;
+        final int high;
+
+        SM3TreeTask(FileChannel channel, int chunkSize, long length, int lo, int hi) {
+            this.channel = channel;
+            this.chunkSize = chunkSize;
+            this.length = length;
+            this.low = lo;
+            this.high = hi;
+        }
+
+        @Override
+        protected byte[] compute() {
+            if (this.high == this.low) {
+                return this.leaf(this.low);
+            }
+
+            int mid = this.low + (this.high - this.low) / 2;
+
+            SM3TreeTask left = new SM3TreeTask(this.channel, this.chunkSize, this.length, this.low, mid);
+            SM3TreeTask right = new SM3TreeTask(this.channel, this.chunkSize, this.length, mid + 1, this.high);
+            left.fork();
+
+            byte[] rightAns = right.compute();
+            byte[] leftAns = left.join();
+
+            SM3Engine digest = new SM3Engine();
+            digest.update(NODE_PREFIX);
+            digest.update(leftAns, 0, leftAns.length);
+            digest.update(rightAns, 0, rightAns.length);
+            return digest.doFinal();
+        }
+
+        private byte[] leaf(int index) {
+            long offset = (long) index * this.chunkSize;
+            long size = Math.min(this.chunkSize, this.length - offset);
+
+            SM3Engine digest = new SM3Engine();
+            digest.update(LEAF_PREFIX);
+            try {
+                SM3Utils.update(digest, this.channel, offset, size);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return digest.doFinal();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.jb.driver.sm4;
+
+import org.bouncycastle.crypto.engines.SM4Engine;
+import org.bouncycastle.crypto.params.KeyParameter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * @author zhaojb
+ *         并行SM4-CTR, 输入按分组对齐切段, 每段的初始计数器为 IV + 段起始分组号(128位大端), 各段在线程池上独立加解密
+ *         结果与 SM4/CTR/NoPadding 顺序处理相同, 加密与解密是同一运算
+ *         堆缓冲区直接读写底层数组, 直接缓冲区与内存映射缓冲区经线程内缓冲区分块处理
+ */
+public final class SM4ParallelCtr {
+    private static final int BLOCK_SIZE = 16;
+
+    /**
+     * 小于该长度的段不再拆分, 避免任务调度开销超过加密本身
+     */
+    private static final int MIN_SEGMENT_SIZE = 256 * 1024;
+
+    /**
+     * 每个工作线程平均分到的段数
+     */
+    private static final int SEGMENTS_PER_THREAD = 4;
+
+    /**
+     * 文件内存映射窗口大小, 分组对齐
+     */
+    private static final long MAP_WINDOW_SIZE = 256L * 1024 * 1024;
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<SM4Engine> ENGINE = ThreadLocal.withInitial(SM4Engine::new);
+
+    private static final ThreadLocal<byte[]> CHUNK = ThreadLocal.withInitial(() -> new byte[CHUNK_SIZE]);
+
+    private SM4ParallelCtr() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * 加解密 in 的 position 到 limit, 写入 out 的 position 起始处, 完成后两者 position 均前移处理的长度
+     *
+     * @param key 16字节密钥
+     * @param iv  16字节初始计数器块
+     */
+    public static void crypt(byte[] key, byte[] iv, ByteBuffer in, ByteBuffer out, ExecutorService executorService) {
+        if (iv.length != BLOCK_SIZE) {
+            throw new IllegalArgumentException("iv must be 16 bytes");
+        }
+        int len = in.remaining();
+        if (out.remaining() < len) {
+            throw new IllegalArgumentException("output buffer too short");
+        }
+        crypt(key, iv, 0, in, out, executorService);
+        in.position(in.limit());
+        out.position(out.position() + len);
+    }
+
+    /**
+     * 加解密文件 in 的全部内容写入 out, 两者均按窗口内存映射, out 须以读写方式打开, 长度设为与 in 相同
+     */
+    public static void crypt(byte[] key, byte[] iv, FileChannel in, FileChannel out, ExecutorService executorService)
+            throws IOException {
+        if (iv.length != BLOCK_SIZE) {
+            throw new IllegalArgumentException("iv must be 16 bytes");
+        }
+        long size = in.size();
+        if (out.size() > size) {
+            out.truncate(size);
+        }
+        for (long position = 0; position < size; position += MAP_WINDOW_SIZE) {
+            long window = Math.min(MAP_WINDOW_SIZE, size - position);
+            MappedByteBuffer source = in.map(FileChannel.MapMode.READ_ONLY, position, window);
+            MappedByteBuffer target = out.map(FileChannel.MapMode.READ_WRITE, position, window);
+            crypt(key, iv, position / BLOCK_SIZE, source, target, executorService);
+            target.force();
+        }
+    }
+
+    /**
+     * @param firstBlock in 起始处对应的分组号
+     */
+    private static void crypt(byte[] key, byte[] iv, long firstBlock, ByteBuffer in, ByteBuffer out,
+            ExecutorService executorService) {
+        int len = in.remaining();
+        if (len == 0) {
+            return;
+        }
+        int segments = Math.min(len / MIN_SEGMENT_SIZE, Runtime.getRuntime().availableProcessors() * SEGMENTS_PER_THREAD);
+        if (segments <= 1) {
+            cryptSegment(key, iv, firstBlock, in.duplicate(), out.duplicate());
+            return;
+        }
+        int step = (len / segments + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+
+        int inStart = in.position();
+        int outStart = out.position();
+        List<Future<?>> futures = new ArrayList<>(segments);
+        for (int from = 0; from < len; from += step) {
+            int size = Math.min(step, len - from);
+            ByteBuffer source = in.duplicate();
+            source.position(inStart + from).limit(inStart + from + size);
+            ByteBuffer target = out.duplicate();
+            target.position(outStart + from).limit(outStart + from + size);
+            long block = firstBlock + from / BLOCK_SIZE;
+            futures.add(executorService.submit(() -> cryptSegment(key, iv, block, source, target)));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("sm4 ctr interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("sm4 ctr failed", e.getCause());
+            }
+        }
+    }
+
+    private static void cryptSegment(byte[] key, byte[] iv, long block, ByteBuffer in, ByteBuffer out) {
+        SM4Engine engine = ENGINE.get();
+        engine.init(true, new KeyParameter(key));
+        byte[] counter = counter(iv, block);
+        byte[] keyStream = new byte[BLOCK_SIZE];
+
+        if (in.hasArray() && out.hasArray()) {
+            int len = in.remaining();
+            process(engine, counter, keyStream, in.array(), in.arrayOffset() + in.position(), len,
+                    out.array(), out.arrayOffset() + out.position());
+            in.position(in.position() + len);
+            out.position(out.position() + len);
+            return;
+        }
+
+        // 块大小是分组长度的整数倍, 只有最后一块可能不足一个分组
+        byte[] chunk = CHUNK.get();
+        while (in.hasRemaining()) {
+            int len = Math.min(CHUNK_SIZE, in.remaining());
+            in.get(chunk, 0, len);
+            process(engine, counter, keyStream, chunk, 0, len, chunk, 0);
+            out.put(chunk, 0, len);
+        }
+    }
+
+    /**
+     * out = in XOR SM4(counter), 逐分组递增计数器, 除最后一次调用外 len 须为分组长度的整数倍
+     */
+    private static void process(SM4Engine engine, byte[] counter, byte[] keyStream,
+            byte[] in, int inOff, int len, byte[] out, int outOff) {
+        for (int done = 0; done < len; done += BLOCK_SIZE) {
+            engine.processBlock(counter, 0, keyStream, 0);
+            increment(counter);
+            int n = Math.min(BLOCK_SIZE, len - done);
+            for (int i = 0; i < n; ++i) {
+                out[outOff + done + i] = (byte) (in[inOff + done + i] ^ keyStream[i]);
+            }
+        }
+    }
+
+    private static void increment(byte[] counter) {
+        for (int i = BLOCK_SIZE - 1; i >= 0; --i) {
+            if (++counter[i] != 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * iv + block, 128位大端加法
+     */
+    static byte[] counter(byte[] iv, long block) {
+        byte[] counter = iv.clone();
+        long carry = block;
+        for (int i = BLOCK_SIZE - 1; i >= 0 && carry != 0; --i) {
+            long sum = (counter[i] & 0xFFL) + (carry & 0xFFL);
+            counter[i] = (byte) sum;
+            carry = (carry >>> 8) + (sum >>> 8);
+        }
+        return counter;
+    }
+}
@@ -1,35 +1,74 @@
 package com.jb.driver.sm9.bouncycastle;
 
+import com.jb.driver.sm3.KdfStream;
+import com.jb.driver.sm3.SM3Engine;
 import com.jb.driver.sm9.core.KeyGenerateCenter;
 import com.jb.driver.sm9.core.KeyParse;
 import com.jb.driver.sm9.core.SM9Curve;
+import com.jb.driver.sm9.core.SM9MasterPublicKeyPrecompute;
+import com.jb.driver.sm9.core.SM9RecipientPoint;
 import com.jb.driver.sm9.key.SM9MasterKeyPair;
 import com.jb.driver.sm9.key.SM9PrivateKey;
 import com.jb.driver.sm9.method.SM9Method;
 import com.jb.model.result.SM9CipherResult;
+import com.jb.model.result.SM9DecryptResult;
+import com.jb.model.result.SM9EncapsulateResult;
 import com.jb.utils.SM4Utils;
 import it.unisa.dia.gas.jpbc.Element;
+import it.unisa.dia.gas.jpbc.PairingPreProcessing;
 import it.unisa.dia.gas.plaf.jpbc.field.curve.CurveElement;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.encoders.Hex;
 
 import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * @author zhaojb
  * SM9加密类
  */
 public class SM9EncryptBouncyCastle {
-    private final SM9Curve sm9Curve = new SM9Curve();
+    /**
+     * 序列密码方式每次派生的密钥流长度
+     */
+    private static final int KEY_STREAM_BUFFER_SIZE = 4096;
+
+    /*
+     * 封装密文C1, 流式加密的 K1(SM4密钥), K2(MAC密钥), 每段C3 长度
+     */
+    private static final int STREAM_C1_LENGTH = 64;
+    private static final int STREAM_K1_LENGTH = 16;
+    private static final int STREAM_K2_LENGTH = 32;
+    private static final int STREAM_C3_LENGTH = 32;
+
+    /**
+     * 流式加密每段C2的长度, 分组长度的整数倍
+     */
+    private static final int STREAM_CHUNK_SIZE = 64 * 1024;
+
+    private final SM9Curve sm9Curve = SM9Curve.getInstance();
 
     private final KeyGenerateCenter keyGenerateCenter = new KeyGenerateCenter(sm9Curve);
 
@@ -52,16 +91,18 @@ public class SM9EncryptBouncyCastle {
 
         //////////////////////////////////////// 密钥封装start////////////////////////////////////////
 
-        // hB = H1(IDB||hid,N)
-        BigInteger hB = SM9Method.bigIntegerH1(id,(byte)3,this.sm9Curve.getBigIntegerN());
+        // g = e(Ppub,P2), 取主公钥预计算结果
+        SM9MasterPublicKeyPrecompute g = SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,masterPublicKey);
 
-        // step1:QB = [hB]P1+Ppub
-        CurveElement curveQB =
-                this.sm9Curve.getCurveP1().duplicate().mul(hB).add(masterPublicKey.Q);
+        // hB = H1(IDB||hid,N)
+        // step1:QB = [hB]P1+Ppub, 按接收方缓存
+        SM9RecipientPoint curveQB = g.getRecipientPoint(id,SM9Curve.HID_ENCRYPT);
 
         CurveElement curveC1;
-        byte[] bytesK1;
+        byte[] bytesK1 = null;
         byte[] bytesK2;
+        byte[] bytesC2 = null;
+        boolean isK1Zero;
         do {
             // step2:Rand r 被包含于[1,N-1]
             BigInteger r = SM9Method.genRandom(this.sm9Curve.getRandom(),
@@ -70,44 +111,33 @@ public class SM9EncryptBouncyCastle {
             // step3:C1= [r]QB
             curveC1 = curveQB.mul(r);
 
-            // step4:g = e(Ppub,P2)
-            Element g = this.sm9Curve.pairing(masterPublicKey.Q,this.sm9Curve.getCurveP2());
-            // step5:w=g^r
-            Element w = g.duplicate().pow(r);
+            // step4,step5:w=g^r
+            Element w = g.pow(r);
 
             // step6.0:拼接C1||w||IDB
-
-            int k1Len = 16;
-            if (!isBaseBlockCipher) {
-                k1Len = data.length;
-            }
-            try (ByteArrayOutputStream bos = new ByteArrayOutputStream();) {
-                byte[] temp = SM9Method.curveFieldG1ToBytes(curveC1);
-                bos.write(temp,0,temp.length);
-                temp = SM9Method.gtFiniteToByte(w);
-                bos.write(temp,0,temp.length);
-                temp = id.getBytes(StandardCharsets.UTF_8);
-                bos.write(temp,0,temp.length);
-
-                // step6.1:K1||K2 = KDF(C1||w||IDB,klen)
-                byte[] bytesK = SM9Method.bytesKdf(bos.toByteArray(),k1Len + macKeyByteLen);
-                bytesK1 = Arrays.copyOfRange(bytesK,0,k1Len);
-                bytesK2 = Arrays.copyOfRange(bytesK,k1Len,bytesK.length);
-            } catch (IOException e) {
-                throw new IOException(e);
+            byte[] bytesZ = bytesZ(curveC1,w,id);
+
+            // step6.1:K1||K2 = KDF(C1||w||IDB,klen)
+            // 序列密码方式K1与消息等长, 不单独生成, 边派生边与消息异或
+            KdfStream kdf = new KdfStream(bytesZ);
+            if (isBaseBlockCipher) {
+                bytesK1 = kdf.read(16);
+                isK1Zero = SM9Method.isAllZero(bytesK1);
+            } else {
+                bytesC2 = new byte[data.length];
+                isK1Zero = xorKeyStream(kdf,data,bytesC2);
             }
+            bytesK2 = kdf.read(macKeyByteLen);
+            kdf.clear();
 
-        } while (SM9Method.isAllZero(bytesK1));
+        } while (isK1Zero);
 
         //////////////////////////////////////// 密钥封装End////////////////////////////////////////
 
-        // step6.2: C2=Enc(K1,M)
-        byte[] bytesC2;
+        // step6.2: C2=Enc(K1,M), 序列密码方式已在派生时完成
         if (isBaseBlockCipher) {
             bytesC2 = SM4Utils.encryptEcbPadding(bytesK1,data);
             // C2 = SM4.ecbCrypt(true, K1, data, 0, data.length);
-        } else {
-            bytesC2 = SM9Method.xor(data,bytesK1);
         }
 
         // step7:C3=MAC(K2,C2)
@@ -203,20 +233,8 @@ public class SM9EncryptBouncyCastle {
             byte[] cipherBytes,SM9PrivateKey privateKey,String id,
             boolean isBaseBlockCipher,int macKeyByteLen) throws IOException, NoSuchPaddingException, IllegalBlockSizeException, NoSuchAlgorithmException, BadPaddingException, InvalidKeyException, NoSuchProviderException {
 
-        byte[] bytesC1XY = new byte[64];
-        System.arraycopy(cipherBytes,0,bytesC1XY,0,64);
-
-        byte[] bytesC3 = new byte[32];
-        System.arraycopy(cipherBytes,64,bytesC3,0,32);
-
-        byte[] bytesC2 = new byte[4];
-        System.arraycopy(cipherBytes,96,bytesC2,0,4);
-
-        // 将byte转成CurveElement,这个转换找了一整个下午
-        CurveElement curveC1 =
-                (CurveElement)this.sm9Curve.getCurveFieldG1().newElementFromBytes(bytesC1XY);
-
-        return decrypt(new SM9CipherResult(curveC1,bytesC2,bytesC3),privateKey,id,isBaseBlockCipher,
+        // C1||C3||C2, C2与明文等长
+        return decrypt(SM9CipherResult.fromByteArray(this.sm9Curve,cipherBytes),privateKey,id,isBaseBlockCipher,
                 macKeyByteLen);
 
     }
@@ -226,61 +244,411 @@ public class SM9EncryptBouncyCastle {
         if (!cipherResult.getCurveC1().isValid()) {
             throw new RuntimeException("C1 is not on G1 group");
         } else {
-
-            //////////////////////////////////////// 密钥解封start//////////////////////////////////////
-
             // step1:C1 被包含于G1?
             // step2:w=e(C1,dB) dB是用户私钥
             Element w = this.sm9Curve.pairing(cipherResult.getCurveC1(),privateKey.d);
 
-            // step3:拼接C1||w||IDB
-            int k1Len = 16;
-            if (!isBaseBlockCipher) {
-                k1Len = cipherResult.getBytesC2().length;
-            }
+            return decrypt(cipherResult,w,id,isBaseBlockCipher,macKeyByteLen);
+        }
+    }
+
+    /**
+     * 已算出 w=e(C1,dB) 之后的解密步骤
+     */
+    private byte[] decrypt(SM9CipherResult cipherResult,Element w,String id,
+            boolean isBaseBlockCipher,int macKeyByteLen) throws IOException, NoSuchPaddingException, IllegalBlockSizeException, NoSuchAlgorithmException, BadPaddingException, InvalidKeyException, NoSuchProviderException {
+        //////////////////////////////////////// 密钥解封start//////////////////////////////////////
 
-            byte[] bytesK1;
-            byte[] bytesK2;
-            try (ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
-                byte[] temp = SM9Method.curveFieldG1ToBytes(cipherResult.getCurveC1());
-                bos.write(temp,0,temp.length);
-                temp = SM9Method.gtFiniteToByte(w);
-                bos.write(temp,0,temp.length);
-                temp = id.getBytes(StandardCharsets.UTF_8);
-                bos.write(temp,0,temp.length);
-
-                // step3.1: K1||K2 = KDF(C1||w||IDB,klen)
-                byte[] bytesK = SM9Method.bytesKdf(bos.toByteArray(),k1Len + macKeyByteLen);
-                bytesK1 = Arrays.copyOfRange(bytesK,0,k1Len);
-                bytesK2 = Arrays.copyOfRange(bytesK,k1Len,bytesK.length);
-            } catch (IOException e) {
-                throw new IOException(e);
+        // step3:拼接C1||w||IDB
+        byte[] bytesZ = bytesZ(cipherResult.getCurveC1(),w,id);
+
+        // step3.1: K1||K2 = KDF(C1||w||IDB,klen)
+        // 序列密码方式K1与密文等长, 边派生边与C2异或得到M
+        KdfStream kdf = new KdfStream(bytesZ);
+        byte[] bytesK1 = null;
+        byte[] bytesM = null;
+        boolean isK1Zero;
+        if (isBaseBlockCipher) {
+            bytesK1 = kdf.read(16);
+            isK1Zero = SM9Method.isAllZero(bytesK1);
+        } else {
+            bytesM = new byte[cipherResult.getBytesC2().length];
+            isK1Zero = xorKeyStream(kdf,cipherResult.getBytesC2(),bytesM);
+        }
+        byte[] bytesK2 = kdf.read(macKeyByteLen);
+        kdf.clear();
+
+        //////////////////////////////////////// 密钥解封End//////////////////////////////////////
+
+        if (isK1Zero) {
+            throw new RuntimeException("K1 is all zero");
+        } else {
+            // step3.2:M=Dec(K1,C2), 序列密码方式已在派生时完成
+            if (isBaseBlockCipher) {
+                bytesM = SM4Utils.decryptEcbPadding(bytesK1,cipherResult.getBytesC2());
             }
 
-            //////////////////////////////////////// 密钥解封End//////////////////////////////////////
+            // step4:C3`=MAC(K2,C2)
+            byte[] u = SM9Method.bytesMac(bytesK2,cipherResult.getBytesC2());
 
-            if (SM9Method.isAllZero(bytesK1)) {
-                throw new RuntimeException("K1 is all zero");
+            // step5:C3=C3` OUT M
+            if (!SM9Method.byteEqual(u,cipherResult.getBytesC3())) {
+                throw new RuntimeException("C3 verify failed");
             } else {
-                byte[] bytesM;
+                return bytesM;
+            }
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+    // 批量解密
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * 批量解密, 同一用户私钥下的多条密文, 序列密码方式, MAC密钥32字节
+     */
+    public List<SM9DecryptResult> decryptBatch(SM9PrivateKey privateKey,String id,
+            List<SM9CipherResult> cipherResults) {
+
+        return decryptBatch(privateKey,id,cipherResults,false,32,ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 批量解密, 同一用户私钥下的多条密文
+     * dB的线函数系数只预计算一次, 各条密文的配对只代入C1, 在线程池中并行计算
+     * 返回结果与密文一一对应, 单条密文C1不在G1上、C3校验失败等只记入该条结果, 不影响其余密文
+     */
+    public List<SM9DecryptResult> decryptBatch(SM9PrivateKey privateKey,String id,
+            List<SM9CipherResult> cipherResults,boolean isBaseBlockCipher,int macKeyByteLen,
+            ExecutorService executorService) {
+        PairingPreProcessing dB = this.sm9Curve.pairingPreProcessing(privateKey.d);
+
+        List<Future<SM9DecryptResult>> futures = new ArrayList<>(cipherResults.size());
+        for (SM9CipherResult cipherResult : cipherResults) {
+            futures.add(executorService.submit(
+                    () -> decryptQuietly(cipherResult,dB,id,isBaseBlockCipher,macKeyByteLen)));
+        }
+        return collect(futures);
+    }
+
+    /**
+     * 批量解密, 密文为 C1||C3||C2 字节数组, 序列密码方式, MAC密钥32字节
+     */
+    public List<SM9DecryptResult> decryptBatchParamBytes(SM9PrivateKey privateKey,String id,
+            List<byte[]> cipherBytes) {
+
+        return decryptBatchParamBytes(privateKey,id,cipherBytes,false,32,ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 批量解密, 密文为 C1||C3||C2 字节数组, 解析也在线程池中进行, 格式错误只记入该条结果
+     */
+    public List<SM9DecryptResult> decryptBatchParamBytes(SM9PrivateKey privateKey,String id,
+            List<byte[]> cipherBytes,boolean isBaseBlockCipher,int macKeyByteLen,
+            ExecutorService executorService) {
+        PairingPreProcessing dB = this.sm9Curve.pairingPreProcessing(privateKey.d);
+
+        List<Future<SM9DecryptResult>> futures = new ArrayList<>(cipherBytes.size());
+        for (byte[] bytes : cipherBytes) {
+            futures.add(executorService.submit(() -> {
+                SM9CipherResult cipherResult;
+                try {
+                    cipherResult = SM9CipherResult.fromByteArray(this.sm9Curve,bytes);
+                } catch (RuntimeException e) {
+                    return new SM9DecryptResult(null,"cipher format error");
+                }
+                return decryptQuietly(cipherResult,dB,id,isBaseBlockCipher,macKeyByteLen);
+            }));
+        }
+        return collect(futures);
+    }
+
+    private SM9DecryptResult decryptQuietly(SM9CipherResult cipherResult,PairingPreProcessing dB,String id,
+            boolean isBaseBlockCipher,int macKeyByteLen) {
+        try {
+            // step1:C1 被包含于G1? 无穷远点同样拒绝
+            CurveElement curveC1 = cipherResult.getCurveC1();
+            if (curveC1.isZero() || !curveC1.isValid()) {
+                return new SM9DecryptResult(null,"C1 is not on G1 group");
+            }
+
+            // step2:w=e(C1,dB), 使用预计算的dB线函数系数
+            Element w = dB.pairing(curveC1);
+
+            return new SM9DecryptResult(decrypt(cipherResult,w,id,isBaseBlockCipher,macKeyByteLen),null);
+        } catch (Exception e) {
+            return new SM9DecryptResult(null,e.getMessage() == null?e.getClass().getSimpleName():e.getMessage());
+        }
+    }
+
+    private static List<SM9DecryptResult> collect(List<Future<SM9DecryptResult>> futures) {
+        List<SM9DecryptResult> results = new ArrayList<>(futures.size());
+        for (Future<SM9DecryptResult> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("decrypt batch interrupted",e);
+            } catch (ExecutionException e) {
+                results.add(new SM9DecryptResult(null,String.valueOf(e.getCause())));
+            }
+        }
+        return results;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+    // 密钥封装
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * 密钥封装, 每个会话或文件封装一个对称密钥, 之后的数据只用对称算法处理, 无需配对
+     * C = [r]QB, w = e(Ppub-e,P2)^r, K = KDF(C||w||IDB, klen), K全0时重新选取r
+     *
+     * @param keyLen 封装的密钥字节长度
+     */
+    public SM9EncapsulateResult encapsulate(SM9MasterKeyPair.MasterPublicKey masterPublicKey,String id,
+            int keyLen) {
+        if (keyLen <= 0) {
+            throw new IllegalArgumentException("keyLen must be positive");
+        }
+        SM9MasterPublicKeyPrecompute g = SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,masterPublicKey);
+
+        // A1: QB = [H1(IDB||hid,N)]P1+Ppub-e, 按接收方缓存
+        SM9RecipientPoint curveQB = g.getRecipientPoint(id,SM9Curve.HID_ENCRYPT);
+
+        CurveElement curveC;
+        byte[] bytesK;
+        do {
+            // A2: r 被包含于[1,N-1]
+            BigInteger r = SM9Method.genRandom(this.sm9Curve.getRandom(),this.sm9Curve.getBigIntegerN());
+
+            // A3: C = [r]QB
+            curveC = curveQB.mul(r);
+
+            // A4,A5: w = g^r
+            Element w = g.pow(r);
+
+            // A6: K = KDF(C||w||IDB, klen)
+            bytesK = SM9Method.bytesKdf(bytesZ(curveC,w,id),keyLen);
+        } while (SM9Method.isAllZero(bytesK));
+
+        return new SM9EncapsulateResult(SM9Method.curveFieldG1ToBytes(curveC),bytesK);
+    }
+
+    /**
+     * 密钥解封
+     * w' = e(C,dB), K' = KDF(C||w'||IDB, klen)
+     *
+     * @param bytesC1 封装密文C, 64字节
+     */
+    public byte[] decapsulate(SM9PrivateKey privateKey,String id,byte[] bytesC1,int keyLen) {
+        if (keyLen <= 0) {
+            throw new IllegalArgumentException("keyLen must be positive");
+        }
+        if (bytesC1.length != STREAM_C1_LENGTH) {
+            throw new IllegalArgumentException("C must be " + STREAM_C1_LENGTH + " bytes");
+        }
+
+        // B1: C 被包含于G1?
+        CurveElement curveC = (CurveElement)this.sm9Curve.getCurveFieldG1().newElementFromBytes(bytesC1);
+        if (curveC.isZero() || !curveC.isValid()) {
+            throw new RuntimeException("C1 is not on G1 group");
+        }
+
+        // B2: w' = e(C,dB)
+        Element w = this.sm9Curve.pairing(curveC,privateKey.d);
 
-                // step3.2:M=Dec(K1,C2)
-                if (isBaseBlockCipher) {
-                    bytesM = SM4Utils.decryptEcbPadding(bytesK1,cipherResult.getBytesC2());
-                } else {
-                    bytesM = SM9Method.xor(cipherResult.getBytesC2(),bytesK1);
+        // B3: K' = KDF(C||w'||IDB, klen)
+        byte[] bytesK = SM9Method.bytesKdf(bytesZ(curveC,w,id),keyLen);
+        if (SM9Method.isAllZero(bytesK)) {
+            throw new RuntimeException("K is all zero");
+        }
+        return bytesK;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+    // 流式加解密
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * 流式混合加密, 内存占用与消息长度无关
+     * 密钥封装 {@link #encapsulate} 得到 C1 与 K1||K2 = KDF(C1||w||IDB, 16 + 32), 消息用 SM4-CTR(K1, IV = 0) 加密, 计数器在各段间连续
+     * 每条消息的K1都不同, 固定IV不会导致密钥流重用
+     * 输出格式: C1(64字节) || 段0 || 段1 || ... , 段i = C2_i || C3_i
+     * 除最后一段外 C2_i 均为 {@link #STREAM_CHUNK_SIZE} 字节, 最后一段更短(可以为空), 消息长度为段长整数倍时末尾是一个空段
+     * C3_i = MAC(K2, C2_i || i || final) = SM3(C2_i || i(8字节大端) || final(1字节, 最后一段为1) || K2)
+     * 段号防止段被重排, 结束标志防止在段边界截断, 解密方可以逐段校验后再写出明文
+     *
+     * @return 写出的字节数
+     */
+    public long encryptStream(SM9MasterKeyPair.MasterPublicKey masterPublicKey,String id,
+            InputStream in,OutputStream out) throws IOException, GeneralSecurityException {
+        SM9EncapsulateResult encapsulation;
+        do {
+            encapsulation = this.encapsulate(masterPublicKey,id,STREAM_K1_LENGTH + STREAM_K2_LENGTH);
+        } while (SM9Method.isAllZero(Arrays.copyOfRange(encapsulation.getBytesK(),0,STREAM_K1_LENGTH)));
+
+        byte[] bytesK = encapsulation.getBytesK();
+        byte[] bytesK1 = Arrays.copyOfRange(bytesK,0,STREAM_K1_LENGTH);
+        byte[] bytesK2 = Arrays.copyOfRange(bytesK,STREAM_K1_LENGTH,bytesK.length);
+        Arrays.fill(bytesK,(byte)0);
+
+        try {
+            Cipher cipher = SM4Utils.ctrCipher(Cipher.ENCRYPT_MODE,bytesK1,new byte[SM4Utils.BLOCK_SIZE]);
+            byte[] bytesC1 = encapsulation.getBytesC1();
+            out.write(bytesC1);
+            long length = bytesC1.length;
+
+            byte[] chunk = new byte[STREAM_CHUNK_SIZE];
+            for (long index = 0;;++index) {
+                int n = readChunk(in,chunk);
+                boolean last = n < chunk.length;
+                cipher.update(chunk,0,n,chunk,0);
+                out.write(chunk,0,n);
+                out.write(chunkMac(bytesK2,chunk,n,index,last));
+                length += n + STREAM_C3_LENGTH;
+                if (last) {
+                    return length;
                 }
+            }
+        } finally {
+            Arrays.fill(bytesK1,(byte)0);
+            Arrays.fill(bytesK2,(byte)0);
+        }
+    }
 
-                // step4:C3`=MAC(K2,C2)
-                byte[] u = SM9Method.bytesMac(bytesK2,cipherResult.getBytesC2());
+    public long encryptStream(SM9MasterKeyPair.MasterPublicKey masterPublicKey,String id,
+            ReadableByteChannel in,WritableByteChannel out) throws IOException, GeneralSecurityException {
+        return this.encryptStream(masterPublicKey,id,Channels.newInputStream(in),Channels.newOutputStream(out));
+    }
 
-                // step5:C3=C3` OUT M
-                if (!SM9Method.byteEqual(u,cipherResult.getBytesC3())) {
+    /**
+     * 流式混合解密, 输入格式见 {@link #encryptStream(SM9MasterKeyPair.MasterPublicKey,String,InputStream,OutputStream)}
+     * 每段读入后先校验C3_i, 通过后才解密写出, 不会写出未经校验的明文
+     * 校验失败或输入在结束段之前截断时抛出异常, 此时已写出的是此前各段的明文, 均已通过校验, 但消息不完整
+     *
+     * @return 写出的明文字节数
+     */
+    public long decryptStream(SM9PrivateKey privateKey,String id,
+            InputStream in,OutputStream out) throws IOException, GeneralSecurityException {
+        byte[] bytesC1 = new byte[STREAM_C1_LENGTH];
+        readFully(in,bytesC1);
+        byte[] bytesK = this.decapsulate(privateKey,id,bytesC1,STREAM_K1_LENGTH + STREAM_K2_LENGTH);
+        byte[] bytesK1 = Arrays.copyOfRange(bytesK,0,STREAM_K1_LENGTH);
+        byte[] bytesK2 = Arrays.copyOfRange(bytesK,STREAM_K1_LENGTH,bytesK.length);
+        Arrays.fill(bytesK,(byte)0);
+
+        try {
+            if (SM9Method.isAllZero(bytesK1)) {
+                throw new RuntimeException("K1 is all zero");
+            }
+            Cipher cipher = SM4Utils.ctrCipher(Cipher.DECRYPT_MODE,bytesK1,new byte[SM4Utils.BLOCK_SIZE]);
+
+            // 读满一个完整段说明后面还有段, 读到输入结束时不足一个完整段的就是结束段
+            byte[] record = new byte[STREAM_CHUNK_SIZE + STREAM_C3_LENGTH];
+            long length = 0;
+            for (long index = 0;;++index) {
+                int n = readChunk(in,record);
+                if (n < STREAM_C3_LENGTH) {
+                    throw new EOFException("cipher text truncated");
+                }
+                boolean last = n < record.length;
+                int c2Length = n - STREAM_C3_LENGTH;
+                byte[] u = chunkMac(bytesK2,record,c2Length,index,last);
+                if (!Arrays.constantTimeAreEqual(u,Arrays.copyOfRange(record,c2Length,n))) {
                     throw new RuntimeException("C3 verify failed");
-                } else {
-                    return bytesM;
                 }
+                cipher.update(record,0,c2Length,record,0);
+                out.write(record,0,c2Length);
+                length += c2Length;
+                if (last) {
+                    return length;
+                }
+            }
+        } finally {
+            Arrays.fill(bytesK1,(byte)0);
+            Arrays.fill(bytesK2,(byte)0);
+        }
+    }
+
+    public long decryptStream(SM9PrivateKey privateKey,String id,
+            ReadableByteChannel in,WritableByteChannel out) throws IOException, GeneralSecurityException {
+        return this.decryptStream(privateKey,id,Channels.newInputStream(in),Channels.newOutputStream(out));
+    }
+
+    /**
+     * 密钥派生输入 C1||w||IDB
+     */
+    private static byte[] bytesZ(CurveElement curveC1,Element w,String id) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] temp = SM9Method.curveFieldG1ToBytes(curveC1);
+        bos.write(temp,0,temp.length);
+        temp = SM9Method.gtFiniteToByte(w);
+        bos.write(temp,0,temp.length);
+        temp = id.getBytes(StandardCharsets.UTF_8);
+        bos.write(temp,0,temp.length);
+        return bos.toByteArray();
+    }
+
+    private static void readFully(InputStream in,byte[] b) throws IOException {
+        int off = 0;
+        while (off < b.length) {
+            int n = in.read(b,off,b.length - off);
+            if (n < 0) {
+                throw new EOFException("cipher text truncated");
+            }
+            off += n;
+        }
+    }
+
+    /**
+     * 读满 b 或读到输入结束
+     *
+     * @return 读取的字节数
+     */
+    private static int readChunk(InputStream in,byte[] b) throws IOException {
+        int off = 0;
+        while (off < b.length) {
+            int n = in.read(b,off,b.length - off);
+            if (n < 0) {
+                break;
+            }
+            off += n;
+        }
+        return off;
+    }
+
+    /**
+     * C3_i = SM3(C2_i || i || final || K2)
+     */
+    private static byte[] chunkMac(byte[] bytesK2,byte[] c2,int c2Length,long index,boolean last) {
+        SM3Engine mac = new SM3Engine();
+        mac.update(c2,0,c2Length);
+        for (int shift = 56;shift >= 0;shift -= 8) {
+            mac.update((byte)(index >>> shift));
+        }
+        mac.update((byte)(last ? 1 : 0));
+        mac.update(bytesK2,0,bytesK2.length);
+        return mac.doFinal();
+    }
+
+    /**
+     * out = in XOR KDF输出, 按块读取密钥流, 不生成与消息等长的K1
+     *
+     * @return 读取的密钥流是否全为0
+     */
+    private static boolean xorKeyStream(KdfStream kdf,byte[] in,byte[] out) {
+        byte[] keyStream = new byte[Math.min(in.length,KEY_STREAM_BUFFER_SIZE)];
+        int any = 0;
+        for (int off = 0;off < in.length;off += keyStream.length) {
+            int len = Math.min(keyStream.length,in.length - off);
+            kdf.read(keyStream,0,len);
+            for (int i = 0;i < len;++i) {
+                any |= keyStream[i];
+                out[off + i] = (byte)(in[off + i] ^ keyStream[i]);
             }
         }
+        Arrays.fill(keyStream,(byte)0);
+        return any == 0;
     }
 }
@@ -3,6 +3,8 @@ package com.jb.driver.sm9.bouncycastle;
 import com.jb.driver.sm9.core.KeyGenerateCenter;
 import com.jb.driver.sm9.core.KeyParse;
 import com.jb.driver.sm9.core.SM9Curve;
+import com.jb.driver.sm9.core.SM9MasterPublicKeyPrecompute;
+import com.jb.driver.sm9.core.SM9RecipientPoint;
 import com.jb.driver.sm9.key.SM9MasterKeyPair;
 import com.jb.driver.sm9.key.SM9PrivateKey;
 import com.jb.driver.sm9.method.SM9Method;
@@ -30,7 +32,7 @@ import java.util.Arrays;
  */
 public class SM9ExchangeBouncyCastle {
 
-    private final SM9Curve sm9Curve = new SM9Curve();
+    private final SM9Curve sm9Curve = SM9Curve.getInstance();
 
     private final KeyGenerateCenter keyGenerateCenter = new KeyGenerateCenter(this.sm9Curve);
 
@@ -88,32 +90,22 @@ public class SM9ExchangeBouncyCastle {
      * 发起方生成R
      */
     private CurveElement generateRFromA(BigInteger rA,String idB) {
-        BigInteger h1 = SM9Method.bigIntegerH1(idB,SM9Curve.HID_KEY_EXCHANGE,
-                this.sm9Curve.getBigIntegerN());
-
-        //step1.计算 QB =[H1(IDB||hid, N)]P1 +Ppub-e
-
-        CurveElement curveQB =
-                this.sm9Curve.getCurveP1().duplicate().mul(h1).duplicate().add(this.masterKeyPair.getPublicKey().Q);
-
-        return curveQB.duplicate().mul(rA);
+        //step1.计算 QB =[H1(IDB||hid, N)]P1 +Ppub-e, 按对方id缓存
+        SM9RecipientPoint curveQB = SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,
+                this.masterKeyPair.getPublicKey()).getRecipientPoint(idB,SM9Curve.HID_KEY_EXCHANGE);
 
+        return curveQB.mul(rA);
     }
 
     /**
      * 响应方生成R
      */
     private CurveElement generateRFromB(BigInteger rB,String idA) {
-        BigInteger h1 = SM9Method.bigIntegerH1(idA,SM9Curve.HID_KEY_EXCHANGE,
-                this.sm9Curve.getBigIntegerN());
-
-        //step1.计算 QB =[H1(IDB||hid, N)]P1 +Ppub-e
-
-        CurveElement curveQA =
-                this.sm9Curve.getCurveP1().duplicate().mul(h1).duplicate().add(this.masterKeyPair.getPublicKey().Q);
-
-        return curveQA.duplicate().mul(rB);
+        //step1.计算 QB =[H1(IDB||hid, N)]P1 +Ppub-e, 按对方id缓存
+        SM9RecipientPoint curveQA = SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,
+                this.masterKeyPair.getPublicKey()).getRecipientPoint(idA,SM9Curve.HID_KEY_EXCHANGE);
 
+        return curveQA.mul(rB);
     }
 
 
@@ -163,9 +155,8 @@ public class SM9ExchangeBouncyCastle {
         //step5.1:g1=e(RA,dB)=e(P1,P2)^(rA*s)
         Element g1 = this.sm9Curve.pairing(curveRA.duplicate(),bPrivateKey.d.duplicate());
         //step5.2:g2=e(Ppub,P2)^rB=e(P1,P2)^(rB*s)
-        Element g2 =
-                this.sm9Curve.pairing(this.masterKeyPair.getPublicKey().Q,
-                        this.sm9Curve.getCurveP2()).duplicate().pow(rB);
+        Element g2 = SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,
+                this.masterKeyPair.getPublicKey()).pow(rB);
         //step5.3:g3=g1^rB = e(P1,P2)^(rA*rB*s)
         Element g3 = g1.duplicate().pow(rB);
 
@@ -208,9 +199,8 @@ public class SM9ExchangeBouncyCastle {
         }
         //发起方
         //step5.1:g1=e(Ppub,P2)^rA = e(P1,P2)^(rA*s)
-        Element g1 =
-                this.sm9Curve.pairing(this.masterKeyPair.getPublicKey().Q,
-                        this.sm9Curve.getCurveP2()).duplicate().pow(rA);
+        Element g1 = SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,
+                this.masterKeyPair.getPublicKey()).pow(rA);
 
         //step5.2:g2=e(RB,dA)=e(P1,P2)^(rB*s)
         Element g2 = this.sm9Curve.pairing(curveRB.duplicate(),aPrivateKey.d.duplicate());
@@ -2,9 +2,11 @@ package com.jb.driver.sm9.bouncycastle;
 
 import com.jb.driver.sm9.core.KeyParse;
 import com.jb.driver.sm9.core.SM9Curve;
+import com.jb.driver.sm9.core.SM9MasterPublicKeyPrecompute;
 import com.jb.driver.sm9.key.SM9MasterKeyPair;
 import com.jb.driver.sm9.key.SM9PrivateKey;
 import com.jb.driver.sm9.method.SM9Method;
+import com.jb.model.parameter.SM9VerifyParameter;
 import com.jb.model.result.SM9SignResult;
 import it.unisa.dia.gas.jpbc.Element;
 import it.unisa.dia.gas.plaf.jpbc.field.curve.CurveElement;
@@ -12,6 +14,12 @@ import org.bouncycastle.util.encoders.Hex;
 
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * @author zhaojb
@@ -20,7 +28,7 @@ import java.nio.charset.StandardCharsets;
  */
 public class SM9SignBouncyCastle {
 
-    private final SM9Curve sm9Curve = new SM9Curve();
+    private final SM9Curve sm9Curve = SM9Curve.getInstance();
 
     private final KeyParse keyParse = new KeyParse(sm9Curve);
 
@@ -40,8 +48,8 @@ public class SM9SignBouncyCastle {
                               SM9PrivateKey privateKey,byte[] data) {
         BigInteger l, h;
 
-        //Step1 : g = e(P1, Ppub)
-        Element g = this.sm9Curve.pairing(sm9Curve.getCurveP1(),masterPublicKey.Q);
+        //Step1 : g = e(P1, Ppub), 取主公钥预计算结果
+        SM9MasterPublicKeyPrecompute g = SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,masterPublicKey);
 
         do {
 
@@ -49,7 +57,7 @@ public class SM9SignBouncyCastle {
             BigInteger r = SM9Method.genRandom(sm9Curve.getRandom(),sm9Curve.getBigIntegerN());
 
             //Step3 : w=g^r
-            Element w = g.duplicate().pow(r);
+            Element w = g.pow(r);
 
             //Step4 :  h=H2(M||w,N)
             h = SM9Method.bigIntegerH2(data,w,sm9Curve.getBigIntegerN()).mod(sm9Curve.getBigIntegerN());
@@ -60,7 +68,7 @@ public class SM9SignBouncyCastle {
 
 
         //Step6 : S = [l]dA=(xS,yS)
-        CurveElement s = privateKey.d.duplicate().mul(l);
+        CurveElement s = privateKey.mul(l);
 
         //Step7 : OUT : (h,s)
         SM9SignResult signResult = new SM9SignResult(h,s);
@@ -133,20 +141,16 @@ public class SM9SignBouncyCastle {
         if (!signature.getS().isValid())
             return false;
 
-        // Step3 : g = e(P1, Ppub)
-        Element g = sm9Curve.pairing(sm9Curve.getCurveP1(),masterPublicKey.Q);
+        // Step3 : g = e(P1, Ppub), 取主公钥预计算结果
+        SM9MasterPublicKeyPrecompute g = SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,masterPublicKey);
 
         // Step4 : t=g^h
         Element t = g.pow(signature.getH());
 
         // Step5 : h1=H1(IDA||hid,N)
-        BigInteger h1 = SM9Method.bigIntegerH1(id,SM9Curve.HID_SIGN,sm9Curve.getBigIntegerN());
-
-        // Step6 : P=[h1]P2+Ppub
-        CurveElement p = sm9Curve.getCurveP2().duplicate().mul(h1).add(masterPublicKey.Q);
-
-        // Step7 : u=e(S,P)
-        Element u = sm9Curve.pairing(signature.getS(),p);
+        // Step6 : P=[h1]P2+Ppub, 按id缓存
+        // Step7 : u=e(S,P), 开启验签配对预处理时使用P的线函数系数
+        Element u = g.verifyPairing(id,signature.getS());
 
         // Step8 : w=u*t
         Element w = u.mul(t);
@@ -158,4 +162,48 @@ public class SM9SignBouncyCastle {
 
     }
 
+    /**
+     * 批量验签, 同一签名主公钥下的多条签名
+     * g与各id的[h1]P2+Ppub取主公钥预计算结果, 配对在线程池中并行计算, 默认使用公共ForkJoinPool
+     * 返回结果与参数一一对应, 单条签名格式错误或计算异常视为验签失败
+     */
+    public List<Boolean> verifyBatch(SM9MasterKeyPair.MasterPublicKey masterPublicKey,
+            List<SM9VerifyParameter> parameters) {
+
+        return verifyBatch(masterPublicKey,parameters,ForkJoinPool.commonPool());
+    }
+
+    public List<Boolean> verifyBatch(SM9MasterKeyPair.MasterPublicKey masterPublicKey,
+            List<SM9VerifyParameter> parameters,ExecutorService executorService) {
+        // 主公钥预计算只构建一次, 各线程共享
+        SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,masterPublicKey);
+
+        List<Future<Boolean>> futures = new ArrayList<>(parameters.size());
+        for (SM9VerifyParameter parameter : parameters) {
+            futures.add(executorService.submit(() -> verifyQuietly(masterPublicKey,parameter)));
+        }
+
+        List<Boolean> results = new ArrayList<>(futures.size());
+        for (Future<Boolean> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("verify batch interrupted",e);
+            } catch (ExecutionException e) {
+                results.add(Boolean.FALSE);
+            }
+        }
+        return results;
+    }
+
+    private boolean verifyQuietly(SM9MasterKeyPair.MasterPublicKey masterPublicKey,
+            SM9VerifyParameter parameter) {
+        try {
+            return verify(masterPublicKey,parameter.getId(),parameter.getData(),parameter.getSignature());
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
 }
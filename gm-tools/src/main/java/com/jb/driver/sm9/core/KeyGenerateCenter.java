@@ -25,14 +25,14 @@ public class KeyGenerateCenter {
 
     public SM9MasterKeyPair genSignMasterKeyPair() {
         BigInteger ks = SM9Method.genRandom(this.mCurve.getRandom(),this.mCurve.getBigIntegerN());
-        CurveElement pPubs = this.mCurve.getCurveP2().duplicate().mul(ks);
+        CurveElement pPubs = this.mCurve.mulP2(ks);
         return new SM9MasterKeyPair(new SM9MasterKeyPair.MasterPrivateKey(ks),
                 new SM9MasterKeyPair.MasterPublicKey(pPubs,true));
     }
 
     public SM9MasterKeyPair genEncryptMasterKeyPair() {
         BigInteger ke = SM9Method.genRandom(this.mCurve.getRandom(),this.mCurve.getBigIntegerN());
-        CurveElement pPubs = this.mCurve.getCurveP1().duplicate().mul(ke);
+        CurveElement pPubs = this.mCurve.mulP1(ke);
         return new SM9MasterKeyPair(new SM9MasterKeyPair.MasterPrivateKey(ke),
                 new SM9MasterKeyPair.MasterPublicKey(pPubs,false));
     }
@@ -66,14 +66,14 @@ public class KeyGenerateCenter {
 
     SM9PrivateKey genSignPrivateKey(SM9MasterKeyPair.MasterPrivateKey privateKey,String id)  {
         BigInteger t2 = this.t2(privateKey,id,SM9Curve.HID_SIGN);
-        CurveElement ds = this.mCurve.getCurveP1().duplicate().mul(t2);
+        CurveElement ds = this.mCurve.mulP1(t2);
         return new SM9PrivateKey(ds,SM9Curve.HID_SIGN);
     }
 
     SM9PrivateKey genEncryptPrivateKey(SM9MasterKeyPair.MasterPrivateKey privateKey,String id,
             byte hid)  {
         BigInteger t2 = this.t2(privateKey,id,hid);
-        CurveElement de = this.mCurve.getCurveP2().duplicate().mul(t2);
+        CurveElement de = this.mCurve.mulP2(t2);
         return new SM9PrivateKey(de,hid);
     }
 
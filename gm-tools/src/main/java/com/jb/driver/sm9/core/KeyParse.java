@@ -11,12 +11,11 @@ import org.bouncycastle.util.encoders.Hex;
  * 密钥转换
  */
 public class KeyParse {
-    private SM9Curve mCurve;
-    private KeyGenerateCenter keyGenerateCenter;
+    private final SM9Curve mCurve;
+    private final KeyGenerateCenter keyGenerateCenter;
 
     public KeyParse() {
-        this.mCurve = new SM9Curve();
-        this.keyGenerateCenter = new KeyGenerateCenter(mCurve);
+        this(SM9Curve.getInstance());
     }
 
     public KeyParse(SM9Curve mCurve) {
@@ -58,8 +57,7 @@ public class KeyParse {
      */
     public static String generatePrivateKey(String masterPrivateKey,String id,
             SM9PrivateKey.PrivateKeyType privateKeyType)  {
-        SM9Curve curve = new SM9Curve();
-        KeyGenerateCenter keyGenerateCenter = new KeyGenerateCenter(curve);
+        KeyGenerateCenter keyGenerateCenter = new KeyGenerateCenter(SM9Curve.getInstance());
 
         return Hex.toHexString(
                 keyGenerateCenter.genPrivateKey(
@@ -1,33 +1,43 @@
 package com.jb.driver.sm9.core;
 
 import com.jb.driver.sm9.SM9Hex;
+import com.jb.driver.sm9.field.SM9Fq12Element;
+import com.jb.driver.sm9.field.SM9Fq12Field;
+import com.jb.driver.sm9.field.SM9FpField;
 import com.jb.driver.sm9.method.SM9Method;
 import it.unisa.dia.gas.jpbc.*;
 import it.unisa.dia.gas.plaf.jpbc.field.curve.CurveElement;
+import it.unisa.dia.gas.plaf.jpbc.field.curve.CurveElementCombPreProcessing;
 import it.unisa.dia.gas.plaf.jpbc.field.curve.CurveField;
 import it.unisa.dia.gas.plaf.jpbc.field.gt.GTFiniteElement;
 import it.unisa.dia.gas.plaf.jpbc.field.gt.GTFiniteField;
-import it.unisa.dia.gas.plaf.jpbc.field.poly.PolyModField;
 import it.unisa.dia.gas.plaf.jpbc.pairing.f.TypeFPairing;
+import it.unisa.dia.gas.plaf.jpbc.pairing.map.AbstractMillerPairingMap.JacobPoint;
 import it.unisa.dia.gas.plaf.jpbc.pairing.map.AbstractPairingMap;
 import it.unisa.dia.gas.plaf.jpbc.pairing.parameters.PropertiesParameters;
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * @author zhaojb
  * SM9椭圆曲线
  */
 public class SM9Curve {
-    private SecureRandom random;
-    private BigInteger bigIntegerN;
-    private CurveField curveFieldG1;
-    private CurveField curveFieldG2;
-    private GTFiniteField finiteFieldGT;
-    private SM9CurveParameters.SM9Pairing sm9Pairing;
-    private CurveElement curveP1;
-    private CurveElement curveP2;
+    private final SecureRandom random;
+    private final BigInteger bigIntegerN;
+    private final CurveField curveFieldG1;
+    private final CurveField curveFieldG2;
+    private final GTFiniteField finiteFieldGT;
+    private final SM9CurveParameters.SM9Pairing sm9Pairing;
+    private final CurveElement curveP1;
+    private final CurveElement curveP2;
+    private final ElementPowPreProcessing curveP1PowPreProcessing;
+    private final ElementPowPreProcessing curveP2PowPreProcessing;
+    private final PairingPreProcessing curveP2PairingPreProcessing;
     public static final byte HID_SIGN = 1;
     public static final byte HID_KEY_EXCHANGE = 2;
     public static final byte HID_ENCRYPT = 3;
@@ -44,17 +54,81 @@ public class SM9Curve {
         this.curveFieldG1 = (CurveField)this.sm9Pairing.getG1();
         this.curveFieldG2 = (CurveField)this.sm9Pairing.getG2();
         this.finiteFieldGT = (GTFiniteField)this.sm9Pairing.getGT();
-        this.curveP1 = this.curveFieldG1.newElement();
-        this.curveP1.setFromBytes(SM9CurveParameters.P1_BYTES);
-        this.curveP2 = this.curveFieldG2.newElement();
-        this.curveP2.setFromBytes(SM9CurveParameters.P2_BYTES);
+        // P1,P2为jPBC不可变元素,set系列方法抛出IllegalStateException,twice/add/mul等运算返回新元素而不修改自身
+        // 调用方无法改写共享曲线上的生成元,但依赖就地运算结果的代码不会报错,只会得到未改变的P1,P2
+        CurveElement p1 = this.curveFieldG1.newElement();
+        p1.setFromBytes(SM9CurveParameters.P1_BYTES);
+        this.curveP1 = (CurveElement)p1.getImmutable();
+        CurveElement p2 = this.curveFieldG2.newElement();
+        p2.setFromBytes(SM9CurveParameters.P2_BYTES);
+        this.curveP2 = (CurveElement)p2.getImmutable();
+        // P1,P2固定基梳状表, [k]P1,[k]P2无需逐位倍点求逆
+        this.curveP1PowPreProcessing = new CurveElementCombPreProcessing(this.curveP1);
+        this.curveP2PowPreProcessing = new CurveElementCombPreProcessing(this.curveP2);
+        // P2的线函数系数, e(p1,P2)只需代入p1
+        this.curveP2PairingPreProcessing = this.sm9Pairing.getPairingPreProcessingFromElement(this.curveP2);
+    }
+
+    /**
+     * 共享SM9曲线
+     * 首次使用时构建,构建完成后只读,可在多线程间复用,避免每次调用重建配对域
+     */
+    public static SM9Curve getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private static class Holder {
+        private static final SM9Curve INSTANCE = new SM9Curve();
+    }
 
+    /**
+     * [k]P1
+     */
+    public CurveElement mulP1(BigInteger k) {
+        return (CurveElement)this.curveP1PowPreProcessing.pow(k);
+    }
+
+    /**
+     * [k]P2
+     */
+    public CurveElement mulP2(BigInteger k) {
+        return (CurveElement)this.curveP2PowPreProcessing.pow(k);
     }
 
     public Element pairing(CurveElement p1,CurveElement p2) {
         return this.sm9Pairing.pairing(p1,p2);
     }
 
+    /**
+     * 配对乘积 e(p1[0],p2[0])*...*e(p1[n-1],p2[n-1]), 只做一次最终幂
+     */
+    public Element pairing(CurveElement[] p1,CurveElement[] p2) {
+        return this.sm9Pairing.pairing(p1,p2);
+    }
+
+    /**
+     * 固定G2上的p2, 预先计算Miller循环的线函数系数, 之后 e(p1,p2) 只需代入p1
+     * 适用于解密私钥dB等反复参与配对的G2点, 预处理结果只读, 可在多线程间复用
+     */
+    public PairingPreProcessing pairingPreProcessing(CurveElement p2) {
+        return this.sm9Pairing.getPairingPreProcessingFromElement(p2);
+    }
+
+    /**
+     * 由 {@link PairingPreProcessing#toBytes()} 的结果还原预处理, 不再重新计算线函数系数
+     * 不校验系数与G2点是否一致, 数据须来自可信的存储
+     */
+    public PairingPreProcessing pairingPreProcessingFromBytes(byte[] source) {
+        return this.sm9Pairing.getPairingPreProcessingFromBytes(source);
+    }
+
+    /**
+     * e(p1,P2), 使用P2的预计算线函数系数
+     */
+    public Element pairingP2(CurveElement p1) {
+        return this.curveP2PairingPreProcessing.pairing(p1);
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -194,6 +268,8 @@ public class SM9Curve {
          */
         public static class SM9Pairing extends TypeFPairing {
             private BigInteger t;
+            private SM9Fq12Field<Field> fq12;
+            private Element[] twistFrobeniusCoefficients;
 
             public SM9Pairing(PairingParameters curveParams) {
                 super(curveParams);
@@ -214,6 +290,66 @@ public class SM9Curve {
                 this.pairingMap = new SM9RatePairingMap(this);
             }
 
+            /**
+             * 预计算扭曲线Frobenius映射所用常数 u^(-2(q-1)/6), u^(-3(q-1)/6)
+             */
+            @Override
+            protected void initFields() {
+                super.initFields();
+                Element[] gamma = this.fq12.getFrobeniusCoefficients(1);
+                this.twistFrobeniusCoefficients = new Element[]{
+                        gamma[2].duplicate().invert().getImmutable(),
+                        gamma[3].duplicate().invert().getImmutable()};
+            }
+
+            /**
+             * 配对乘积, 含无穷远点的一对视为1, 不像父类那样直接返回单位元
+             */
+            @Override
+            public Element pairing(Element[] in1,Element[] in2) {
+                if (in1.length != in2.length) {
+                    throw new IllegalArgumentException("Array lengths mismatch.");
+                }
+                for (int i = 0;i < in1.length;++i) {
+                    if (!this.G1.equals(in1[i].getField())) {
+                        throw new IllegalArgumentException("pairing 1st input mismatch");
+                    }
+                    if (!this.G2.equals(in2[i].getField())) {
+                        throw new IllegalArgumentException("pairing 2nd input mismatch");
+                    }
+                }
+                return this.pairingMap.pairing(in1,in2);
+            }
+
+            /**
+             * SM9中固定的是G2上的参数(如用户加密私钥dB), 与jPBC固定第一个参数的约定不同
+             * 返回的预处理对象保存该G2点的线函数系数, pairing(in1)输入G1上的点
+             */
+            @Override
+            public PairingPreProcessing getPairingPreProcessingFromElement(Element in2) {
+                if (!this.G2.equals(in2.getField())) {
+                    throw new IllegalArgumentException("pairing 2nd input mismatch");
+                }
+                return this.pairingMap.pairing((Point)in2);
+            }
+
+            /**
+             * 基域Fq与群阶N对应的Zr均使用Montgomery形式的定长素域, 替代基于BigInteger的ZrField
+             */
+            @Override
+            protected Field initFp(BigInteger order,BigInteger nqr) {
+                return new SM9FpField(this.random,order,nqr);
+            }
+
+            /**
+             * GT使用塔式扩域 Fq2 -> Fq6 -> Fq12, 替代通用的PolyModField
+             */
+            @Override
+            protected Field initGT() {
+                this.fq12 = new SM9Fq12Field<>(this.random,this.Fq2,this.q);
+                return new GTFiniteField(this.random,this.r,this.pairingMap,this.fq12);
+            }
+
             public BigInteger getN() {
                 return this.r;
             }
@@ -222,14 +358,22 @@ public class SM9Curve {
                 return this.Fq2;
             }
 
-            public PolyModField getFq12() {
-                return this.Fq12;
+            public SM9Fq12Field<Field> getFq12() {
+                return this.fq12;
             }
 
             public BigInteger getQ() {
                 return this.q;
             }
 
+            public BigInteger getT() {
+                return this.t;
+            }
+
+            public Element[] getTwistFrobeniusCoefficients() {
+                return this.twistFrobeniusCoefficients;
+            }
+
             public Element getNegAlphaInv() {
                 return this.negAlphaInv;
             }
@@ -251,100 +395,389 @@ public class SM9Curve {
                 this.pairingData = pairing;
             }
 
+            /**
+             * Miller循环中T使用Jacobian坐标, 倍点/加点同时给出线函数系数, 全程无求逆
+             */
             public Element pairing(Point pointP,Point pointQ) {
-                BigInteger a =
-                        this.pairingData.t.multiply(BigInteger.valueOf(6L)).add(BigInteger.valueOf(2L));
-                Point t = (Point)pointQ.duplicate();
-                Polynomial f = (Polynomial)this.pairingData.getFq12().newOneElement();
+                SM9Fq12Element f = this.millerLoop(new Point[]{pointP},new Point[]{pointQ});
+                this.finalPow(f);
+                return new GTFiniteElement(this,(GTFiniteField)this.pairingData.getGT(),f);
+            }
+
+            @Override
+            public boolean isProductPairingSupported() {
+                return true;
+            }
+
+            /**
+             * 配对乘积 e(P1,Q1)*...*e(Pn,Qn), 各Miller循环交错执行, 共用f的平方, 只做一次最终幂
+             * 含无穷远点的一对配对值为1, 直接跳过
+             */
+            @Override
+            public Element pairing(Element[] in1,Element[] in2) {
+                int n = 0;
+                Point[] pointsP = new Point[in1.length];
+                Point[] pointsQ = new Point[in1.length];
+                for (int i = 0;i < in1.length;++i) {
+                    if (in1[i].isZero() || in2[i].isZero()) {
+                        continue;
+                    }
+                    pointsP[n] = (Point)in1[i];
+                    pointsQ[n] = (Point)in2[i];
+                    ++n;
+                }
+
+                SM9Fq12Element f = this.millerLoop(Arrays.copyOf(pointsP,n),Arrays.copyOf(pointsQ,n));
+                this.finalPow(f);
+                return new GTFiniteElement(this,(GTFiniteField)this.pairingData.getGT(),f);
+            }
+
+            /**
+             * 固定第二个参数Q, 预先计算并保存各步的线函数系数
+             */
+            @Override
+            public PairingPreProcessing pairing(Point pointQ) {
+                return new SM9RatePairingPreProcessing(this,pointQ);
+            }
+
+            /**
+             * 由字节还原预处理, 格式见 {@link SM9RatePairingPreProcessing#toBytes()}
+             */
+            @Override
+            public PairingPreProcessing pairing(byte[] source,int offset) {
+                return new SM9RatePairingPreProcessing(this,source,offset);
+            }
+
+            /**
+             * 预处理序列化后的字节长度: G2点 + 线函数个数 * 3个Fq2元素
+             */
+            @Override
+            public int getPairingPreProcessingLengthInBytes() {
+                return this.pairingData.getG2().getLengthInBytes()
+                        + this.lineCount() * 3 * this.pairingData.getFq2().getLengthInBytes();
+            }
+
+            /**
+             * 线函数个数: 每位一次倍点, 为1的位(最高位除外)再加点一次, 末尾两次加点
+             */
+            private int lineCount() {
+                BigInteger a = this.loopCount();
+                return a.bitLength() - 1 + a.bitCount() - 1 + 2;
+            }
+
+            /**
+             * Miller循环循环变量 a = 6t+2
+             */
+            private BigInteger loopCount() {
+                return this.pairingData.t.multiply(BigInteger.valueOf(6L)).add(BigInteger.valueOf(2L));
+            }
+
+            /**
+             * 按Miller循环的顺序记录Q的各步线函数系数 {s, a3, c5}, 只与Q有关, 与P无关
+             */
+            private Element[][] lines(Point pointQ) {
+                BigInteger a = this.loopCount();
+                JacobPoint t = new JacobPoint(pointQ.getX().duplicate(),pointQ.getY().duplicate(),
+                        pointQ.getX().getField().newOneElement());
+                List<Element[]> lines = new ArrayList<>();
 
                 for (int i = a.bitLength() - 2;i >= 0;--i) {
-                    f.square();
-                    f.mul(this.line(t,pointP));
-                    t.add(t);
+                    lines.add(this.doubleStep(t));
                     if (a.testBit(i)) {
-                        f.mul(this.line(t,pointQ,pointP));
-                        t.add(pointQ);
+                        lines.add(this.addStep(t,pointQ));
                     }
                 }
 
                 Point pointQ11 = this.fobasmiracl(pointQ);
                 Point pointQ22 = this.fobasmiracl(pointQ11);
-                f.mul(this.line(t,pointQ11,pointP));
-                t.add(pointQ11);
-                f.mul(this.line(t,(Point)pointQ22.negate(),pointP));
-                t.sub(pointQ22);
-                BigInteger q = this.pairingData.getQ();
-                Element e =
-                        f.duplicate().pow(q.pow(12).subtract(BigInteger.ONE).divide(this.pairingData.getN()));
-                return new GTFiniteElement(this,(GTFiniteField)this.pairingData.getGT(),e);
+                lines.add(this.addStep(t,pointQ11));
+                lines.add(this.addStep(t,(Point)pointQ22.negate()));
+                return lines.toArray(new Element[0][]);
             }
 
-            @Override
-            public void finalPow(Element element) {
-                // element
-            }
-
-            public Element line(Point pointA,Point pointB,Point pointC) {
-                Element ax = pointA.getX().duplicate();
-                Element ay = pointA.getY().duplicate();
-                Element bx = pointB.getX().duplicate();
-                Element by = pointB.getY().duplicate();
-                Element cx = pointC.getX().duplicate();
-                Element cy = pointC.getY().duplicate();
-//                Point lamda = (Point)ax.getField().newElement();
-//                lamda = (Point)ay.duplicate().sub(by).div(ax.duplicate().sub(bx));
-                Point lamda = (Point)ay.duplicate().sub(by).div(ax.duplicate().sub(bx));
-                Element cof3 = by.duplicate().sub(lamda.duplicate().mul(bx));
-                Element cof5 = lamda.duplicate().mulZn(cx);
-                Polynomial result = this.pairingData.getFq12().newElement();
+            /**
+             * 使用预计算线函数系数的配对, 省去Q的倍点与加点
+             */
+            private Element pairing(Element[][] lines,Point pointP) {
+                BigInteger a = this.loopCount();
+                SM9Fq12Element f = this.pairingData.getFq12().newOneElement();
+                int k = 0;
+                for (int i = a.bitLength() - 2;i >= 0;--i) {
+                    f.square();
+                    this.mulByFixedLine(f,lines[k++],pointP);
+                    if (a.testBit(i)) {
+                        this.mulByFixedLine(f,lines[k++],pointP);
+                    }
+                }
+                this.mulByFixedLine(f,lines[k++],pointP);
+                this.mulByFixedLine(f,lines[k],pointP);
+
+                this.finalPow(f);
+                return new GTFiniteElement(this,(GTFiniteField)this.pairingData.getGT(),f);
+            }
+
+            /**
+             * 多对点的Miller循环, 循环变量 a = 6t+2, 末尾再加上 pi(Q) 与 -pi^2(Q) 两步
+             */
+            private SM9Fq12Element millerLoop(Point[] pointsP,Point[] pointsQ) {
+                BigInteger a = this.loopCount();
+                int n = pointsP.length;
+                JacobPoint[] t = new JacobPoint[n];
+                for (int j = 0;j < n;++j) {
+                    t[j] = new JacobPoint(pointsQ[j].getX().duplicate(),pointsQ[j].getY().duplicate(),
+                            pointsQ[j].getX().getField().newOneElement());
+                }
+                SM9Fq12Element f = this.pairingData.getFq12().newOneElement();
+
+                for (int i = a.bitLength() - 2;i >= 0;--i) {
+                    f.square();
+                    for (int j = 0;j < n;++j) {
+                        this.mulByLine(f,this.doubleStep(t[j]),pointsP[j]);
+                    }
+                    if (a.testBit(i)) {
+                        for (int j = 0;j < n;++j) {
+                            this.mulByLine(f,this.addStep(t[j],pointsQ[j]),pointsP[j]);
+                        }
+                    }
+                }
+
+                for (int j = 0;j < n;++j) {
+                    Point pointQ11 = this.fobasmiracl(pointsQ[j]);
+                    Point pointQ22 = this.fobasmiracl(pointQ11);
+                    this.mulByLine(f,this.addStep(t[j],pointQ11),pointsP[j]);
+                    this.mulByLine(f,this.addStep(t[j],(Point)pointQ22.negate()),pointsP[j]);
+                }
+                return f;
+            }
+
+            /**
+             * 线函数在P处的值 -yP*s + a3*w^3 + c5*xP*w^5, line = {s, a3, c5}
+             */
+            private void mulByLine(SM9Fq12Element f,Element[] line,Point pointP) {
+                Element l0 = line[0].mulZn(pointP.getY()).negate();
+                Element l5 = line[2].mulZn(pointP.getX());
+                f.mulByLine(l0,line[1],l5);
+            }
+
+            /**
+             * 预计算的线函数系数为多线程共享的只读数据, 先复制再代入P
+             */
+            private void mulByFixedLine(SM9Fq12Element f,Element[] line,Point pointP) {
+                Element l0 = line[0].duplicate().mulZn(pointP.getY()).negate();
+                Element l5 = line[2].duplicate().mulZn(pointP.getX());
+                f.mulByLine(l0,line[1],l5);
+            }
+
+            /**
+             * T = 2T (Jacobian坐标, a=0), 切线乘以 2YZ^3 后的系数:
+             * s = 2YZ^3, a3 = (2Y^2 - 3X^3)/u, c5 = 3X^2Z^2/u
+             * Fq2中的因子在最终幂中消去, 不影响配对结果
+             */
+            private Element[] doubleStep(JacobPoint t) {
+                Element x = t.getX();
+                Element y = t.getY();
+                Element z = t.getZ();
+                Element zz = z.duplicate().square();
+                Element a = x.duplicate().square();
+                Element b = y.duplicate().square();
+                Element c = b.duplicate().square();
+                Element d = x.duplicate().add(b).square().sub(a).sub(c).twice();
+                Element e = a.mul(3);
+                Element x3 = e.duplicate().square().sub(d.duplicate().twice());
+                Element y3 = d.sub(x3).mul(e).sub(c.mul(8));
+                Element z3 = y.duplicate().mul(z).twice();
+
                 Element betaInvert = this.pairingData.getNegAlphaInv();
-                Point tempfp2 = (Point)ax.getField().newElement();
-                tempfp2.getX().set(cy.negate());
-                tempfp2.getY().setToZero();
-                result.getCoefficient(0).set(tempfp2);
-                result.getCoefficient(3).set(cof3.mul(betaInvert));
-                result.getCoefficient(5).set(cof5.mul(betaInvert));
-                return result;
+                Element s = z3.duplicate().mul(zz);
+                Element a3 = b.twice().sub(e.duplicate().mul(x)).mul(betaInvert);
+                Element c5 = e.mul(zz).mul(betaInvert);
+
+                t.setX(x3);
+                t.setY(y3);
+                t.setZ(z3);
+                return new Element[]{s,a3,c5};
             }
 
-            public Element line(Point pointA,Point pointC) {
-                Element ax = pointA.getX().duplicate();
-                Element ay = pointA.getY().duplicate();
-                Element cx = pointC.getX().duplicate();
-                Element cy = pointC.getY().duplicate();
-//                Element lamda = ax.getField().newElement();
-//                lamda = ax.duplicate().square().mul(3).div(ay.duplicate().mul(2));
-                Element lamda = ax.duplicate().square().mul(3).div(ay.duplicate().mul(2));
-                Element cof3 = ay.duplicate().sub(lamda.duplicate().mul(ax));
-                Element cof5 = lamda.duplicate().mulZn(cx);
-                Polynomial result = this.pairingData.getFq12().newElement();
+            /**
+             * T = T + Q (Q为仿射坐标), H = xQ*Z^2 - X, R = yQ*Z^3 - Y,
+             * 割线乘以 Z3 = ZH 后的系数: s = Z3, a3 = (yQ*Z3 - R*xQ)/u, c5 = R/u
+             */
+            private Element[] addStep(JacobPoint t,Point pointQ) {
+                Element x = t.getX();
+                Element y = t.getY();
+                Element z = t.getZ();
+                Element zz = z.duplicate().square();
+                Element h = pointQ.getX().duplicate().mul(zz).sub(x);
+                Element r = pointQ.getY().duplicate().mul(zz).mul(z).sub(y);
+                Element hh = h.duplicate().square();
+                Element hhh = hh.duplicate().mul(h);
+                Element v = x.duplicate().mul(hh);
+                Element x3 = r.duplicate().square().sub(hhh).sub(v.duplicate().twice());
+                Element y3 = v.sub(x3).mul(r).sub(y.duplicate().mul(hhh));
+                Element z3 = z.duplicate().mul(h);
+
                 Element betaInvert = this.pairingData.getNegAlphaInv();
-                Point tempfp2 = (Point)ax.getField().newElement();
-                tempfp2.getX().set(cy.negate());
-                tempfp2.getY().setToZero();
-                result.getCoefficient(0).set(tempfp2);
-                result.getCoefficient(3).set(cof3.mul(betaInvert));
-                result.getCoefficient(5).set(cof5.mul(betaInvert));
-                return result;
+                Element s = z3.duplicate();
+                Element a3 = pointQ.getY().duplicate().mul(z3).sub(r.duplicate().mul(pointQ.getX())).mul(betaInvert);
+                Element c5 = r.mul(betaInvert);
+
+                t.setX(x3);
+                t.setY(y3);
+                t.setZ(z3);
+                return new Element[]{s,a3,c5};
+            }
+
+            /**
+             * 最终幂 f^((q^12-1)/N) = f^((q^6-1)(q^2+1)) ^ ((q^4-q^2+1)/N)
+             */
+            @Override
+            public void finalPow(Element element) {
+                SM9Fq12Element f = (SM9Fq12Element)element;
+
+                // 简单部分: f^(q^6-1) = conj(f)/f, 再乘方 q^2+1
+                SM9Fq12Element f1 = f.duplicate().conjugate();
+                f1.mul(f.duplicate().invert());
+                f1.mul(f1.duplicate().frobenius(2));
+
+                element.set(this.hardPart(f1));
+            }
+
+            /**
+             * 困难部分 (q^4-q^2+1)/N = l0 + l1*q + l2*q^2 + l3*q^3, 其中
+             * l3 = 1, l2 = 6t^2+1, l1 = -36t^3-18t^2-12t+1, l0 = -36t^3-30t^2-18t-2
+             * 按Scott等人的向量加法链计算, 输入已在分圆子群中, 逆元即共轭
+             */
+            private SM9Fq12Element hardPart(SM9Fq12Element f) {
+                BigInteger t = this.pairingData.getT();
+                SM9Fq12Element fT = (SM9Fq12Element)f.duplicate().pow(t);
+                SM9Fq12Element fT2 = (SM9Fq12Element)fT.duplicate().pow(t);
+                SM9Fq12Element fT3 = (SM9Fq12Element)fT2.duplicate().pow(t);
+
+                // y0 = f^q * f^(q^2) * f^(q^3)
+                SM9Fq12Element y0 = f.duplicate().frobenius(1);
+                y0.mul(f.duplicate().frobenius(2));
+                y0.mul(f.duplicate().frobenius(3));
+                // y1 = f^-1
+                SM9Fq12Element y1 = f.duplicate().conjugate();
+                // y2 = f^(t^2*q^2)
+                SM9Fq12Element y2 = fT2.duplicate().frobenius(2);
+                // y3 = f^(-t*q)
+                SM9Fq12Element y3 = fT.duplicate().frobenius(1).conjugate();
+                // y4 = f^(-t-t^2*q)
+                SM9Fq12Element y4 = fT2.duplicate().frobenius(1);
+                y4.mul(fT).conjugate();
+                // y5 = f^(-t^2)
+                SM9Fq12Element y5 = fT2.duplicate().conjugate();
+                // y6 = f^(-t^3-t^3*q)
+                SM9Fq12Element y6 = fT3.duplicate().frobenius(1);
+                y6.mul(fT3).conjugate();
+
+                // y0 * y1^2 * y2^6 * y3^12 * y4^18 * y5^30 * y6^36
+                SM9Fq12Element t0 = y6.square();
+                t0.mul(y4);
+                t0.mul(y5);
+                SM9Fq12Element t1 = y3.mul(y5);
+                t1.mul(t0);
+                t0.mul(y2);
+                t1.square();
+                t1.mul(t0);
+                t1.square();
+                t0 = t1.duplicate().mul(y1);
+                t1.mul(y0);
+                t0.square();
+                t0.mul(t1);
+                return t0;
             }
 
+            /**
+             * 扭曲线上的Frobenius映射 (x,y) -> (conj(x)*u^(-(q-1)/3), conj(y)*u^(-(q-1)/2))
+             */
             public Point fobasmiracl(Point point) {
-                Point px = (Point)point.getX().duplicate();
-                Point py = (Point)point.getY().duplicate();
-                BigInteger q = this.pairingData.getQ();
-                Point x = (Point)this.pairingData.getFq2().newElement();
-                x.getX().setToZero();
-                x.getY().setToOne();
-                x.pow(q.subtract(BigInteger.ONE).divide(BigInteger.valueOf(6L)));
-                Point r = (Point)x.duplicate().invert();
-                Point w = (Point)r.duplicate().square();
+                Element[] w = this.pairingData.getTwistFrobeniusCoefficients();
+                Point result = (Point)point.duplicate();
+                Point px = (Point)result.getX();
+                Point py = (Point)result.getY();
                 px.getY().negate();
-                px.mul(w);
+                px.mul(w[0]);
                 py.getY().negate();
-                py.mul(w).mul(r);
-                Point result = (Point)point.getField().newRandomElement();
-                result.getX().set(px);
-                result.getY().set(py);
+                py.mul(w[1]);
+                return result;
+            }
+        }
+
+        /**
+         * 固定G2点Q的配对预处理, 保存Q在Miller循环中的全部线函数系数
+         * 可序列化后持久保存, 还原时无需重新计算, 只读, 可在多线程间复用
+         */
+        public static class SM9RatePairingPreProcessing implements PairingPreProcessing {
+            private final SM9RatePairingMap pairingMap;
+            private final Point pointQ;
+            private final Element[][] lines;
+
+            public SM9RatePairingPreProcessing(SM9RatePairingMap pairingMap,Point pointQ) {
+                this.pairingMap = pairingMap;
+                this.pointQ = (Point)pointQ.getImmutable();
+                this.lines = pointQ.isZero()?null:pairingMap.lines(pointQ);
+            }
+
+            public SM9RatePairingPreProcessing(SM9RatePairingMap pairingMap,byte[] source,int offset) {
+                if (source.length - offset < pairingMap.getPairingPreProcessingLengthInBytes()) {
+                    throw new IllegalArgumentException("pairing preprocessing bytes too short");
+                }
+                this.pairingMap = pairingMap;
+                Point q = (Point)pairingMap.pairingData.getG2().newElement();
+                offset += q.setFromBytes(source,offset);
+                this.pointQ = (Point)q.getImmutable();
+                if (q.isZero()) {
+                    this.lines = null;
+                    return;
+                }
+
+                Field fq2 = pairingMap.pairingData.getFq2();
+                this.lines = new Element[pairingMap.lineCount()][];
+                for (int i = 0;i < this.lines.length;++i) {
+                    Element[] line = new Element[3];
+                    for (int j = 0;j < 3;++j) {
+                        line[j] = fq2.newElement();
+                        offset += line[j].setFromBytes(source,offset);
+                    }
+                    this.lines[i] = line;
+                }
+            }
+
+            /**
+             * e(in1,Q), 含无穷远点时配对值为1
+             */
+            @Override
+            public Element pairing(Element in1) {
+                Field gt = this.pairingMap.pairingData.getGT();
+                if (!this.pairingMap.pairingData.getG1().equals(in1.getField())) {
+                    throw new IllegalArgumentException("pairing 1st input mismatch");
+                }
+                if (this.lines == null || in1.isZero()) {
+                    return gt.newElement().setToZero();
+                }
+                return this.pairingMap.pairing(this.lines,(Point)in1);
+            }
+
+            /**
+             * Q || 各线函数 s||a3||c5, 定长, Q为无穷远点时系数部分全0
+             */
+            @Override
+            public byte[] toBytes() {
+                byte[] result = new byte[this.pairingMap.getPairingPreProcessingLengthInBytes()];
+                byte[] q = this.pointQ.toBytes();
+                System.arraycopy(q,0,result,0,q.length);
+                if (this.lines != null) {
+                    int offset = q.length;
+                    for (Element[] line : this.lines) {
+                        for (Element e : line) {
+                            byte[] bytes = e.toBytes();
+                            System.arraycopy(bytes,0,result,offset,bytes.length);
+                            offset += bytes.length;
+                        }
+                    }
+                }
                 return result;
             }
         }
@@ -354,63 +787,32 @@ public class SM9Curve {
         return random;
     }
 
-    public void setRandom(SecureRandom random) {
-        this.random = random;
-    }
-
     public BigInteger getBigIntegerN() {
         return bigIntegerN;
     }
 
-    public void setBigIntegerN(BigInteger bigIntegerN) {
-        this.bigIntegerN = bigIntegerN;
-    }
-
     public CurveField getCurveFieldG1() {
         return curveFieldG1;
     }
 
-    public void setCurveFieldG1(CurveField curveFieldG1) {
-        this.curveFieldG1 = curveFieldG1;
-    }
-
     public CurveField getCurveFieldG2() {
         return curveFieldG2;
     }
 
-    public void setCurveFieldG2(CurveField curveFieldG2) {
-        this.curveFieldG2 = curveFieldG2;
-    }
-
     public GTFiniteField getFiniteFieldGT() {
         return finiteFieldGT;
     }
 
-    public void setFiniteFieldGT(GTFiniteField finiteFieldGT) {
-        this.finiteFieldGT = finiteFieldGT;
-    }
-
     public SM9CurveParameters.SM9Pairing getSm9Pairing() {
         return sm9Pairing;
     }
 
-    public void setSm9Pairing(SM9CurveParameters.SM9Pairing sm9Pairing) {
-        this.sm9Pairing = sm9Pairing;
-    }
-
     public CurveElement getCurveP1() {
         return curveP1;
     }
 
-    public void setCurveP1(CurveElement curveP1) {
-        this.curveP1 = curveP1;
-    }
-
     public CurveElement getCurveP2() {
         return curveP2;
     }
 
-    public void setCurveP2(CurveElement curveP2) {
-        this.curveP2 = curveP2;
-    }
 }
@@ -0,0 +1,151 @@
+package com.jb.driver.sm9.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * @author zhaojb
+ * 按 (ID, hid) 缓存由身份派生的点, 属于某一主公钥, 线程安全
+ * 容量与淘汰策略可在运行时调整, 记录命中/未命中/淘汰次数
+ */
+public class SM9IdPointCache<V> {
+    /**
+     * 淘汰策略
+     */
+    public enum EvictionPolicy {
+        /**
+         * 淘汰最久未使用的项
+         */
+        LRU,
+        /**
+         * 淘汰最早加入的项
+         */
+        FIFO
+    }
+
+    private int maxSize;
+    private EvictionPolicy policy;
+    private Map<Key,V> cache;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public SM9IdPointCache(int maxSize,EvictionPolicy policy) {
+        this.maxSize = maxSize;
+        this.policy = policy;
+        this.cache = this.newMap();
+    }
+
+    /**
+     * 构建不在锁内进行, 并发时可能重复构建, 结果相同
+     */
+    public V get(String id,byte hid,Supplier<V> loader) {
+        Key key = new Key(id,hid);
+        V value;
+        synchronized (this) {
+            value = this.cache.get(key);
+            if (value != null) {
+                ++this.hitCount;
+                return value;
+            }
+            ++this.missCount;
+        }
+        value = loader.get();
+        synchronized (this) {
+            this.cache.put(key,value);
+        }
+        return value;
+    }
+
+    /**
+     * 调整容量与淘汰策略, 保留现有的项, 超出新容量的部分按新策略淘汰
+     */
+    public synchronized void configure(int maxSize,EvictionPolicy policy) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        Map<Key,V> old = this.cache;
+        this.maxSize = maxSize;
+        this.policy = policy;
+        this.cache = this.newMap();
+        this.cache.putAll(old);
+    }
+
+    public synchronized int size() {
+        return this.cache.size();
+    }
+
+    public synchronized int getMaxSize() {
+        return this.maxSize;
+    }
+
+    public synchronized EvictionPolicy getEvictionPolicy() {
+        return this.policy;
+    }
+
+    public synchronized long getHitCount() {
+        return this.hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return this.missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    /**
+     * 命中率, 尚无访问时为0
+     */
+    public synchronized double getHitRate() {
+        long total = this.hitCount + this.missCount;
+        return total == 0 ? 0 : (double)this.hitCount / total;
+    }
+
+    public synchronized void clear() {
+        this.cache.clear();
+    }
+
+    private Map<Key,V> newMap() {
+        return new LinkedHashMap<Key,V>(64,0.75f,this.policy == EvictionPolicy.LRU) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key,V> eldest) {
+                if (this.size() > SM9IdPointCache.this.maxSize) {
+                    ++SM9IdPointCache.this.evictionCount;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private static final class Key {
+        private final String id;
+        private final byte hid;
+
+        private Key(String id,byte hid) {
+            this.id = id;
+            this.hid = hid;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)o;
+            return this.hid == other.hid && this.id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.id,this.hid);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.jb.driver.sm9.core;
+
+import com.jb.driver.sm9.key.SM9MasterKeyPair;
+import com.jb.driver.sm9.method.SM9Method;
+import it.unisa.dia.gas.jpbc.Element;
+import it.unisa.dia.gas.jpbc.ElementPowPreProcessing;
+import it.unisa.dia.gas.jpbc.PairingPreProcessing;
+import it.unisa.dia.gas.plaf.jpbc.field.curve.CurveElement;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author zhaojb
+ * 主公钥预计算
+ * 签名主公钥 g = e(P1, Ppub-s), 加密/交换主公钥 g = e(Ppub-e, P2)
+ * g只与主公钥有关, 预先构建g的固定基幂表, g^r只需查表相乘, 无需配对
+ * 签名主公钥另外缓存各id的 P = [H1(ID||hid,N)]P2 + Ppub-s, 供验签使用, 可选缓存P的配对预处理
+ * 加密/交换主公钥另外缓存各 (id, hid) 的 QB = [H1(ID||hid,N)]P1 + Ppub-e, 供加密与密钥交换使用
+ */
+public class SM9MasterPublicKeyPrecompute {
+    /**
+     * 默认缓存的主公钥个数上限, 可用 {@link #configureCache(int)} 调整
+     * g的幂表按jPBC默认窗口(k=5)有52*32个Fq12元素, 每个元素是12个Fp元素组成的对象树
+     * 实测每个主公钥约占用1.9MB堆内存, 16个约31MB, 不含按id缓存的点
+     */
+    public static final int MAX_CACHE_SIZE = 16;
+
+    /**
+     * 每个主公钥默认缓存的id个数上限
+     */
+    public static final int MAX_ID_CACHE_SIZE = 1024;
+
+    private static volatile int cacheSize = MAX_CACHE_SIZE;
+    private static volatile int idCacheSize = MAX_ID_CACHE_SIZE;
+    private static volatile SM9IdPointCache.EvictionPolicy idCachePolicy = SM9IdPointCache.EvictionPolicy.LRU;
+    private static volatile boolean recipientTableEnabled;
+    private static volatile boolean verifyPairingPreProcessingEnabled;
+
+    private static final Map<String,SM9MasterPublicKeyPrecompute> CACHE =
+            new LinkedHashMap<String,SM9MasterPublicKeyPrecompute>(MAX_CACHE_SIZE,0.75f,true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String,SM9MasterPublicKeyPrecompute> eldest) {
+                    return this.size() > cacheSize;
+                }
+            };
+
+    private final SM9Curve sm9Curve;
+    private final SM9MasterKeyPair.MasterPublicKey masterPublicKey;
+    private final Element g;
+    private final ElementPowPreProcessing gPowPreProcessing;
+    private final SM9IdPointCache<CurveElement> verifyPointCache =
+            new SM9IdPointCache<>(idCacheSize,idCachePolicy);
+    private final SM9IdPointCache<SM9RecipientPoint> recipientPointCache =
+            new SM9IdPointCache<>(idCacheSize,idCachePolicy);
+    private final SM9IdPointCache<PairingPreProcessing> verifyPairingCache =
+            new SM9IdPointCache<>(idCacheSize,idCachePolicy);
+
+    public SM9MasterPublicKeyPrecompute(SM9Curve sm9Curve,SM9MasterKeyPair.MasterPublicKey masterPublicKey) {
+        this.sm9Curve = sm9Curve;
+        this.masterPublicKey = masterPublicKey;
+        Element pairing;
+        if (masterPublicKey.isSignKey()) {
+            pairing = sm9Curve.pairing(sm9Curve.getCurveP1(),masterPublicKey.Q);
+        } else {
+            pairing = sm9Curve.pairingP2(masterPublicKey.Q);
+        }
+        this.g = pairing.getImmutable();
+        this.gPowPreProcessing = this.g.getElementPowPreProcessing();
+    }
+
+    /**
+     * 获取主公钥的预计算结果, 按序列化后的主公钥缓存, 超出上限时淘汰最久未使用的主公钥
+     */
+    public static SM9MasterPublicKeyPrecompute getInstance(SM9Curve sm9Curve,
+            SM9MasterKeyPair.MasterPublicKey masterPublicKey) {
+        String key = Hex.toHexString(masterPublicKey.toByteArray());
+        SM9MasterPublicKeyPrecompute precompute;
+        synchronized (CACHE) {
+            precompute = CACHE.get(key);
+        }
+        if (precompute == null) {
+            // 构建幂表较慢, 不在锁内进行, 并发时可能重复构建, 结果相同
+            precompute = new SM9MasterPublicKeyPrecompute(sm9Curve,masterPublicKey);
+            synchronized (CACHE) {
+                CACHE.put(key,precompute);
+            }
+        }
+        return precompute;
+    }
+
+    /**
+     * g, 只读
+     */
+    public Element getG() {
+        return this.g;
+    }
+
+    /**
+     * g^n
+     */
+    public Element pow(BigInteger n) {
+        return this.gPowPreProcessing.pow(n);
+    }
+
+    /**
+     * 设置缓存的主公钥个数上限, 超出的部分立即按最久未使用淘汰
+     */
+    public static void configureCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        synchronized (CACHE) {
+            cacheSize = maxSize;
+            Iterator<SM9MasterPublicKeyPrecompute> iterator = CACHE.values().iterator();
+            while (CACHE.size() > maxSize) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 设置各主公钥按id缓存的容量与淘汰策略, 对已缓存与之后创建的主公钥均生效
+     */
+    public static void configureIdCache(int maxSize,SM9IdPointCache.EvictionPolicy policy) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        idCacheSize = maxSize;
+        idCachePolicy = policy;
+        synchronized (CACHE) {
+            for (SM9MasterPublicKeyPrecompute precompute : CACHE.values()) {
+                precompute.verifyPointCache.configure(maxSize,policy);
+                precompute.recipientPointCache.configure(maxSize,policy);
+                precompute.verifyPairingCache.configure(maxSize,policy);
+            }
+        }
+    }
+
+    /**
+     * 是否为新缓存的接收方公钥点构建固定基梳状表, 默认关闭
+     * 每个表约几十KB, 构建约6ms, 同一接收方加密多次时开启
+     */
+    public static void setRecipientTableEnabled(boolean enabled) {
+        recipientTableEnabled = enabled;
+    }
+
+    /**
+     * 是否为验签点 P 缓存配对预处理(线函数系数), 默认关闭
+     * 每个id约十几KB, 同一签名者反复验签时开启, 之后 e(S,P) 省去P的倍点与加点
+     */
+    public static void setVerifyPairingPreProcessingEnabled(boolean enabled) {
+        verifyPairingPreProcessingEnabled = enabled;
+    }
+
+    /**
+     * 验签用 u = e(S,P), P = [H1(ID||hid,N)]P2 + Ppub-s
+     * 开启验签配对预处理时按id缓存P的线函数系数
+     */
+    public Element verifyPairing(String id,CurveElement s) {
+        if (!verifyPairingPreProcessingEnabled) {
+            return this.sm9Curve.pairing(s,this.getVerifyPoint(id));
+        }
+        PairingPreProcessing p = this.verifyPairingCache.get(id,SM9Curve.HID_SIGN,
+                () -> this.sm9Curve.pairingPreProcessing(this.getVerifyPoint(id)));
+        return p.pairing(s);
+    }
+
+    /**
+     * 验签用 P = [H1(ID||hid,N)]P2 + Ppub-s, 只读, 按id缓存
+     */
+    public CurveElement getVerifyPoint(String id) {
+        if (!this.masterPublicKey.isSignKey()) {
+            throw new IllegalStateException("Not a sign master public key");
+        }
+        return this.verifyPointCache.get(id,SM9Curve.HID_SIGN,() -> {
+            BigInteger h1 = SM9Method.bigIntegerH1(id,SM9Curve.HID_SIGN,this.sm9Curve.getBigIntegerN());
+            return (CurveElement)this.sm9Curve.mulP2(h1).add(this.masterPublicKey.Q).getImmutable();
+        });
+    }
+
+    /**
+     * 加密与密钥交换用 QB = [H1(ID||hid,N)]P1 + Ppub-e, 按 (id, hid) 缓存
+     */
+    public SM9RecipientPoint getRecipientPoint(String id,byte hid) {
+        if (this.masterPublicKey.isSignKey()) {
+            throw new IllegalStateException("Not an encrypt master public key");
+        }
+        return this.recipientPointCache.get(id,hid,() -> {
+            BigInteger h1 = SM9Method.bigIntegerH1(id,hid,this.sm9Curve.getBigIntegerN());
+            return new SM9RecipientPoint(this.sm9Curve.mulP1(h1).add(this.masterPublicKey.Q),recipientTableEnabled);
+        });
+    }
+
+    /**
+     * 验签点缓存, 可读取命中率等指标
+     */
+    public SM9IdPointCache<CurveElement> getVerifyPointCache() {
+        return this.verifyPointCache;
+    }
+
+    /**
+     * 验签配对预处理缓存, 可读取命中率等指标
+     */
+    public SM9IdPointCache<PairingPreProcessing> getVerifyPairingCache() {
+        return this.verifyPairingCache;
+    }
+
+    /**
+     * 接收方公钥点缓存, 可读取命中率等指标
+     */
+    public SM9IdPointCache<SM9RecipientPoint> getRecipientPointCache() {
+        return this.recipientPointCache;
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.jb.driver.sm9.core;
+
+import it.unisa.dia.gas.jpbc.ElementPowPreProcessing;
+import it.unisa.dia.gas.plaf.jpbc.field.curve.CurveElement;
+import it.unisa.dia.gas.plaf.jpbc.field.curve.CurveElementCombPreProcessing;
+
+import java.math.BigInteger;
+
+/**
+ * @author zhaojb
+ * 接收方公钥点 QB = [H1(IDB||hid,N)]P1 + Ppub-e, 只读
+ * 可选附带QB的固定基梳状表, [r]QB 查表计算
+ */
+public class SM9RecipientPoint {
+    /**
+     * 梳状表窗口, 63个仿射点, 构建约相当于几次普通点乘
+     */
+    public static final int TABLE_WINDOW = 6;
+
+    private final CurveElement point;
+    private final ElementPowPreProcessing table;
+
+    public SM9RecipientPoint(CurveElement point,boolean withTable) {
+        this.point = (CurveElement)point.getImmutable();
+        this.table = withTable ? new CurveElementCombPreProcessing(this.point,TABLE_WINDOW) : null;
+    }
+
+    /**
+     * QB, 只读
+     */
+    public CurveElement getPoint() {
+        return this.point;
+    }
+
+    public boolean hasTable() {
+        return this.table != null;
+    }
+
+    /**
+     * [r]QB, 返回新元素
+     */
+    public CurveElement mul(BigInteger r) {
+        if (this.table != null) {
+            return (CurveElement)this.table.pow(r);
+        }
+        return this.point.duplicate().mul(r);
+    }
+}
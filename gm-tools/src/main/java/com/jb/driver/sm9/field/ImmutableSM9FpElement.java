@@ -0,0 +1,143 @@
+package com.jb.driver.sm9.field;
+
+import it.unisa.dia.gas.jpbc.Element;
+
+import java.math.BigInteger;
+
+/**
+ * @author zhaojb
+ * SM9素域只读元素
+ */
+public class ImmutableSM9FpElement extends SM9FpElement {
+
+    public ImmutableSM9FpElement(SM9FpElement element) {
+        super(element);
+        this.immutable = true;
+    }
+
+    @Override
+    public Element getImmutable() {
+        return this;
+    }
+
+    @Override
+    public SM9FpElement set(Element value) {
+        throw new IllegalStateException("Invalid call on an immutable element");
+    }
+
+    @Override
+    public SM9FpElement set(int value) {
+        throw new IllegalStateException("Invalid call on an immutable element");
+    }
+
+    @Override
+    public SM9FpElement set(BigInteger value) {
+        throw new IllegalStateException("Invalid call on an immutable element");
+    }
+
+    @Override
+    public SM9FpElement setToZero() {
+        throw new IllegalStateException("Invalid call on an immutable element");
+    }
+
+    @Override
+    public SM9FpElement setToOne() {
+        throw new IllegalStateException("Invalid call on an immutable element");
+    }
+
+    @Override
+    public SM9FpElement setToRandom() {
+        throw new IllegalStateException("Invalid call on an immutable element");
+    }
+
+    @Override
+    public SM9FpElement setFromHash(byte[] source,int offset,int length) {
+        throw new IllegalStateException("Invalid call on an immutable element");
+    }
+
+    @Override
+    public int setFromBytes(byte[] source) {
+        throw new IllegalStateException("Invalid call on an immutable element");
+    }
+
+    @Override
+    public int setFromBytes(byte[] source,int offset) {
+        throw new IllegalStateException("Invalid call on an immutable element");
+    }
+
+    @Override
+    public SM9FpElement twice() {
+        return (SM9FpElement)super.duplicate().twice().getImmutable();
+    }
+
+    @Override
+    public SM9FpElement square() {
+        return (SM9FpElement)super.duplicate().square().getImmutable();
+    }
+
+    @Override
+    public SM9FpElement invert() {
+        return (SM9FpElement)super.duplicate().invert().getImmutable();
+    }
+
+    @Override
+    public SM9FpElement halve() {
+        return (SM9FpElement)super.duplicate().halve().getImmutable();
+    }
+
+    @Override
+    public SM9FpElement negate() {
+        return (SM9FpElement)super.duplicate().negate().getImmutable();
+    }
+
+    @Override
+    public SM9FpElement add(Element element) {
+        return (SM9FpElement)super.duplicate().add(element).getImmutable();
+    }
+
+    @Override
+    public SM9FpElement sub(Element element) {
+        return (SM9FpElement)super.duplicate().sub(element).getImmutable();
+    }
+
+    @Override
+    public SM9FpElement mul(Element element) {
+        return (SM9FpElement)super.duplicate().mul(element).getImmutable();
+    }
+
+    @Override
+    public SM9FpElement div(Element element) {
+        return (SM9FpElement)super.duplicate().div(element).getImmutable();
+    }
+
+    @Override
+    public SM9FpElement mul(int z) {
+        return (SM9FpElement)super.duplicate().mul(z).getImmutable();
+    }
+
+    @Override
+    public SM9FpElement mul(BigInteger n) {
+        return (SM9FpElement)super.duplicate().mul(n).getImmutable();
+    }
+
+    @Override
+    public SM9FpElement mulZn(Element z) {
+        return (SM9FpElement)super.duplicate().mulZn(z).getImmutable();
+    }
+
+    @Override
+    public SM9FpElement pow(BigInteger n) {
+        return (SM9FpElement)super.duplicate().pow(n).getImmutable();
+    }
+
+    @Override
+    public SM9FpElement powZn(Element n) {
+        return (SM9FpElement)super.duplicate().powZn(n).getImmutable();
+    }
+
+    @Override
+    public SM9FpElement sqrt() {
+        return (SM9FpElement)super.duplicate().sqrt().getImmutable();
+    }
+
+}
@@ -0,0 +1,157 @@
+package com.jb.driver.sm9.field;
+
+import it.unisa.dia.gas.jpbc.Element;
+
+import java.math.BigInteger;
+
+/**
+ * @author zhaojb
+ * SM9塔式扩域 Fq12 只读元素
+ */
+public class ImmutableSM9Fq12Element extends SM9Fq12Element {
+
+    public ImmutableSM9Fq12Element(SM9Fq12Element element) {
+        super(element.getField());
+        for (int i = 0;i < 3;++i) {
+            this.c0[i] = element.c0[i].getImmutable();
+            this.c1[i] = element.c1[i].getImmutable();
+        }
+        this.immutable = true;
+    }
+
+    @Override
+    public Element getImmutable() {
+        return this;
+    }
+
+    @Override
+    public SM9Fq12Element set(Element e) {
+        throw new IllegalStateException("Invalid call on an immutable element");
+    }
+
+    @Override
+    public SM9Fq12Element set(int value) {
+        throw new IllegalStateException("Invalid call on an immutable element");
+    }
+
+    @Override
+    public SM9Fq12Element set(BigInteger value) {
+        throw new IllegalStateException("Invalid call on an immutable element");
+    }
+
+    @Override
+    public SM9Fq12Element setToZero() {
+        throw new IllegalStateException("Invalid call on an immutable element");
+    }
+
+    @Override
+    public SM9Fq12Element setToOne() {
+        throw new IllegalStateException("Invalid call on an immutable element");
+    }
+
+    @Override
+    public SM9Fq12Element setToRandom() {
+        throw new IllegalStateException("Invalid call on an immutable element");
+    }
+
+    @Override
+    public SM9Fq12Element setFromHash(byte[] source,int offset,int length) {
+        throw new IllegalStateException("Invalid call on an immutable element");
+    }
+
+    @Override
+    public int setFromBytes(byte[] source) {
+        throw new IllegalStateException("Invalid call on an immutable element");
+    }
+
+    @Override
+    public int setFromBytes(byte[] source,int offset) {
+        throw new IllegalStateException("Invalid call on an immutable element");
+    }
+
+    @Override
+    public SM9Fq12Element twice() {
+        return (SM9Fq12Element)super.duplicate().twice().getImmutable();
+    }
+
+    @Override
+    public SM9Fq12Element negate() {
+        return (SM9Fq12Element)super.duplicate().negate().getImmutable();
+    }
+
+    @Override
+    public SM9Fq12Element add(Element e) {
+        return (SM9Fq12Element)super.duplicate().add(e).getImmutable();
+    }
+
+    @Override
+    public SM9Fq12Element sub(Element e) {
+        return (SM9Fq12Element)super.duplicate().sub(e).getImmutable();
+    }
+
+    @Override
+    public SM9Fq12Element mul(Element e) {
+        return (SM9Fq12Element)super.duplicate().mul(e).getImmutable();
+    }
+
+    @Override
+    public SM9Fq12Element mul(int z) {
+        return (SM9Fq12Element)super.duplicate().mul(z).getImmutable();
+    }
+
+    @Override
+    public SM9Fq12Element mul(BigInteger n) {
+        return (SM9Fq12Element)super.duplicate().mul(n).getImmutable();
+    }
+
+    @Override
+    public SM9Fq12Element mulZn(Element z) {
+        return (SM9Fq12Element)super.duplicate().mulZn(z).getImmutable();
+    }
+
+    @Override
+    public SM9Fq12Element mulByLine(Element l0,Element l3,Element l5) {
+        return (SM9Fq12Element)super.duplicate().mulByLine(l0,l3,l5).getImmutable();
+    }
+
+    @Override
+    public SM9Fq12Element square() {
+        return (SM9Fq12Element)super.duplicate().square().getImmutable();
+    }
+
+    @Override
+    public SM9Fq12Element invert() {
+        return (SM9Fq12Element)super.duplicate().invert().getImmutable();
+    }
+
+    @Override
+    public SM9Fq12Element conjugate() {
+        return (SM9Fq12Element)super.duplicate().conjugate().getImmutable();
+    }
+
+    @Override
+    public SM9Fq12Element frobenius(int k) {
+        return (SM9Fq12Element)super.duplicate().frobenius(k).getImmutable();
+    }
+
+    @Override
+    public Element pow(BigInteger n) {
+        return super.duplicate().pow(n).getImmutable();
+    }
+
+    @Override
+    public Element powZn(Element e) {
+        return super.duplicate().powZn(e).getImmutable();
+    }
+
+    @Override
+    public Element halve() {
+        return super.duplicate().halve().getImmutable();
+    }
+
+    @Override
+    public Element div(Element element) {
+        return super.duplicate().div(element).getImmutable();
+    }
+
+}
@@ -0,0 +1,387 @@
+package com.jb.driver.sm9.field;
+
+import it.unisa.dia.gas.jpbc.Element;
+import it.unisa.dia.gas.plaf.jpbc.field.base.AbstractElement;
+import it.unisa.dia.gas.plaf.jpbc.util.Arrays;
+import it.unisa.dia.gas.plaf.jpbc.util.math.BigIntegerUtils;
+
+import java.math.BigInteger;
+
+/**
+ * @author zhaojb
+ * SM9素域元素, Montgomery形式的4个64位limb, 所有运算就地完成
+ * 对外表现与ZrElement一致: toBigInteger/toBytes/toString 均为标准形式的值
+ */
+public class SM9FpElement extends AbstractElement<SM9FpField> {
+    protected final long[] value;
+
+    public SM9FpElement(SM9FpField field) {
+        super(field);
+        this.value = new long[SM9FpField.LIMBS];
+    }
+
+    public SM9FpElement(SM9FpElement element) {
+        super(element.getField());
+        this.value = element.value.clone();
+    }
+
+    @Override
+    public SM9FpField getField() {
+        return this.field;
+    }
+
+    @Override
+    public Element getImmutable() {
+        return new ImmutableSM9FpElement(this);
+    }
+
+    @Override
+    public SM9FpElement duplicate() {
+        return new SM9FpElement(this);
+    }
+
+    @Override
+    public SM9FpElement set(Element value) {
+        if (value instanceof SM9FpElement && ((SM9FpElement)value).field == this.field) {
+            System.arraycopy(((SM9FpElement)value).value,0,this.value,0,SM9FpField.LIMBS);
+            return this;
+        }
+        return this.set(value.toBigInteger());
+    }
+
+    @Override
+    public SM9FpElement set(int value) {
+        return this.set(BigInteger.valueOf(value));
+    }
+
+    @Override
+    public SM9FpElement set(BigInteger value) {
+        BigInteger order = this.field.getOrder();
+        if (value.signum() < 0 || value.compareTo(order) >= 0) {
+            value = value.mod(order);
+        }
+        this.field.mul(SM9FpField.toLimbs(value),this.field.r2,this.value);
+        return this;
+    }
+
+    @Override
+    public BigInteger toBigInteger() {
+        long[] standard = new long[SM9FpField.LIMBS];
+        this.fromMontgomery(standard);
+        return SM9FpField.fromLimbs(standard);
+    }
+
+    @Override
+    public SM9FpElement setToRandom() {
+        return this.set(BigIntegerUtils.getRandom(this.field.getOrder(),this.field.getRandom()));
+    }
+
+    /**
+     * 与ZrElement.setFromHash相同的填充规则
+     */
+    @Override
+    public SM9FpElement setFromHash(byte[] source,int offset,int length) {
+        BigInteger order = this.field.getOrder();
+        int i = 0, n, count = (order.bitLength() + 7) / 8;
+        byte[] buf = new byte[count];
+
+        byte counter = 0;
+        boolean done = false;
+
+        for (;;) {
+            if (length >= count - i) {
+                n = count - i;
+                done = true;
+            } else {
+                n = length;
+            }
+
+            System.arraycopy(source,offset,buf,i,n);
+            i += n;
+
+            if (done) {
+                break;
+            }
+
+            buf[i] = counter;
+            ++counter;
+            ++i;
+
+            if (i == count) {
+                break;
+            }
+        }
+
+        BigInteger z = new BigInteger(1,buf);
+        while (z.compareTo(order) > 0) {
+            z = z.divide(BigIntegerUtils.TWO);
+        }
+        return this.set(z);
+    }
+
+    @Override
+    public int setFromBytes(byte[] source) {
+        return this.setFromBytes(source,0);
+    }
+
+    @Override
+    public int setFromBytes(byte[] source,int offset) {
+        byte[] buffer = Arrays.copyOf(source,offset,this.field.getLengthInBytes());
+        this.set(new BigInteger(1,buffer));
+        return buffer.length;
+    }
+
+    /**
+     * 定长大端序, 直接由limb写出
+     */
+    @Override
+    public byte[] toBytes() {
+        long[] standard = new long[SM9FpField.LIMBS];
+        this.fromMontgomery(standard);
+
+        int length = this.field.getLengthInBytes();
+        byte[] bytes = new byte[length];
+        for (int i = 0;i < length;++i) {
+            int k = length - 1 - i;
+            bytes[i] = (byte)(standard[k >>> 3] >>> ((k & 7) << 3));
+        }
+        return bytes;
+    }
+
+    @Override
+    public SM9FpElement setToZero() {
+        SM9FpField.clear(this.value);
+        return this;
+    }
+
+    @Override
+    public boolean isZero() {
+        return SM9FpField.isZero(this.value);
+    }
+
+    @Override
+    public SM9FpElement setToOne() {
+        System.arraycopy(this.field.one,0,this.value,0,SM9FpField.LIMBS);
+        return this;
+    }
+
+    @Override
+    public boolean isEqual(Element value) {
+        if (this == value) {
+            return true;
+        }
+        if (!(value instanceof SM9FpElement)) {
+            return false;
+        }
+        long[] other = ((SM9FpElement)value).value;
+        return this.value[0] == other[0] && this.value[1] == other[1]
+                && this.value[2] == other[2] && this.value[3] == other[3];
+    }
+
+    @Override
+    public boolean isOne() {
+        long[] one = this.field.one;
+        return this.value[0] == one[0] && this.value[1] == one[1]
+                && this.value[2] == one[2] && this.value[3] == one[3];
+    }
+
+    @Override
+    public SM9FpElement twice() {
+        this.field.add(this.value,this.value,this.value);
+        return this;
+    }
+
+    @Override
+    public SM9FpElement square() {
+        this.field.mul(this.value,this.value,this.value);
+        return this;
+    }
+
+    @Override
+    public SM9FpElement invert() {
+        return this.set(this.toBigInteger().modInverse(this.field.getOrder()));
+    }
+
+    @Override
+    public SM9FpElement halve() {
+        this.field.halve(this.value,this.value);
+        return this;
+    }
+
+    @Override
+    public SM9FpElement negate() {
+        this.field.negate(this.value,this.value);
+        return this;
+    }
+
+    @Override
+    public SM9FpElement add(Element element) {
+        this.field.add(this.value,this.limbsOf(element),this.value);
+        return this;
+    }
+
+    @Override
+    public SM9FpElement sub(Element element) {
+        this.field.sub(this.value,this.limbsOf(element),this.value);
+        return this;
+    }
+
+    @Override
+    public SM9FpElement mul(Element element) {
+        this.field.mul(this.value,this.limbsOf(element),this.value);
+        return this;
+    }
+
+    @Override
+    public SM9FpElement div(Element element) {
+        SM9FpElement inverse = this.field.newElement().set(element).invert();
+        this.field.mul(this.value,inverse.value,this.value);
+        return this;
+    }
+
+    /**
+     * 小整数直接作为limb参与Montgomery乘法, 再乘R^2回到Montgomery形式, 不产生BigInteger
+     */
+    @Override
+    public SM9FpElement mul(int z) {
+        if (z < 0) {
+            this.mul(-(long)z);
+            return this.negate();
+        }
+        return this.mul((long)z);
+    }
+
+    private SM9FpElement mul(long z) {
+        long[] limbs = new long[SM9FpField.LIMBS];
+        limbs[0] = z;
+        this.field.mul(this.value,limbs,this.value);
+        this.field.mul(this.value,this.field.r2,this.value);
+        return this;
+    }
+
+    @Override
+    public SM9FpElement mul(BigInteger n) {
+        BigInteger order = this.field.getOrder();
+        if (n.signum() < 0 || n.compareTo(order) >= 0) {
+            n = n.mod(order);
+        }
+        this.field.mul(this.value,SM9FpField.toLimbs(n),this.value);
+        this.field.mul(this.value,this.field.r2,this.value);
+        return this;
+    }
+
+    /**
+     * 同一域内的元素直接做Montgomery乘法, 其余按整数处理
+     */
+    @Override
+    public SM9FpElement mulZn(Element z) {
+        if (z instanceof SM9FpElement && ((SM9FpElement)z).field == this.field) {
+            return this.mul(z);
+        }
+        return this.mul(z.toBigInteger());
+    }
+
+    /**
+     * 从左到右平方-乘, 指数为负时先求逆
+     */
+    @Override
+    public SM9FpElement pow(BigInteger n) {
+        if (n.signum() == 0) {
+            return this.setToOne();
+        }
+        if (n.signum() < 0) {
+            this.invert();
+            n = n.negate();
+        }
+
+        long[] base = this.value.clone();
+        for (int i = n.bitLength() - 2;i >= 0;--i) {
+            this.field.mul(this.value,this.value,this.value);
+            if (n.testBit(i)) {
+                this.field.mul(this.value,base,this.value);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public SM9FpElement powZn(Element n) {
+        return this.pow(n.toBigInteger());
+    }
+
+    @Override
+    public boolean isSqr() {
+        return this.isZero() || BigIntegerUtils.legendre(this.toBigInteger(),this.field.getOrder()) == 1;
+    }
+
+    /**
+     * Tonelli-Shanks, p - 1 = 2^s * t, t为奇数
+     */
+    @Override
+    public SM9FpElement sqrt() {
+        if (this.isZero()) {
+            return this;
+        }
+
+        BigInteger pMinusOne = this.field.getOrder().subtract(BigInteger.ONE);
+        int s = pMinusOne.getLowestSetBit();
+        BigInteger t = pMinusOne.shiftRight(s);
+
+        SM9FpElement c = this.field.newElement().set(this.field.getNqr()).pow(t);
+        SM9FpElement b = this.duplicate().pow(t);
+        SM9FpElement x = this.duplicate().pow(t.add(BigInteger.ONE).shiftRight(1));
+        SM9FpElement b2 = this.field.newElement();
+
+        int m = s;
+        while (!b.isOne()) {
+            int i = 0;
+            b2.set(b);
+            while (!b2.isOne() && i < m) {
+                b2.square();
+                ++i;
+            }
+            if (i == m) {
+                // 非二次剩余
+                break;
+            }
+            SM9FpElement g = c;
+            for (int j = 0;j < m - i - 1;++j) {
+                g.square();
+            }
+            x.mul(g);
+            c = g.square();
+            b.mul(c);
+            m = i;
+        }
+        return this.set(x);
+    }
+
+    @Override
+    public int sign() {
+        if (this.isZero()) {
+            return 0;
+        }
+        long[] standard = new long[SM9FpField.LIMBS];
+        this.fromMontgomery(standard);
+        return (standard[0] & 1L) != 0 ? 1 : -1;
+    }
+
+    @Override
+    public String toString() {
+        return this.toBigInteger().toString();
+    }
+
+    private void fromMontgomery(long[] standard) {
+        long[] one = new long[SM9FpField.LIMBS];
+        one[0] = 1L;
+        this.field.mul(this.value,one,standard);
+    }
+
+    private long[] limbsOf(Element element) {
+        if (element instanceof SM9FpElement && ((SM9FpElement)element).field == this.field) {
+            return ((SM9FpElement)element).value;
+        }
+        return this.field.newElement().set(element.toBigInteger()).value;
+    }
+
+}
@@ -0,0 +1,352 @@
+package com.jb.driver.sm9.field;
+
+import it.unisa.dia.gas.plaf.jpbc.field.base.AbstractField;
+import it.unisa.dia.gas.plaf.jpbc.util.math.BigIntegerUtils;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+/**
+ * @author zhaojb
+ * SM9素域 Fp, p为不超过256位的奇素数 (基域特征q 或 群阶N)
+ * 元素以Montgomery形式 aR mod p 存放在4个64位limb中(小端), R = 2^256
+ * 替代基于BigInteger的ZrField, 乘法不再产生BigInteger对象和取模除法
+ */
+public class SM9FpField extends AbstractField<SM9FpElement> {
+    static final int LIMBS = 4;
+
+    private final BigInteger order;
+    private final int fixedLengthInBytes;
+    /**
+     * p 的limb表示
+     */
+    final long[] p;
+    /**
+     * -p^(-1) mod 2^64
+     */
+    final long n0;
+    /**
+     * R mod p, 即Montgomery形式的1
+     */
+    final long[] one;
+    /**
+     * R^2 mod p, 用于转入Montgomery形式
+     */
+    final long[] r2;
+    private SM9FpElement nqr;
+
+    public SM9FpField(SecureRandom random,BigInteger order) {
+        this(random,order,null);
+    }
+
+    public SM9FpField(SecureRandom random,BigInteger order,BigInteger nqr) {
+        super(random);
+        if (order.signum() <= 0 || !order.testBit(0) || order.bitLength() > LIMBS * 64) {
+            throw new IllegalArgumentException("order must be an odd prime of at most 256 bits");
+        }
+        this.order = order;
+        this.orderIsOdd = true;
+        this.fixedLengthInBytes = (order.bitLength() + 7) / 8;
+
+        BigInteger r = BigInteger.ONE.shiftLeft(LIMBS * 64);
+        BigInteger word = BigInteger.ONE.shiftLeft(64);
+        this.p = toLimbs(order);
+        this.n0 = order.modInverse(word).negate().mod(word).longValue();
+        this.one = toLimbs(r.mod(order));
+        this.r2 = toLimbs(r.multiply(r).mod(order));
+
+        if (nqr != null) {
+            this.nqr = (SM9FpElement)this.newElement().set(nqr).getImmutable();
+        }
+    }
+
+    @Override
+    public SM9FpElement newElement() {
+        return new SM9FpElement(this);
+    }
+
+    @Override
+    public BigInteger getOrder() {
+        return this.order;
+    }
+
+    /**
+     * 二次非剩余, 只读, Fq2乘法每次都会用到, 不再复制
+     */
+    @Override
+    public SM9FpElement getNqr() {
+        if (this.nqr == null) {
+            SM9FpElement element = this.newElement();
+            do {
+                element.setToRandom();
+            } while (element.isSqr());
+            this.nqr = (SM9FpElement)element.getImmutable();
+        }
+        return this.nqr;
+    }
+
+    @Override
+    public int getLengthInBytes() {
+        return this.fixedLengthInBytes;
+    }
+
+    static long[] toLimbs(BigInteger value) {
+        long[] limbs = new long[LIMBS];
+        for (int i = 0;i < LIMBS;++i) {
+            limbs[i] = value.shiftRight(i * 64).longValue();
+        }
+        return limbs;
+    }
+
+    static BigInteger fromLimbs(long[] limbs) {
+        byte[] bytes = new byte[LIMBS * 8];
+        for (int i = 0;i < LIMBS;++i) {
+            long limb = limbs[LIMBS - 1 - i];
+            for (int j = 0;j < 8;++j) {
+                bytes[i * 8 + j] = (byte)(limb >>> (56 - j * 8));
+            }
+        }
+        return new BigInteger(1,bytes);
+    }
+
+    /**
+     * r = a * b * R^(-1) mod p, CIOS算法, r可以与a或b相同
+     */
+    void mul(long[] a,long[] b,long[] r) {
+        long a0 = a[0], a1 = a[1], a2 = a[2], a3 = a[3];
+        long p0 = this.p[0], p1 = this.p[1], p2 = this.p[2], p3 = this.p[3];
+        long t0 = 0, t1 = 0, t2 = 0, t3 = 0, t4 = 0, t5;
+        long lo, hi, c;
+
+        for (int i = 0;i < LIMBS;++i) {
+            long bi = b[i];
+
+            // t += a * b[i]
+            lo = a0 * bi;
+            hi = mulHigh(a0,bi);
+            lo += t0;
+            hi += carry(lo,t0);
+            t0 = lo;
+            c = hi;
+
+            lo = a1 * bi;
+            hi = mulHigh(a1,bi);
+            lo += t1;
+            hi += carry(lo,t1);
+            lo += c;
+            hi += carry(lo,c);
+            t1 = lo;
+            c = hi;
+
+            lo = a2 * bi;
+            hi = mulHigh(a2,bi);
+            lo += t2;
+            hi += carry(lo,t2);
+            lo += c;
+            hi += carry(lo,c);
+            t2 = lo;
+            c = hi;
+
+            lo = a3 * bi;
+            hi = mulHigh(a3,bi);
+            lo += t3;
+            hi += carry(lo,t3);
+            lo += c;
+            hi += carry(lo,c);
+            t3 = lo;
+            c = hi;
+
+            t4 += c;
+            t5 = carry(t4,c);
+
+            // t = (t + m * p) / 2^64
+            long m = t0 * this.n0;
+            lo = m * p0;
+            hi = mulHigh(m,p0);
+            lo += t0;
+            hi += carry(lo,t0);
+            c = hi;
+
+            lo = m * p1;
+            hi = mulHigh(m,p1);
+            lo += t1;
+            hi += carry(lo,t1);
+            lo += c;
+            hi += carry(lo,c);
+            t0 = lo;
+            c = hi;
+
+            lo = m * p2;
+            hi = mulHigh(m,p2);
+            lo += t2;
+            hi += carry(lo,t2);
+            lo += c;
+            hi += carry(lo,c);
+            t1 = lo;
+            c = hi;
+
+            lo = m * p3;
+            hi = mulHigh(m,p3);
+            lo += t3;
+            hi += carry(lo,t3);
+            lo += c;
+            hi += carry(lo,c);
+            t2 = lo;
+            c = hi;
+
+            t3 = t4 + c;
+            t4 = t5 + carry(t3,c);
+        }
+
+        r[0] = t0;
+        r[1] = t1;
+        r[2] = t2;
+        r[3] = t3;
+        if (t4 != 0 || this.compare(r) >= 0) {
+            this.subP(r);
+        }
+    }
+
+    /**
+     * r = a + b mod p
+     */
+    void add(long[] a,long[] b,long[] r) {
+        long c = 0;
+        for (int i = 0;i < LIMBS;++i) {
+            long ai = a[i];
+            long s = ai + b[i];
+            long c1 = carry(s,ai);
+            long t = s + c;
+            r[i] = t;
+            c = c1 | carry(t,s);
+        }
+        if (c != 0 || this.compare(r) >= 0) {
+            this.subP(r);
+        }
+    }
+
+    /**
+     * r = a - b mod p
+     */
+    void sub(long[] a,long[] b,long[] r) {
+        long borrow = 0;
+        for (int i = 0;i < LIMBS;++i) {
+            long ai = a[i];
+            long bi = b[i];
+            long d = ai - bi;
+            long b1 = carry(ai,d);
+            long t = d - borrow;
+            r[i] = t;
+            borrow = b1 | carry(d,t);
+        }
+        if (borrow != 0) {
+            this.addP(r);
+        }
+    }
+
+    /**
+     * r = -a mod p
+     */
+    void negate(long[] a,long[] r) {
+        if (isZero(a)) {
+            clear(r);
+            return;
+        }
+        long borrow = 0;
+        for (int i = 0;i < LIMBS;++i) {
+            long pi = this.p[i];
+            long d = pi - a[i];
+            long b1 = carry(pi,d);
+            long t = d - borrow;
+            r[i] = t;
+            borrow = b1 | carry(d,t);
+        }
+    }
+
+    /**
+     * r = a / 2 mod p
+     */
+    void halve(long[] a,long[] r) {
+        long top = 0;
+        System.arraycopy(a,0,r,0,LIMBS);
+        if ((r[0] & 1L) != 0) {
+            long c = 0;
+            for (int i = 0;i < LIMBS;++i) {
+                long ri = r[i];
+                long s = ri + this.p[i];
+                long c1 = carry(s,ri);
+                long t = s + c;
+                r[i] = t;
+                c = c1 | carry(t,s);
+            }
+            top = c;
+        }
+        for (int i = 0;i < LIMBS - 1;++i) {
+            r[i] = (r[i] >>> 1) | (r[i + 1] << 63);
+        }
+        r[LIMBS - 1] = (r[LIMBS - 1] >>> 1) | (top << 63);
+    }
+
+    /**
+     * 无符号比较 a 与 p
+     */
+    int compare(long[] a) {
+        for (int i = LIMBS - 1;i >= 0;--i) {
+            int cmp = Long.compareUnsigned(a[i],this.p[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private void subP(long[] r) {
+        long borrow = 0;
+        for (int i = 0;i < LIMBS;++i) {
+            long ri = r[i];
+            long d = ri - this.p[i];
+            long b1 = carry(ri,d);
+            long t = d - borrow;
+            r[i] = t;
+            borrow = b1 | carry(d,t);
+        }
+    }
+
+    private void addP(long[] r) {
+        long c = 0;
+        for (int i = 0;i < LIMBS;++i) {
+            long ri = r[i];
+            long s = ri + this.p[i];
+            long c1 = carry(s,ri);
+            long t = s + c;
+            r[i] = t;
+            c = c1 | carry(t,s);
+        }
+    }
+
+    static boolean isZero(long[] a) {
+        return (a[0] | a[1] | a[2] | a[3]) == 0;
+    }
+
+    static void clear(long[] a) {
+        a[0] = 0;
+        a[1] = 0;
+        a[2] = 0;
+        a[3] = 0;
+    }
+
+    /**
+     * 64x64位无符号乘积的高64位
+     */
+    private static long mulHigh(long a,long b) {
+        return Math.multiplyHigh(a,b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+
+    /**
+     * sum = x + addend 时的进位, 即无符号 sum < addend
+     */
+    private static long carry(long sum,long addend) {
+        return (sum ^ Long.MIN_VALUE) < (addend ^ Long.MIN_VALUE) ? 1L : 0L;
+    }
+
+}
@@ -0,0 +1,491 @@
+package com.jb.driver.sm9.field;
+
+import it.unisa.dia.gas.jpbc.Element;
+import it.unisa.dia.gas.jpbc.Point;
+import it.unisa.dia.gas.jpbc.Polynomial;
+import it.unisa.dia.gas.plaf.jpbc.field.base.AbstractElement;
+
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * @author zhaojb
+ * SM9塔式扩域 Fq12 元素
+ * f = c0 + c1*w, c0 = a0 + a2*v + a4*v^2, c1 = a1 + a3*v + a5*v^2, 其中 v = w^2
+ * 系数使用定长数组保存, getCoefficient(i) 返回 w^i 的系数
+ */
+public class SM9Fq12Element extends AbstractElement<SM9Fq12Field> implements Polynomial<Point> {
+    protected Element[] c0;
+    protected Element[] c1;
+
+    public SM9Fq12Element(SM9Fq12Field field) {
+        super(field);
+        this.c0 = new Element[3];
+        this.c1 = new Element[3];
+        for (int i = 0;i < 3;++i) {
+            this.c0[i] = field.getTargetField().newElement();
+            this.c1[i] = field.getTargetField().newElement();
+        }
+    }
+
+    public SM9Fq12Element(SM9Fq12Element element) {
+        super(element.getField());
+        this.c0 = new Element[3];
+        this.c1 = new Element[3];
+        for (int i = 0;i < 3;++i) {
+            this.c0[i] = element.c0[i].duplicate();
+            this.c1[i] = element.c1[i].duplicate();
+        }
+    }
+
+    @Override
+    public SM9Fq12Field getField() {
+        return this.field;
+    }
+
+    @Override
+    public Element getImmutable() {
+        return new ImmutableSM9Fq12Element(this);
+    }
+
+    @Override
+    public SM9Fq12Element duplicate() {
+        return new SM9Fq12Element(this);
+    }
+
+    @Override
+    public int getSize() {
+        return 6;
+    }
+
+    @Override
+    public Point getAt(int index) {
+        return this.getCoefficient(index);
+    }
+
+    @Override
+    public int getDegree() {
+        return 6;
+    }
+
+    @Override
+    public List<Point> getCoefficients() {
+        return new AbstractList<Point>() {
+            @Override
+            public Point get(int index) {
+                return SM9Fq12Element.this.getCoefficient(index);
+            }
+
+            @Override
+            public int size() {
+                return 6;
+            }
+        };
+    }
+
+    @Override
+    public Point getCoefficient(int index) {
+        return (Point)((index & 1) == 0 ? this.c0[index >> 1] : this.c1[index >> 1]);
+    }
+
+    @Override
+    public SM9Fq12Element set(Element e) {
+        SM9Fq12Element element = (SM9Fq12Element)e;
+        for (int i = 0;i < 3;++i) {
+            this.c0[i].set(element.c0[i]);
+            this.c1[i].set(element.c1[i]);
+        }
+        return this;
+    }
+
+    @Override
+    public SM9Fq12Element set(int value) {
+        this.setToZero();
+        this.c0[0].set(value);
+        return this;
+    }
+
+    @Override
+    public SM9Fq12Element set(BigInteger value) {
+        this.setToZero();
+        this.c0[0].set(value);
+        return this;
+    }
+
+    @Override
+    public SM9Fq12Element setToZero() {
+        for (int i = 0;i < 3;++i) {
+            this.c0[i].setToZero();
+            this.c1[i].setToZero();
+        }
+        return this;
+    }
+
+    @Override
+    public SM9Fq12Element setToOne() {
+        this.setToZero();
+        this.c0[0].setToOne();
+        return this;
+    }
+
+    @Override
+    public SM9Fq12Element setToRandom() {
+        for (int i = 0;i < 3;++i) {
+            this.c0[i].setToRandom();
+            this.c1[i].setToRandom();
+        }
+        return this;
+    }
+
+    @Override
+    public SM9Fq12Element setFromHash(byte[] source,int offset,int length) {
+        for (int i = 0;i < 6;++i) {
+            this.getCoefficient(i).setFromHash(source,offset,length);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean isZero() {
+        for (int i = 0;i < 3;++i) {
+            if (!this.c0[i].isZero() || !this.c1[i].isZero()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isOne() {
+        if (!this.c0[0].isOne()) {
+            return false;
+        }
+        for (int i = 0;i < 3;++i) {
+            if ((i > 0 && !this.c0[i].isZero()) || !this.c1[i].isZero()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isEqual(Element e) {
+        if (e == this) {
+            return true;
+        }
+        if (!(e instanceof SM9Fq12Element)) {
+            return false;
+        }
+        SM9Fq12Element element = (SM9Fq12Element)e;
+        for (int i = 0;i < 3;++i) {
+            if (!this.c0[i].isEqual(element.c0[i]) || !this.c1[i].isEqual(element.c1[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public SM9Fq12Element twice() {
+        for (int i = 0;i < 3;++i) {
+            this.c0[i].twice();
+            this.c1[i].twice();
+        }
+        return this;
+    }
+
+    @Override
+    public SM9Fq12Element negate() {
+        for (int i = 0;i < 3;++i) {
+            this.c0[i].negate();
+            this.c1[i].negate();
+        }
+        return this;
+    }
+
+    @Override
+    public SM9Fq12Element add(Element e) {
+        SM9Fq12Element element = (SM9Fq12Element)e;
+        for (int i = 0;i < 3;++i) {
+            this.c0[i].add(element.c0[i]);
+            this.c1[i].add(element.c1[i]);
+        }
+        return this;
+    }
+
+    @Override
+    public SM9Fq12Element sub(Element e) {
+        SM9Fq12Element element = (SM9Fq12Element)e;
+        for (int i = 0;i < 3;++i) {
+            this.c0[i].sub(element.c0[i]);
+            this.c1[i].sub(element.c1[i]);
+        }
+        return this;
+    }
+
+    @Override
+    public SM9Fq12Element mul(int z) {
+        for (int i = 0;i < 3;++i) {
+            this.c0[i].mul(z);
+            this.c1[i].mul(z);
+        }
+        return this;
+    }
+
+    @Override
+    public SM9Fq12Element mul(BigInteger n) {
+        for (int i = 0;i < 3;++i) {
+            this.c0[i].mul(n);
+            this.c1[i].mul(n);
+        }
+        return this;
+    }
+
+    @Override
+    public SM9Fq12Element mulZn(Element z) {
+        return this.mul(z.toBigInteger());
+    }
+
+    /**
+     * Karatsuba: t0 = a0*b0, t1 = a1*b1
+     * c0 = t0 + v*t1, c1 = (a0+a1)(b0+b1) - t0 - t1
+     */
+    @Override
+    public SM9Fq12Element mul(Element e) {
+        SM9Fq12Element element = (SM9Fq12Element)e;
+        Element[] t0 = this.fq6Mul(this.c0,element.c0);
+        Element[] t1 = this.fq6Mul(this.c1,element.c1);
+        Element[] r1 = this.fq6Mul(this.fq6Add(this.c0,this.c1),this.fq6Add(element.c0,element.c1));
+        for (int i = 0;i < 3;++i) {
+            r1[i].sub(t0[i]).sub(t1[i]);
+        }
+        Element[] r0 = this.fq6Add(t0,this.fq6MulByV(t1));
+        this.assign(r0,r1);
+        return this;
+    }
+
+    /**
+     * 乘以稀疏的线函数值 l0 + l3*w^3 + l5*w^5, 即 L0 = (l0,0,0), L1 = (0,l3,l5)
+     * c0 = f0*L0 + v*f1*L1, c1 = (f0+f1)(L0+L1) - f0*L0 - f1*L1
+     */
+    public SM9Fq12Element mulByLine(Element l0,Element l3,Element l5) {
+        Element[] t0 = new Element[]{
+                this.c0[0].duplicate().mul(l0),
+                this.c0[1].duplicate().mul(l0),
+                this.c0[2].duplicate().mul(l0)};
+        Element[] t1 = this.fq6MulBy12(this.c1,l3,l5);
+        Element[] r1 = this.fq6Mul(this.fq6Add(this.c0,this.c1),new Element[]{l0,l3,l5});
+        for (int i = 0;i < 3;++i) {
+            r1[i].sub(t0[i]).sub(t1[i]);
+        }
+        Element[] r0 = this.fq6Add(t0,this.fq6MulByV(t1));
+        this.assign(r0,r1);
+        return this;
+    }
+
+    /**
+     * s0 = a0^2, s1 = a1^2, s2 = (a0+a1)^2
+     * c0 = s0 + v*s1, c1 = s2 - s0 - s1
+     */
+    @Override
+    public SM9Fq12Element square() {
+        Element[] s0 = this.fq6Square(this.c0);
+        Element[] s1 = this.fq6Square(this.c1);
+        Element[] r1 = this.fq6Square(this.fq6Add(this.c0,this.c1));
+        for (int i = 0;i < 3;++i) {
+            r1[i].sub(s0[i]).sub(s1[i]);
+        }
+        Element[] r0 = this.fq6Add(s0,this.fq6MulByV(s1));
+        this.assign(r0,r1);
+        return this;
+    }
+
+    /**
+     * 经范数 a0^2 - v*a1^2 降到 Fq6, 再由Fq6降到Fq2, Fq2降到Fq后求逆
+     */
+    @Override
+    public SM9Fq12Element invert() {
+        Element[] norm = this.fq6MulByV(this.fq6Square(this.c1));
+        Element[] t = this.fq6Square(this.c0);
+        for (int i = 0;i < 3;++i) {
+            t[i].sub(norm[i]);
+        }
+        t = this.fq6Invert(t);
+        Element[] r0 = this.fq6Mul(this.c0,t);
+        Element[] r1 = this.fq6Mul(this.c1,t);
+        for (int i = 0;i < 3;++i) {
+            r1[i].negate();
+        }
+        this.assign(r0,r1);
+        return this;
+    }
+
+    /**
+     * 共轭 f^(q^6), 即 w -> -w
+     */
+    public SM9Fq12Element conjugate() {
+        for (int i = 0;i < 3;++i) {
+            this.c1[i].negate();
+        }
+        return this;
+    }
+
+    /**
+     * Frobenius映射 f^(q^k), k=1,2,3
+     */
+    public SM9Fq12Element frobenius(int k) {
+        Element[] gamma = this.field.getFrobeniusCoefficients(k);
+        for (int i = 0;i < 6;++i) {
+            Point c = this.getCoefficient(i);
+            if ((k & 1) == 1) {
+                c.getY().negate();
+            }
+            c.mul(gamma[i]);
+        }
+        return this;
+    }
+
+    @Override
+    public SM9Fq12Element sqrt() {
+        throw new IllegalStateException("Not Implemented yet!");
+    }
+
+    @Override
+    public boolean isSqr() {
+        BigInteger z = this.field.getOrder().subtract(BigInteger.ONE).shiftRight(1);
+        return this.duplicate().pow(z).isOne();
+    }
+
+    @Override
+    public int sign() {
+        int res = 0;
+        for (int i = 0;i < 6;++i) {
+            res = this.getCoefficient(i).sign();
+            if (res != 0) {
+                break;
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public int setFromBytes(byte[] source,int offset) {
+        int len = offset;
+        for (int i = 0;i < 6;++i) {
+            len += this.getCoefficient(i).setFromBytes(source,len);
+        }
+        return len - offset;
+    }
+
+    @Override
+    public byte[] toBytes() {
+        byte[] buffer = new byte[this.field.getLengthInBytes()];
+        int targetLB = this.field.getTargetField().getLengthInBytes();
+        for (int i = 0;i < 6;++i) {
+            byte[] temp = this.getCoefficient(i).toBytes();
+            System.arraycopy(temp,0,buffer,i * targetLB,targetLB);
+        }
+        return buffer;
+    }
+
+    @Override
+    public BigInteger toBigInteger() {
+        return this.c0[0].toBigInteger();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buffer = new StringBuilder("[");
+        for (int i = 0;i < 6;++i) {
+            buffer.append(this.getCoefficient(i)).append(", ");
+        }
+        buffer.append("]");
+        return buffer.toString();
+    }
+
+    private void assign(Element[] r0,Element[] r1) {
+        for (int i = 0;i < 3;++i) {
+            this.c0[i].set(r0[i]);
+            this.c1[i].set(r1[i]);
+        }
+    }
+
+    private Element[] fq6Add(Element[] a,Element[] b) {
+        return new Element[]{
+                a[0].duplicate().add(b[0]),
+                a[1].duplicate().add(b[1]),
+                a[2].duplicate().add(b[2])};
+    }
+
+    /**
+     * (a0 + a1*v + a2*v^2) * v = u*a2 + a0*v + a1*v^2
+     */
+    private Element[] fq6MulByV(Element[] a) {
+        return new Element[]{this.field.mulByXi(a[2].duplicate()),a[0].duplicate(),a[1].duplicate()};
+    }
+
+    /**
+     * Fq6 Karatsuba乘法, 6次Fq2乘法
+     */
+    private Element[] fq6Mul(Element[] a,Element[] b) {
+        Element v0 = a[0].duplicate().mul(b[0]);
+        Element v1 = a[1].duplicate().mul(b[1]);
+        Element v2 = a[2].duplicate().mul(b[2]);
+
+        Element r0 = a[1].duplicate().add(a[2]).mul(b[1].duplicate().add(b[2])).sub(v1).sub(v2);
+        this.field.mulByXi(r0).add(v0);
+        Element r1 = a[0].duplicate().add(a[1]).mul(b[0].duplicate().add(b[1])).sub(v0).sub(v1);
+        r1.add(this.field.mulByXi(v2.duplicate()));
+        Element r2 = a[0].duplicate().add(a[2]).mul(b[0].duplicate().add(b[2])).sub(v0).sub(v2).add(v1);
+        return new Element[]{r0,r1,r2};
+    }
+
+    /**
+     * 乘以 b1*v + b2*v^2, 5次Fq2乘法
+     */
+    private Element[] fq6MulBy12(Element[] a,Element b1,Element b2) {
+        Element v1 = a[1].duplicate().mul(b1);
+        Element v2 = a[2].duplicate().mul(b2);
+
+        Element r0 = a[1].duplicate().add(a[2]).mul(b1.duplicate().add(b2)).sub(v1).sub(v2);
+        this.field.mulByXi(r0);
+        Element r1 = a[0].duplicate().mul(b1).add(this.field.mulByXi(v2));
+        Element r2 = a[0].duplicate().mul(b2).add(v1);
+        return new Element[]{r0,r1,r2};
+    }
+
+    /**
+     * Fq6 Chung-Hasan平方(SQR2)
+     * s0 = a0^2, s1 = 2a0a1, s2 = (a0-a1+a2)^2, s3 = 2a1a2, s4 = a2^2
+     * c0 = s0 + u*s3, c1 = s1 + u*s4, c2 = s1 + s2 + s3 - s0 - s4
+     */
+    private Element[] fq6Square(Element[] a) {
+        Element s0 = a[0].duplicate().square();
+        Element s1 = a[0].duplicate().mul(a[1]).twice();
+        Element s2 = a[0].duplicate().sub(a[1]).add(a[2]).square();
+        Element s3 = a[1].duplicate().mul(a[2]).twice();
+        Element s4 = a[2].duplicate().square();
+
+        Element r0 = this.field.mulByXi(s3.duplicate()).add(s0);
+        Element r1 = this.field.mulByXi(s4.duplicate()).add(s1);
+        Element r2 = s1.add(s2).add(s3).sub(s0).sub(s4);
+        return new Element[]{r0,r1,r2};
+    }
+
+    /**
+     * A = a0^2 - u*a1a2, B = u*a2^2 - a0a1, C = a1^2 - a0a2
+     * F = a0A + u(a2B + a1C), 结果为 (A,B,C)/F
+     */
+    private Element[] fq6Invert(Element[] a) {
+        Element r0 = a[0].duplicate().square().sub(this.field.mulByXi(a[1].duplicate().mul(a[2])));
+        Element r1 = this.field.mulByXi(a[2].duplicate().square()).sub(a[0].duplicate().mul(a[1]));
+        Element r2 = a[1].duplicate().square().sub(a[0].duplicate().mul(a[2]));
+
+        Element f = a[2].duplicate().mul(r1).add(a[1].duplicate().mul(r2));
+        this.field.mulByXi(f).add(a[0].duplicate().mul(r0));
+        f.invert();
+        return new Element[]{r0.mul(f),r1.mul(f),r2.mul(f)};
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.jb.driver.sm9.field;
+
+import it.unisa.dia.gas.jpbc.Element;
+import it.unisa.dia.gas.jpbc.Field;
+import it.unisa.dia.gas.jpbc.Point;
+import it.unisa.dia.gas.plaf.jpbc.field.base.AbstractFieldOver;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+/**
+ * @author zhaojb
+ * SM9塔式扩域 Fq12
+ * Fq2 = Fq[u]/(u^2 - beta), Fq6 = Fq2[v]/(v^3 - u), Fq12 = Fq6[w]/(w^2 - v)
+ * 与 Fq2[w]/(w^6 - u) 同构, 系数 a0..a5 顺序不变, 序列化结果与原PolyModField一致
+ */
+public class SM9Fq12Field<F extends Field> extends AbstractFieldOver<F,SM9Fq12Element> {
+    private final BigInteger order;
+    private final int fixedLengthInBytes;
+    private final Element beta;
+    private final Element[][] frobeniusCoefficients;
+
+    /**
+     * @param fq2 二次扩域 Fq2, 其基域的二次非剩余即 u^2
+     * @param q   基域特征
+     */
+    public SM9Fq12Field(SecureRandom random,F fq2,BigInteger q) {
+        super(random,fq2);
+        this.order = fq2.getOrder().pow(6);
+        this.fixedLengthInBytes = fq2.getLengthInBytes() * 6;
+        this.beta = ((Point)fq2.newElement()).getX().getField().getNqr().getImmutable();
+        this.frobeniusCoefficients = this.initFrobeniusCoefficients(q);
+    }
+
+    /**
+     * w^(q^k) = w * u^((q^k-1)/6)
+     * 预计算 frobeniusCoefficients[k][i] = u^(i(q^k-1)/6), k=1,2,3
+     */
+    private Element[][] initFrobeniusCoefficients(BigInteger q) {
+        Point u = (Point)this.targetField.newElement();
+        u.getX().setToZero();
+        u.getY().setToOne();
+
+        Element[][] coefficients = new Element[4][6];
+        for (int k = 1;k <= 3;++k) {
+            Element gamma = u.duplicate().pow(q.pow(k).subtract(BigInteger.ONE).divide(BigInteger.valueOf(6L)));
+            coefficients[k][0] = this.targetField.newOneElement().getImmutable();
+            for (int i = 1;i < 6;++i) {
+                coefficients[k][i] = coefficients[k][i - 1].duplicate().mul(gamma).getImmutable();
+            }
+        }
+        return coefficients;
+    }
+
+    @Override
+    public SM9Fq12Element newElement() {
+        return new SM9Fq12Element(this);
+    }
+
+    @Override
+    public BigInteger getOrder() {
+        return this.order;
+    }
+
+    @Override
+    public SM9Fq12Element getNqr() {
+        throw new IllegalStateException("Not Implemented yet!");
+    }
+
+    @Override
+    public int getLengthInBytes() {
+        return this.fixedLengthInBytes;
+    }
+
+    /**
+     * 就地乘以 u: (x + y*u) * u = beta*y + x*u
+     */
+    Element mulByXi(Element element) {
+        Point point = (Point)element;
+        Element x = point.getX().duplicate();
+        point.getX().set(point.getY()).mul(this.beta);
+        point.getY().set(x);
+        return element;
+    }
+
+    public Element[] getFrobeniusCoefficients(int k) {
+        return this.frobeniusCoefficients[k];
+    }
+
+}
@@ -116,6 +116,10 @@ public class SM9MasterKeyPair {
             return new MasterPublicKey(Q,isSignKey);
         }
 
+        public boolean isSignKey() {
+            return this.isSignKey;
+        }
+
         public byte[] toByteArray() {
             ByteArrayOutputStream bos = new ByteArrayOutputStream();
             if (this.isSignKey) {
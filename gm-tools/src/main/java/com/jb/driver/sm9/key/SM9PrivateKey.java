@@ -2,9 +2,12 @@ package com.jb.driver.sm9.key;
 
 import com.jb.driver.sm9.core.SM9Curve;
 import com.jb.driver.sm9.method.SM9Method;
+import it.unisa.dia.gas.jpbc.ElementPowPreProcessing;
 import it.unisa.dia.gas.plaf.jpbc.field.curve.CurveElement;
+import it.unisa.dia.gas.plaf.jpbc.field.curve.CurveElementCombPreProcessing;
 
 import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
 
 /**
  * @author zhaojb
@@ -13,6 +16,7 @@ import java.io.ByteArrayOutputStream;
 public class SM9PrivateKey {
     public final CurveElement d;
     private final byte hid;
+    private volatile ElementPowPreProcessing dPowPreProcessing;
 
     public SM9PrivateKey(CurveElement point,byte hid) {
         this.d = point;
@@ -32,6 +36,28 @@ public class SM9PrivateKey {
         return new SM9PrivateKey(d,hid);
     }
 
+    /**
+     * 为长期使用的私钥构建固定基梳状表, 之后 [k]d 查表计算
+     * 表约占用几十KB, 默认不构建
+     */
+    public SM9PrivateKey enablePowPreProcessing() {
+        if (this.dPowPreProcessing == null) {
+            this.dPowPreProcessing = new CurveElementCombPreProcessing(this.d);
+        }
+        return this;
+    }
+
+    /**
+     * [k]d
+     */
+    public CurveElement mul(BigInteger k) {
+        ElementPowPreProcessing powPreProcessing = this.dPowPreProcessing;
+        if (powPreProcessing != null) {
+            return (CurveElement)powPreProcessing.pow(k);
+        }
+        return this.d.duplicate().mul(k);
+    }
+
     public byte[] toByteArray() {
         ByteArrayOutputStream bos = new ByteArrayOutputStream();
         bos.write(this.hid);
@@ -1,10 +1,11 @@
 package com.jb.driver.sm9.method;
 
+import com.jb.driver.sm3.KdfStream;
+import com.jb.driver.sm3.SM3Engine;
 import com.jb.driver.sm9.SM9Hex;
 import com.jb.driver.sm9.core.SM9Curve;
 import it.unisa.dia.gas.jpbc.Element;
 import it.unisa.dia.gas.plaf.jpbc.field.curve.CurveElement;
-import org.bouncycastle.crypto.digests.SM3Digest;
 
 import java.io.ByteArrayOutputStream;
 import java.math.BigInteger;
@@ -78,12 +79,9 @@ public class SM9Method {
 //        digest.update(data, 0, data.length);
 //        digest.doFinal(hv, 0);
 
-        SM3Digest digest = new SM3Digest();
+        SM3Engine digest = SM3Engine.threadLocal();
         digest.update(data,0,data.length);
-        byte[] hash = new byte[digest.getDigestSize()];
-        digest.doFinal(hash,0);
-
-        return hash;
+        return digest.doFinal();
 //        return hv;
     }
 
@@ -95,32 +93,17 @@ public class SM9Method {
      * @return
      */
     public static byte[] bytesMac(byte[] key,byte[] data) {
-        SM3Digest digest = new SM3Digest();
-        byte[] hv = new byte[digest.getDigestSize()];
+        SM3Engine digest = SM3Engine.threadLocal();
         digest.update(data,0,data.length);
         digest.update(key,0,key.length);
-        digest.doFinal(hv,0);
-        return hv;
+        return digest.doFinal();
     }
 
+    /**
+     * 密钥派生函数, data只吸收一次, 各计数器块从吸收后的摘要状态复制
+     */
     public static byte[] bytesKdf(byte[] data,int keyByteLen) {
-
-        SM3Digest digest = new SM3Digest();
-        int groupNum =
-                (keyByteLen * 8 + (digest.getDigestSize() * 8 - 1)) / (digest.getDigestSize() * 8);
-        byte[] hv = new byte[digest.getDigestSize() * groupNum];
-
-        for (int ct = 1;ct <= groupNum;++ct) {
-            digest.reset();
-            digest.update(data,0,data.length);
-            digest.update((byte)(ct >> 24 & 255));
-            digest.update((byte)(ct >> 16 & 255));
-            digest.update((byte)(ct >> 8 & 255));
-            digest.update((byte)(ct & 255));
-            digest.doFinal(hv,(ct - 1) * digest.getDigestSize());
-        }
-
-        return Arrays.copyOfRange(hv,0,keyByteLen);
+        return new KdfStream(data).read(keyByteLen);
     }
 
     public static byte[] curveFieldG1ToBytes(Element e) {
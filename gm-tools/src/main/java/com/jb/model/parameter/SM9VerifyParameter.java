@@ -0,0 +1,59 @@
+package com.jb.model.parameter;
+
+import com.jb.model.result.SM9SignResult;
+
+/**
+ * @author zhaojb
+ * 批量验签的单条参数
+ */
+public class SM9VerifyParameter {
+
+    /**
+     * 签名者id
+     */
+    private String id;
+
+    /**
+     * 签名原文
+     */
+    private byte[] data;
+
+    /**
+     * 签名值
+     */
+    private SM9SignResult signature;
+
+
+    public SM9VerifyParameter() {
+    }
+
+    public SM9VerifyParameter(String id,byte[] data,SM9SignResult signature) {
+        this.id = id;
+        this.data = data;
+        this.signature = signature;
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public byte[] getData() {
+        return this.data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+
+    public SM9SignResult getSignature() {
+        return this.signature;
+    }
+
+    public void setSignature(SM9SignResult signature) {
+        this.signature = signature;
+    }
+}
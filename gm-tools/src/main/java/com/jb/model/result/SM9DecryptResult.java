@@ -0,0 +1,38 @@
+package com.jb.model.result;
+
+/**
+ * @author zhaojb
+ * 批量解密中单条密文的结果, 成功时为明文, 失败时为失败原因
+ */
+public final class SM9DecryptResult {
+    private final byte[] bytesM;
+    private final String error;
+
+    public SM9DecryptResult(byte[] bytesM,String error) {
+        this.bytesM = bytesM;
+        this.error = error;
+    }
+
+    public boolean isSuccess() {
+        return this.error == null;
+    }
+
+    /**
+     * 明文, 失败时为null
+     */
+    public byte[] getBytesM() {
+        return this.bytesM;
+    }
+
+    /**
+     * 失败原因, 如 C1 is not on G1 group, C3 verify failed, 成功时为null
+     */
+    public String getError() {
+        return this.error;
+    }
+
+    @Override
+    public String toString() {
+        return this.isSuccess()?"SM9 decrypt: success":"SM9 decrypt: " + this.error;
+    }
+}
@@ -0,0 +1,45 @@
+package com.jb.model.result;
+
+import com.jb.driver.sm9.method.SM9Method;
+
+/**
+ * @author zhaojb
+ * 密钥封装结果, 封装密文C1与封装的密钥K
+ */
+public class SM9EncapsulateResult {
+
+    /**
+     * 封装密文 C = [r]QB, 64字节
+     */
+    private byte[] bytesC1;
+
+    /**
+     * 封装的密钥 K = KDF(C||w||IDB, klen)
+     */
+    private byte[] bytesK;
+
+    public SM9EncapsulateResult(byte[] bytesC1,byte[] bytesK) {
+        this.bytesC1 = bytesC1;
+        this.bytesK = bytesK;
+    }
+
+    public byte[] getBytesC1() {
+        return this.bytesC1;
+    }
+
+    public byte[] getBytesK() {
+        return this.bytesK;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("SM9 encapsulate:");
+        sb.append('\n');
+        sb.append("C:");
+        sb.append('\n');
+        sb.append(SM9Method.toHexString(this.bytesC1));
+        sb.append('\n');
+        return sb.toString();
+    }
+}
@@ -8,22 +8,21 @@
 package com.jb.utils;
 
 
+import com.jb.driver.sm2.SM2BouncyCastle;
+import com.jb.driver.sm2.SM2Curve;
+import com.jb.driver.sm2.SM2EphemeralPool;
+import com.jb.driver.sm2.SM2PooledSigner;
+import com.jb.driver.sm2.SM2PrivateKeyHandle;
+import com.jb.driver.sm2.SM2PublicKeyHandle;
 import com.jb.model.enity.SM2KeyPair;
-import org.bouncycastle.asn1.gm.GMNamedCurves;
 import org.bouncycastle.asn1.gm.GMObjectIdentifiers;
-import org.bouncycastle.asn1.x9.X9ECParameters;
 import org.bouncycastle.crypto.InvalidCipherTextException;
 import org.bouncycastle.crypto.engines.SM2Engine;
-import org.bouncycastle.crypto.params.ECDomainParameters;
 import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
 import org.bouncycastle.crypto.params.ECPublicKeyParameters;
 import org.bouncycastle.crypto.params.ParametersWithRandom;
 import org.bouncycastle.jcajce.provider.asymmetric.ec.BCECPrivateKey;
 import org.bouncycastle.jcajce.provider.asymmetric.ec.BCECPublicKey;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
-import org.bouncycastle.jce.spec.ECParameterSpec;
-import org.bouncycastle.jce.spec.ECPrivateKeySpec;
-import org.bouncycastle.jce.spec.ECPublicKeySpec;
 import org.bouncycastle.math.ec.ECPoint;
 import org.bouncycastle.util.encoders.Hex;
 
@@ -32,18 +31,58 @@ import java.nio.charset.StandardCharsets;
 import java.security.*;
 import java.security.spec.ECGenParameterSpec;
 import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author zhaojb
  *         SM2国密工具类
  */
 public class SM2Utils {
-    private static final String DEFALUT_STD_NAME = "sm2p256v1";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * 签名临时密钥池, 默认关闭
+     */
+    private static volatile SM2EphemeralPool ephemeralPool;
 
     private SM2Utils() {
         throw new IllegalStateException("Utility class");
     }
 
+    /**
+     * 开启签名临时密钥池, 单条签名从池中取 (k, [k]G), 已开启时替换原有的池
+     *
+     * @param capacity 池容量
+     */
+    public static synchronized void enableEphemeralPool(int capacity) {
+        SM2EphemeralPool old = ephemeralPool;
+        ephemeralPool = new SM2EphemeralPool(capacity);
+        if (old != null) {
+            old.shutdown();
+        }
+    }
+
+    /**
+     * 关闭签名临时密钥池, 清零池中剩余条目
+     */
+    public static synchronized void disableEphemeralPool() {
+        SM2EphemeralPool old = ephemeralPool;
+        ephemeralPool = null;
+        if (old != null) {
+            old.shutdown();
+        }
+    }
+
+    /**
+     * 当前的签名临时密钥池, 可读取池深度等指标, 未开启时为null
+     */
+    public static SM2EphemeralPool getEphemeralPool() {
+        return ephemeralPool;
+    }
+
     /**
      * 验签
      * 
@@ -60,6 +99,14 @@ public class SM2Utils {
         return new SignVerify().builder().sign(prvKey, sign);
     }
 
+    /**
+     * 签名, 使用已解析的私钥
+     */
+    public static String sign(SM2PrivateKeyHandle prvKey, String sign)
+            throws NoSuchAlgorithmException, SignatureException, InvalidKeyException {
+        return new SignVerify().builder().sign(prvKey, sign);
+    }
+
     /**
      * 验签
      * 
@@ -74,27 +121,24 @@ public class SM2Utils {
         return new SignVerify().builder().verify(pubKey, sign, signResult);
     }
 
+    /**
+     * 验签, 使用已解析的公钥
+     */
+    public static Boolean verify(SM2PublicKeyHandle pubKey, String sign, String signResult)
+            throws NoSuchAlgorithmException, SignatureException, InvalidKeyException {
+        return new SignVerify().builder().verify(pubKey, sign, signResult);
+    }
+
     /**
      * 加载HEX密钥对字符串
+     * Provider与曲线参数取进程内共享的SM2Curve, HEX密钥按字符串缓存已解析的句柄
      */
     public static class SignVerify {
-        private BouncyCastleProvider provider;
-        private KeyFactory keyFactory;
-        private ECParameterSpec ecParameterSpec;
-        private X9ECParameters parameters;
+        private Provider provider;
 
         public SignVerify builder() throws NoSuchAlgorithmException {
 
-            this.provider = new BouncyCastleProvider();
-
-            // 获取SM2相关参数
-            this.parameters = GMNamedCurves.getByName(DEFALUT_STD_NAME);
-
-            // 椭圆曲线参数规格
-            this.ecParameterSpec = new ECParameterSpec(parameters.getCurve(), parameters.getG(), parameters.getN(),
-                    parameters.getH());
-            // 获取椭圆曲线KEY生成器
-            this.keyFactory = KeyFactory.getInstance("EC", provider);
+            this.provider = SM2Curve.getProvider();
 
             return this;
         }
@@ -110,21 +154,31 @@ public class SM2Utils {
          */
         public String sign(String prvKey, String sign)
                 throws InvalidKeyException, NoSuchAlgorithmException, SignatureException, InvalidKeySpecException {
+            SM2PrivateKeyHandle privateKey;
+            try {
+                privateKey = SM2PrivateKeyHandle.fromHex(prvKey);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidKeySpecException(e);
+            }
+            return sign(privateKey, sign);
+        }
+
+        public String sign(SM2PrivateKeyHandle prvKey, String sign)
+                throws InvalidKeyException, NoSuchAlgorithmException, SignatureException {
             byte[] bytes = sign.getBytes(StandardCharsets.UTF_8);
             byte[] signBytes;
 
-            // 将私钥HEX字符串转换为X值
-            BigInteger bigInteger = new BigInteger(prvKey, 16);
-
-            // 将X值转为私钥KEY对象
-            BCECPrivateKey privateKey = (BCECPrivateKey) keyFactory
-                    .generatePrivate(new ECPrivateKeySpec(bigInteger, ecParameterSpec));
+            SM2EphemeralPool pool = ephemeralPool;
+            if (pool != null) {
+                signBytes = SM2PooledSigner.sign(prvKey, bytes, pool);
+                return new String(Hex.encode(signBytes), StandardCharsets.UTF_8);
+            }
 
             // 创建签名对象
             Signature signature = Signature.getInstance(GMObjectIdentifiers.sm2sign_with_sm3.toString(), provider);
 
             // 初始化为签名状态
-            signature.initSign(privateKey);
+            signature.initSign(prvKey.getPrivateKey());
 
             // 传入签名字节
             signature.update(bytes);
@@ -145,20 +199,24 @@ public class SM2Utils {
          */
         public Boolean verify(String pubKey, String sign, String signResult)
                 throws NoSuchAlgorithmException, InvalidKeyException, SignatureException, InvalidKeySpecException {
-            byte[] bytes = sign.getBytes(StandardCharsets.UTF_8);
-
-            // 将公钥HEX字符串转换为椭圆曲线对应的点
-            ECPoint ecPoint = parameters.getCurve().decodePoint(Hex.decode(pubKey));
+            SM2PublicKeyHandle publicKey;
+            try {
+                publicKey = SM2PublicKeyHandle.fromHex(pubKey);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidKeySpecException(e);
+            }
+            return verify(publicKey, sign, signResult);
+        }
 
-            // 将椭圆曲线点转为公钥KEY对象
-            BCECPublicKey publicKey = (BCECPublicKey) keyFactory
-                    .generatePublic(new ECPublicKeySpec(ecPoint, ecParameterSpec));
+        public Boolean verify(SM2PublicKeyHandle pubKey, String sign, String signResult)
+                throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+            byte[] bytes = sign.getBytes(StandardCharsets.UTF_8);
 
             // 创建签名对象
             Signature signature = Signature.getInstance(GMObjectIdentifiers.sm2sign_with_sm3.toString(), provider);
 
             // 初始化为验签状态
-            signature.initVerify(publicKey);
+            signature.initVerify(pubKey.getPublicKey());
 
             // 传入签名字节
             signature.update(bytes);
@@ -175,14 +233,14 @@ public class SM2Utils {
      * @return
      */
     public static SM2KeyPair generateKeyPair() throws NoSuchAlgorithmException, InvalidAlgorithmParameterException {
-        BouncyCastleProvider provider = new BouncyCastleProvider();
+        Provider provider = SM2Curve.getProvider();
 
         SM2KeyPair sm2KeyPair = new SM2KeyPair();
 
         /**
          * 获取椭圆曲线相关生成参数规格
          */
-        ECGenParameterSpec genParameterSpec = new ECGenParameterSpec(DEFALUT_STD_NAME);
+        ECGenParameterSpec genParameterSpec = new ECGenParameterSpec(SM2Curve.DEFAULT_STD_NAME);
 
         KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC", provider);
         /**
@@ -221,33 +279,27 @@ public class SM2Utils {
      */
     public static String sm2Encrypt(String plainText, String pubKey)
             throws NoSuchAlgorithmException, InvalidKeySpecException, InvalidCipherTextException {
-
-        BouncyCastleProvider provider = new BouncyCastleProvider();
-        /**
-         * 获取SM2相关参数
-         */
-        X9ECParameters parameters = GMNamedCurves.getByName(DEFALUT_STD_NAME);
-        /**
-         * 椭圆曲线参数规格
-         */
-        ECParameterSpec ecParameterSpec = new ECParameterSpec(parameters.getCurve(), parameters.getG(),
-                parameters.getN(), parameters.getH());
-        /**
-         * 将公钥HEX字符串转换为椭圆曲线对应的点
-         */
-        ECPoint ecPoint = parameters.getCurve().decodePoint(Hex.decode(pubKey));
-        /**
-         * 获取椭圆曲线KEY生成器
-         */
-        KeyFactory keyFactory = KeyFactory.getInstance("EC", provider);
         /**
-         * 将椭圆曲线点转为公钥KEY对象
+         * 将公钥HEX字符串转换为已解析的公钥, 按字符串缓存
          */
-        BCECPublicKey bcecPublicKey = (BCECPublicKey) keyFactory
-                .generatePublic(new ECPublicKeySpec(ecPoint, ecParameterSpec));
+        SM2PublicKeyHandle publicKey;
+        try {
+            publicKey = SM2PublicKeyHandle.fromHex(pubKey);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidKeySpecException(e);
+        }
+
+        return sm2Encrypt(plainText, publicKey);
+
+    }
 
-        return Hex.toHexString(encrypt(bcecPublicKey, plainText.getBytes(StandardCharsets.UTF_8)));
+    /**
+     * SM2 加密, 使用已解析的公钥
+     */
+    public static String sm2Encrypt(String plainText, SM2PublicKeyHandle pubKey) throws InvalidCipherTextException {
 
+        return Hex.toHexString(encrypt(SM2Engine.Mode.C1C3C2, pubKey.getPublicKeyParameters(),
+                plainText.getBytes(StandardCharsets.UTF_8)));
     }
 
     /**
@@ -259,46 +311,146 @@ public class SM2Utils {
      */
     public static String sm2Decrypt(String cipherText, String privateKey)
             throws NoSuchAlgorithmException, InvalidKeySpecException, InvalidCipherTextException {
-        BouncyCastleProvider provider = new BouncyCastleProvider();
-        /**
-         * 获取SM2相关参数
-         */
-        X9ECParameters parameters = GMNamedCurves.getByName(DEFALUT_STD_NAME);
         /**
-         * 椭圆曲线参数规格
+         * 将私钥HEX字符串转换为已解析的私钥, 按字符串缓存
          */
-        ECParameterSpec ecParameterSpec = new ECParameterSpec(parameters.getCurve(), parameters.getG(),
-                parameters.getN(), parameters.getH());
-        /**
-         * 将私钥HEX字符串转换为X值
-         */
-        BigInteger bigInteger = new BigInteger(privateKey, 16);
-        /**
-         * 获取椭圆曲线KEY生成器
-         */
-        KeyFactory keyFactory = KeyFactory.getInstance("EC", provider);
-        /**
-         * 将X值转为私钥KEY对象
-         */
-        BCECPrivateKey bcecPrivateKey = (BCECPrivateKey) keyFactory
-                .generatePrivate(new ECPrivateKeySpec(bigInteger, ecParameterSpec));
+        SM2PrivateKeyHandle prvKey;
+        try {
+            prvKey = SM2PrivateKeyHandle.fromHex(privateKey);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidKeySpecException(e);
+        }
 
-        return new String(decrypt(bcecPrivateKey, Hex.decode(cipherText)), StandardCharsets.UTF_8);
+        return sm2Decrypt(cipherText, prvKey);
     }
 
     /**
-     * @param pubKey  公钥
-     * @param srcData 原文
-     * @return 默认输出C1C3C2顺序的密文。C1为65字节第1字节为压缩标识，这里固定为0x04，后面64字节为xy分量各32字节。C3为32字节。C2长度与原文一致。
+     * SM2 解密, 使用已解析的私钥
      */
-    private static byte[] encrypt(BCECPublicKey pubKey, byte[] srcData) throws InvalidCipherTextException {
-        ECParameterSpec parameterSpec = pubKey.getParameters();
-        ECDomainParameters domainParameters = new ECDomainParameters(parameterSpec.getCurve(), parameterSpec.getG(),
-                parameterSpec.getN(), parameterSpec.getH());
+    public static String sm2Decrypt(String cipherText, SM2PrivateKeyHandle privateKey)
+            throws InvalidCipherTextException {
+
+        return new String(decrypt(SM2Engine.Mode.C1C3C2, privateKey.getPrivateKeyParameters(),
+                Hex.decode(cipherText)), StandardCharsets.UTF_8);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+    // 字节数组与批量接口
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * 签名, 原文与签名值均为字节数组, 签名值为DER编码
+     */
+    public static byte[] sign(SM2PrivateKeyHandle prvKey, byte[] data) throws GeneralSecurityException {
+        SM2EphemeralPool pool = ephemeralPool;
+        if (pool != null) {
+            return SM2PooledSigner.sign(prvKey, data, pool);
+        }
+        return SM2BouncyCastle.sign(prvKey, data);
+    }
+
+    /**
+     * 验签, 原文与签名值均为字节数组
+     */
+    public static boolean verify(SM2PublicKeyHandle pubKey, byte[] data, byte[] signResult)
+            throws GeneralSecurityException {
+        return SM2BouncyCastle.verify(pubKey, data, signResult);
+    }
+
+    /**
+     * SM2 加密, 输出C1C3C2顺序的密文字节
+     */
+    public static byte[] sm2Encrypt(SM2PublicKeyHandle pubKey, byte[] plainText) throws InvalidCipherTextException {
+        return SM2BouncyCastle.encrypt(pubKey, plainText);
+    }
+
+    /**
+     * SM2 解密, 输入C1C3C2顺序的密文字节
+     */
+    public static byte[] sm2Decrypt(SM2PrivateKeyHandle privateKey, byte[] cipherText)
+            throws InvalidCipherTextException {
+        return SM2BouncyCastle.decrypt(privateKey, cipherText);
+    }
+
+    /**
+     * 批量签名, 返回HEX签名值, 与输入顺序一致
+     */
+    public static List<String> signBatch(String prvKey, List<String> signs) {
+        return signBatch(prvKey, signs, ForkJoinPool.commonPool());
+    }
+
+    public static List<String> signBatch(String prvKey, List<String> signs, ExecutorService executorService) {
+        List<byte[]> results = SM2BouncyCastle.signBatch(SM2PrivateKeyHandle.fromHex(prvKey), toBytes(signs),
+                executorService);
+        return toHex(results);
+    }
+
+    /**
+     * 批量验签, 与输入顺序一致
+     */
+    public static List<Boolean> verifyBatch(String pubKey, List<String> signs, List<String> signResults) {
+        return verifyBatch(pubKey, signs, signResults, ForkJoinPool.commonPool());
+    }
+
+    public static List<Boolean> verifyBatch(String pubKey, List<String> signs, List<String> signResults,
+            ExecutorService executorService) {
+        List<byte[]> signBytes = new ArrayList<>(signResults.size());
+        for (String signResult : signResults) {
+            signBytes.add(Hex.decode(signResult));
+        }
+        return SM2BouncyCastle.verifyBatch(SM2PublicKeyHandle.fromHex(pubKey), toBytes(signs), signBytes,
+                executorService);
+    }
+
+    /**
+     * 批量加密, 返回HEX密文, 与输入顺序一致
+     */
+    public static List<String> sm2EncryptBatch(List<String> plainTexts, String pubKey) {
+        return sm2EncryptBatch(plainTexts, pubKey, ForkJoinPool.commonPool());
+    }
+
+    public static List<String> sm2EncryptBatch(List<String> plainTexts, String pubKey,
+            ExecutorService executorService) {
+        return toHex(SM2BouncyCastle.encryptBatch(SM2PublicKeyHandle.fromHex(pubKey), toBytes(plainTexts),
+                executorService));
+    }
+
+    /**
+     * 批量解密, 与输入顺序一致, 无法解密的密文对应结果为null
+     */
+    public static List<String> sm2DecryptBatch(List<String> cipherTexts, String privateKey) {
+        return sm2DecryptBatch(cipherTexts, privateKey, ForkJoinPool.commonPool());
+    }
 
-        ECPublicKeyParameters pubKeyParameters = new ECPublicKeyParameters(pubKey.getQ(), domainParameters);
+    public static List<String> sm2DecryptBatch(List<String> cipherTexts, String privateKey,
+            ExecutorService executorService) {
+        List<byte[]> ciphers = new ArrayList<>(cipherTexts.size());
+        for (String cipherText : cipherTexts) {
+            ciphers.add(Hex.decode(cipherText));
+        }
+        List<byte[]> plains = SM2BouncyCastle.decryptBatch(SM2PrivateKeyHandle.fromHex(privateKey), ciphers,
+                executorService);
+        List<String> results = new ArrayList<>(plains.size());
+        for (byte[] plain : plains) {
+            results.add(plain == null ? null : new String(plain, StandardCharsets.UTF_8));
+        }
+        return results;
+    }
+
+    private static List<byte[]> toBytes(List<String> texts) {
+        List<byte[]> bytes = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            bytes.add(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes;
+    }
 
-        return encrypt(SM2Engine.Mode.C1C3C2, pubKeyParameters, srcData);
+    private static List<String> toHex(List<byte[]> bytes) {
+        List<String> hex = new ArrayList<>(bytes.size());
+        for (byte[] item : bytes) {
+            hex.add(Hex.toHexString(item));
+        }
+        return hex;
     }
 
     /**
@@ -312,26 +464,11 @@ public class SM2Utils {
     private static byte[] encrypt(SM2Engine.Mode mode, ECPublicKeyParameters pubKeyParameters, byte[] srcData)
             throws InvalidCipherTextException {
         SM2Engine engine = new SM2Engine(mode);
-        ParametersWithRandom pwr = new ParametersWithRandom(pubKeyParameters, new SecureRandom());
+        ParametersWithRandom pwr = new ParametersWithRandom(pubKeyParameters, RANDOM);
         engine.init(true, pwr);
         return engine.processBlock(srcData, 0, srcData.length);
     }
 
-    /**
-     * @param priKey    私钥
-     * @param sm2Cipher 默认输入C1C3C2顺序的密文。C1为65字节第1字节为压缩标识，这里固定为0x04，后面64字节为xy分量各32字节。C3为32字节。C2长度与原文一致。
-     * @return 原文。SM2解密返回了数据则一定是原文，因为SM2自带校验，如果密文被篡改或者密钥对不上，都是会直接报异常的。
-     */
-    private static byte[] decrypt(BCECPrivateKey priKey, byte[] sm2Cipher) throws InvalidCipherTextException {
-
-        ECParameterSpec parameterSpec = priKey.getParameters();
-        ECDomainParameters domainParameters = new ECDomainParameters(parameterSpec.getCurve(), parameterSpec.getG(),
-                parameterSpec.getN(), parameterSpec.getH());
-        ECPrivateKeyParameters priKeyParameters = new ECPrivateKeyParameters(priKey.getD(), domainParameters);
-
-        return decrypt(SM2Engine.Mode.C1C3C2, priKeyParameters, sm2Cipher);
-    }
-
     /**
      * @param priKeyParameters 私钥
      * @param sm2Cipher        默认输入C1C3C2顺序的密文。C1为65字节第1字节为压缩标识，这里固定为0x04，后面64字节为xy分量各32字节。C3为32字节。C2长度与原文一致。
@@ -7,18 +7,40 @@
 */
 package com.jb.utils;
 
-import org.bouncycastle.crypto.digests.SM3Digest;
+import com.jb.driver.sm3.SM3Engine;
+import com.jb.driver.sm3.SM3TreeHash;
+import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.util.encoders.Hex;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.Security;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author zhaojb
  *         SM3 util
  */
 public class SM3Utils {
+    /**
+     * 流式读取与直接缓冲区拷贝使用的缓冲区大小
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 文件内存映射窗口大小, 单个MappedByteBuffer不能超过2G
+     */
+    private static final long MAP_WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
     private SM3Utils() {
         throw new IllegalStateException("Utility class");
     }
@@ -34,11 +56,157 @@ public class SM3Utils {
      * @return
      */
     public static String hash(String srcData) {
-        byte[] scrDataByte = srcData.getBytes(StandardCharsets.UTF_8);
-        SM3Digest digest = new SM3Digest();
-        digest.update(scrDataByte, 0, scrDataByte.length);
-        byte[] hash = new byte[digest.getDigestSize()];
-        digest.doFinal(hash, 0);
+        return hashHex(srcData.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * SM3 摘要, 输出32字节
+     */
+    public static byte[] hash(byte[] data) {
+        SM3Engine digest = digest();
+        digest.update(data, 0, data.length);
+        return doFinal(digest);
+    }
+
+    /**
+     * SM3 摘要, 读取缓冲区 position 到 limit 之间的数据, 读取后 position 等于 limit
+     */
+    public static byte[] hash(ByteBuffer buffer) {
+        SM3Engine digest = digest();
+        update(digest, buffer);
+        return doFinal(digest);
+    }
+
+    /**
+     * SM3 摘要, 读取输入流直至结束, 不关闭输入流
+     * 读取期间会调用使用方的流, 流中可能再次计算SM3, 因此不使用线程复用的摘要对象与缓冲区
+     */
+    public static byte[] hash(InputStream in) throws IOException {
+        SM3Engine digest = new SM3Engine();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int len;
+        while ((len = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, len);
+        }
+        return doFinal(digest);
+    }
+
+    /**
+     * SM3 摘要, 按窗口内存映射读取通道当前位置到文件末尾的数据, 不改变通道位置, 不关闭通道
+     */
+    public static byte[] hash(FileChannel channel) throws IOException {
+        return hash(channel, channel.position(), channel.size() - channel.position());
+    }
+
+    /**
+     * SM3 摘要, 按窗口内存映射读取文件 [offset, offset + length) 区间
+     */
+    public static byte[] hash(FileChannel channel, long offset, long length) throws IOException {
+        SM3Engine digest = digest();
+        update(digest, channel, offset, length);
+        return doFinal(digest);
+    }
+
+    /**
+     * SM3 摘要, 文件内容
+     */
+    public static byte[] hash(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return hash(channel, 0, channel.size());
+        }
+    }
+
+    public static String hashHex(byte[] data) {
+        return toHex(hash(data));
+    }
+
+    public static String hashHex(ByteBuffer buffer) {
+        return toHex(hash(buffer));
+    }
+
+    public static String hashHex(InputStream in) throws IOException {
+        return toHex(hash(in));
+    }
+
+    public static String hashHex(FileChannel channel) throws IOException {
+        return toHex(hash(channel));
+    }
+
+    public static String hashHex(Path path) throws IOException {
+        return toHex(hash(path));
+    }
+
+    /**
+     * 树模式摘要, 块大小1M, 使用公共ForkJoinPool, 结果与标准SM3不同, 格式见 {@link SM3TreeHash}
+     */
+    public static byte[] hashTree(Path path) throws IOException {
+        return hashTree(path, SM3TreeHash.DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 树模式摘要, 块大小与线程池可配置, 相同的块大小得到相同的结果
+     */
+    public static byte[] hashTree(Path path, int chunkSize, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return SM3TreeHash.hash(channel, chunkSize, pool);
+        }
+    }
+
+    public static String hashTreeHex(Path path) throws IOException {
+        return toHex(hashTree(path));
+    }
+
+    public static String hashTreeHex(Path path, int chunkSize, ForkJoinPool pool) throws IOException {
+        return toHex(hashTree(path, chunkSize, pool));
+    }
+
+    /**
+     * 增量摘要, 把缓冲区 position 到 limit 之间的数据写入摘要, 读取后 position 等于 limit
+     * SM3Engine 直接读取缓冲区; 其他摘要读取堆缓冲区的底层数组, 直接缓冲区经线程内缓冲区分块拷贝
+     */
+    public static void update(Digest digest, ByteBuffer buffer) {
+        if (digest instanceof SM3Engine) {
+            ((SM3Engine) digest).update(buffer);
+            return;
+        }
+        if (buffer.hasArray()) {
+            int len = buffer.remaining();
+            digest.update(buffer.array(), buffer.arrayOffset() + buffer.position(), len);
+            buffer.position(buffer.limit());
+            return;
+        }
+        byte[] chunk = BUFFER.get();
+        while (buffer.hasRemaining()) {
+            int len = Math.min(chunk.length, buffer.remaining());
+            buffer.get(chunk, 0, len);
+            digest.update(chunk, 0, len);
+        }
+    }
+
+    /**
+     * 增量摘要, 按窗口内存映射读取文件 [offset, offset + length) 区间写入摘要
+     */
+    public static void update(Digest digest, FileChannel channel, long offset, long length) throws IOException {
+        long end = offset + length;
+        for (long position = offset; position < end; position += MAP_WINDOW_SIZE) {
+            long size = Math.min(MAP_WINDOW_SIZE, end - position);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            update(digest, mapped);
+        }
+    }
+
+    /**
+     * 当前线程复用的摘要对象, 已重置
+     */
+    private static SM3Engine digest() {
+        return SM3Engine.threadLocal();
+    }
+
+    private static byte[] doFinal(SM3Engine digest) {
+        return digest.doFinal();
+    }
+
+    private static String toHex(byte[] hash) {
         return new String(Hex.encode(hash), StandardCharsets.UTF_8);
     }
 }
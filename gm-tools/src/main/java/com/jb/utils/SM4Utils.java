@@ -7,15 +7,28 @@
  */
 package com.jb.utils;
 
+import com.jb.driver.sm4.SM4ParallelCtr;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.pqc.math.linearalgebra.ByteUtils;
 
 import javax.crypto.*;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.*;
+import java.security.spec.AlgorithmParameterSpec;
 import java.util.Arrays;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author zhaojb
@@ -26,12 +39,46 @@ public class SM4Utils {
 
     public static final String ALGORIGTHM_NAME = "SM4";
     public static final String ALGORITHM_NAME_ECB_PADDING = "SM4/ECB/PKCS7Padding";
+    public static final String ALGORITHM_NAME_CBC_PADDING = "SM4/CBC/PKCS7Padding";
+    public static final String ALGORITHM_NAME_CTR = "SM4/CTR/NoPadding";
+    public static final String ALGORITHM_NAME_GCM = "SM4/GCM/NoPadding";
     public static final int DEFAULT_KEY_SIZE = 128;
 
+    /**
+     * 分组长度, 也是CBC/CTR的IV长度
+     */
+    public static final int BLOCK_SIZE = 16;
+
+    /**
+     * GCM推荐的随机数长度
+     */
+    public static final int GCM_NONCE_LENGTH = 12;
+
+    /**
+     * GCM认证标签长度, 附在密文末尾
+     */
+    public static final int GCM_TAG_LENGTH = 16;
+
+    /**
+     * 流式接口每次读取的长度
+     */
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
     static {
         Security.addProvider(new BouncyCastleProvider());
     }
 
+    /*
+     * 每个线程每种模式复用一个Cipher, 每次调用用init重新设置密钥与IV
+     * 只用于字节数组与ByteBuffer接口, 这些接口在使用Cipher期间不会调用外部代码
+     */
+    private static final ThreadLocal<Cipher> ECB_CIPHER = cipherCache(ALGORITHM_NAME_ECB_PADDING);
+    private static final ThreadLocal<Cipher> CBC_CIPHER = cipherCache(ALGORITHM_NAME_CBC_PADDING);
+    private static final ThreadLocal<Cipher> CTR_CIPHER = cipherCache(ALGORITHM_NAME_CTR);
+    private static final ThreadLocal<Cipher> GCM_CIPHER = cipherCache(ALGORITHM_NAME_GCM);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     private SM4Utils() {
         throw new IllegalStateException("Utility class");
     }
@@ -73,7 +120,8 @@ public class SM4Utils {
     }
 
     private static Cipher generateEcbCipher(String algorithmName,int mode,byte[] key) throws InvalidKeyException, NoSuchPaddingException, NoSuchAlgorithmException, NoSuchProviderException {
-        Cipher cipher = Cipher.getInstance(algorithmName,BouncyCastleProvider.PROVIDER_NAME);
+        Cipher cipher = ALGORITHM_NAME_ECB_PADDING.equals(algorithmName) ? ECB_CIPHER.get()
+                : Cipher.getInstance(algorithmName,BouncyCastleProvider.PROVIDER_NAME);
         Key sm4Key = new SecretKeySpec(key,ALGORIGTHM_NAME);
         cipher.init(mode,sm4Key);
         return cipher;
@@ -129,4 +177,241 @@ public class SM4Utils {
         return flag;
     }
 
+    ////////////////////////////////////////////////////////////////////////////////
+    // CBC / CTR / GCM
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * 随机生成16字节IV, 用于CBC/CTR, 同一密钥下每条消息使用不同的IV
+     */
+    public static byte[] generateIv() {
+        byte[] iv = new byte[BLOCK_SIZE];
+        RANDOM.nextBytes(iv);
+        return iv;
+    }
+
+    /**
+     * 随机生成12字节GCM随机数, 同一密钥下不可重复
+     */
+    public static byte[] generateGcmNonce() {
+        byte[] nonce = new byte[GCM_NONCE_LENGTH];
+        RANDOM.nextBytes(nonce);
+        return nonce;
+    }
+
+    /**
+     * CBC加密, PKCS7填充
+     */
+    public static byte[] encryptCbc(byte[] key,byte[] iv,byte[] data) throws GeneralSecurityException {
+        return init(CBC_CIPHER,Cipher.ENCRYPT_MODE,key,new IvParameterSpec(iv),null).doFinal(data);
+    }
+
+    public static byte[] decryptCbc(byte[] key,byte[] iv,byte[] cipherText) throws GeneralSecurityException {
+        return init(CBC_CIPHER,Cipher.DECRYPT_MODE,key,new IvParameterSpec(iv),null).doFinal(cipherText);
+    }
+
+    /**
+     * CTR加密, 无填充, 密文与明文等长, iv为初始计数器块
+     */
+    public static byte[] encryptCtr(byte[] key,byte[] iv,byte[] data) throws GeneralSecurityException {
+        return init(CTR_CIPHER,Cipher.ENCRYPT_MODE,key,new IvParameterSpec(iv),null).doFinal(data);
+    }
+
+    public static byte[] decryptCtr(byte[] key,byte[] iv,byte[] cipherText) throws GeneralSecurityException {
+        return init(CTR_CIPHER,Cipher.DECRYPT_MODE,key,new IvParameterSpec(iv),null).doFinal(cipherText);
+    }
+
+    /**
+     * GCM认证加密, 输出 密文 || 16字节标签
+     *
+     * @param aad 附加认证数据, 可为null
+     */
+    public static byte[] encryptGcm(byte[] key,byte[] nonce,byte[] aad,byte[] data) throws GeneralSecurityException {
+        return init(GCM_CIPHER,Cipher.ENCRYPT_MODE,key,gcmSpec(nonce),aad).doFinal(data);
+    }
+
+    /**
+     * GCM认证解密, 标签校验失败抛出 AEADBadTagException
+     */
+    public static byte[] decryptGcm(byte[] key,byte[] nonce,byte[] aad,byte[] cipherText) throws GeneralSecurityException {
+        return init(GCM_CIPHER,Cipher.DECRYPT_MODE,key,gcmSpec(nonce),aad).doFinal(cipherText);
+    }
+
+    /**
+     * CBC加密, 读取 in 的 position 到 limit, 写入 out, 返回写入的字节数
+     */
+    public static int encryptCbc(byte[] key,byte[] iv,ByteBuffer in,ByteBuffer out) throws GeneralSecurityException {
+        return init(CBC_CIPHER,Cipher.ENCRYPT_MODE,key,new IvParameterSpec(iv),null).doFinal(in,out);
+    }
+
+    public static int decryptCbc(byte[] key,byte[] iv,ByteBuffer in,ByteBuffer out) throws GeneralSecurityException {
+        return init(CBC_CIPHER,Cipher.DECRYPT_MODE,key,new IvParameterSpec(iv),null).doFinal(in,out);
+    }
+
+    public static int encryptCtr(byte[] key,byte[] iv,ByteBuffer in,ByteBuffer out) throws GeneralSecurityException {
+        return init(CTR_CIPHER,Cipher.ENCRYPT_MODE,key,new IvParameterSpec(iv),null).doFinal(in,out);
+    }
+
+    public static int decryptCtr(byte[] key,byte[] iv,ByteBuffer in,ByteBuffer out) throws GeneralSecurityException {
+        return init(CTR_CIPHER,Cipher.DECRYPT_MODE,key,new IvParameterSpec(iv),null).doFinal(in,out);
+    }
+
+    public static int encryptGcm(byte[] key,byte[] nonce,byte[] aad,ByteBuffer in,ByteBuffer out) throws GeneralSecurityException {
+        return init(GCM_CIPHER,Cipher.ENCRYPT_MODE,key,gcmSpec(nonce),aad).doFinal(in,out);
+    }
+
+    public static int decryptGcm(byte[] key,byte[] nonce,byte[] aad,ByteBuffer in,ByteBuffer out) throws GeneralSecurityException {
+        return init(GCM_CIPHER,Cipher.DECRYPT_MODE,key,gcmSpec(nonce),aad).doFinal(in,out);
+    }
+
+    /**
+     * CBC流式加密, 读取 in 直至结束写入 out, 不关闭流, 返回写入的字节数
+     * 读写期间会调用使用方的流, 流中可能再次调用本类, 因此每次新建Cipher, 不使用线程复用的Cipher
+     */
+    public static long encryptCbc(byte[] key,byte[] iv,InputStream in,OutputStream out) throws IOException, GeneralSecurityException {
+        return transfer(init(streamCipher(ALGORITHM_NAME_CBC_PADDING),Cipher.ENCRYPT_MODE,key,
+                new IvParameterSpec(iv),null),in,out);
+    }
+
+    public static long decryptCbc(byte[] key,byte[] iv,InputStream in,OutputStream out) throws IOException, GeneralSecurityException {
+        return transfer(init(streamCipher(ALGORITHM_NAME_CBC_PADDING),Cipher.DECRYPT_MODE,key,
+                new IvParameterSpec(iv),null),in,out);
+    }
+
+    public static long encryptCtr(byte[] key,byte[] iv,InputStream in,OutputStream out) throws IOException, GeneralSecurityException {
+        return transfer(init(streamCipher(ALGORITHM_NAME_CTR),Cipher.ENCRYPT_MODE,key,
+                new IvParameterSpec(iv),null),in,out);
+    }
+
+    public static long decryptCtr(byte[] key,byte[] iv,InputStream in,OutputStream out) throws IOException, GeneralSecurityException {
+        return transfer(init(streamCipher(ALGORITHM_NAME_CTR),Cipher.DECRYPT_MODE,key,
+                new IvParameterSpec(iv),null),in,out);
+    }
+
+    /**
+     * 新建并初始化的CTR Cipher, 供调用方自行分段 update, 计数器在各段间连续
+     */
+    public static Cipher ctrCipher(int mode,byte[] key,byte[] iv) throws GeneralSecurityException {
+        return init(streamCipher(ALGORITHM_NAME_CTR),mode,key,new IvParameterSpec(iv),null);
+    }
+
+    /**
+     * GCM流式加密, 标签写在输出末尾
+     */
+    public static long encryptGcm(byte[] key,byte[] nonce,byte[] aad,InputStream in,OutputStream out) throws IOException, GeneralSecurityException {
+        return transfer(init(streamCipher(ALGORITHM_NAME_GCM),Cipher.ENCRYPT_MODE,key,
+                gcmSpec(nonce),aad),in,out);
+    }
+
+    /**
+     * GCM流式解密, 标签在输入末尾, 校验失败抛出 AEADBadTagException, 此时已写出的数据不可信, 须丢弃
+     */
+    public static long decryptGcm(byte[] key,byte[] nonce,byte[] aad,InputStream in,OutputStream out) throws IOException, GeneralSecurityException {
+        return transfer(init(streamCipher(ALGORITHM_NAME_GCM),Cipher.DECRYPT_MODE,key,
+                gcmSpec(nonce),aad),in,out);
+    }
+
+    /**
+     * 并行CTR加密, 结果与 {@link #encryptCtr(byte[],byte[],ByteBuffer,ByteBuffer)} 相同, 使用公共ForkJoinPool
+     */
+    public static void encryptCtrParallel(byte[] key,byte[] iv,ByteBuffer in,ByteBuffer out) {
+        SM4ParallelCtr.crypt(key,iv,in,out,ForkJoinPool.commonPool());
+    }
+
+    public static void encryptCtrParallel(byte[] key,byte[] iv,ByteBuffer in,ByteBuffer out,
+            ExecutorService executorService) {
+        SM4ParallelCtr.crypt(key,iv,in,out,executorService);
+    }
+
+    public static void decryptCtrParallel(byte[] key,byte[] iv,ByteBuffer in,ByteBuffer out) {
+        SM4ParallelCtr.crypt(key,iv,in,out,ForkJoinPool.commonPool());
+    }
+
+    public static void decryptCtrParallel(byte[] key,byte[] iv,ByteBuffer in,ByteBuffer out,
+            ExecutorService executorService) {
+        SM4ParallelCtr.crypt(key,iv,in,out,executorService);
+    }
+
+    /**
+     * 并行CTR加密文件, 输入输出均内存映射, 输出文件不存在时创建, 已存在时覆盖
+     */
+    public static void encryptCtrParallel(byte[] key,byte[] iv,Path in,Path out) throws IOException {
+        cryptCtrParallel(key,iv,in,out,ForkJoinPool.commonPool());
+    }
+
+    public static void encryptCtrParallel(byte[] key,byte[] iv,Path in,Path out,
+            ExecutorService executorService) throws IOException {
+        cryptCtrParallel(key,iv,in,out,executorService);
+    }
+
+    public static void decryptCtrParallel(byte[] key,byte[] iv,Path in,Path out) throws IOException {
+        cryptCtrParallel(key,iv,in,out,ForkJoinPool.commonPool());
+    }
+
+    public static void decryptCtrParallel(byte[] key,byte[] iv,Path in,Path out,
+            ExecutorService executorService) throws IOException {
+        cryptCtrParallel(key,iv,in,out,executorService);
+    }
+
+    private static void cryptCtrParallel(byte[] key,byte[] iv,Path in,Path out,
+            ExecutorService executorService) throws IOException {
+        try (FileChannel source = FileChannel.open(in,StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(out,StandardOpenOption.READ,StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE,StandardOpenOption.TRUNCATE_EXISTING)) {
+            SM4ParallelCtr.crypt(key,iv,source,target,executorService);
+        }
+    }
+
+    private static ThreadLocal<Cipher> cipherCache(String algorithmName) {
+        return ThreadLocal.withInitial(() -> {
+            try {
+                return Cipher.getInstance(algorithmName,BouncyCastleProvider.PROVIDER_NAME);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static GCMParameterSpec gcmSpec(byte[] nonce) {
+        return new GCMParameterSpec(GCM_TAG_LENGTH * 8,nonce);
+    }
+
+    /**
+     * 流式接口专用的Cipher
+     */
+    private static Cipher streamCipher(String algorithmName) throws GeneralSecurityException {
+        return Cipher.getInstance(algorithmName,BouncyCastleProvider.PROVIDER_NAME);
+    }
+
+    /**
+     * 取当前线程的Cipher并重新初始化
+     */
+    private static Cipher init(ThreadLocal<Cipher> cache,int mode,byte[] key,AlgorithmParameterSpec spec,
+            byte[] aad) throws GeneralSecurityException {
+        return init(cache.get(),mode,key,spec,aad);
+    }
+
+    private static Cipher init(Cipher cipher,int mode,byte[] key,AlgorithmParameterSpec spec,
+            byte[] aad) throws GeneralSecurityException {
+        cipher.init(mode,new SecretKeySpec(key,ALGORIGTHM_NAME),spec);
+        if (aad != null) {
+            cipher.updateAAD(aad);
+        }
+        return cipher;
+    }
+
+    private static long transfer(Cipher cipher,InputStream in,OutputStream out) throws IOException, GeneralSecurityException {
+        byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        byte[] output = new byte[STREAM_BUFFER_SIZE + BLOCK_SIZE * 2 + GCM_TAG_LENGTH];
+        long total = 0;
+        int len;
+        while ((len = in.read(buffer)) != -1) {
+            int n = cipher.update(buffer,0,len,output);
+            out.write(output,0,n);
+            total += n;
+        }
+        output = cipher.doFinal();
+        out.write(output);
+        return total + output.length;
+    }
 }
@@ -10,6 +10,9 @@ import com.jb.model.enity.MasterKeyPair;
 import com.jb.model.enity.SM9KeyPair;
 import com.jb.model.parameter.SM9ExchangeInitiatorKdfParameter;
 import com.jb.model.parameter.SM9ExchangeResponderKdfParameter;
+import com.jb.model.parameter.SM9VerifyParameter;
+import com.jb.model.result.SM9DecryptResult;
+import com.jb.model.result.SM9EncapsulateResult;
 import com.jb.model.result.SM9ExchangeInitiatorKdfResult;
 import com.jb.model.result.SM9ExchangeInitiatorRandomResult;
 import com.jb.model.result.SM9ExchangeResponderKdfResult;
@@ -20,9 +23,13 @@ import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
+import java.util.List;
 
 /**
  * @author zhaojb
@@ -98,10 +105,29 @@ public class SM9Utils {
 
     }
 
+    /**
+     * 主公钥流式加密, 输出 C1 后按64KB分段, 每段 C2_i||C3_i, 适合大文件, 不关闭流
+     */
+    public static long encryptStream(String id,String masterPublicKey,InputStream in,OutputStream out)
+            throws IOException, GeneralSecurityException {
+
+        return new SM9EncryptBouncyCastle().encryptStream(new KeyParse().parseMasterPublicKey(masterPublicKey),
+                id,in,out);
+    }
+
     ////////////////////////////////////////////////////////////////////////////////
     // 解密
     ////////////////////////////////////////////////////////////////////////////////
 
+    /**
+     * 私钥流式解密, 逐段校验后写出明文, 校验失败或截断时抛出异常, 此时已写出的明文不完整, 不关闭流
+     */
+    public static long decryptStream(String id,String privateKey,InputStream in,OutputStream out)
+            throws IOException, GeneralSecurityException {
+
+        return new SM9EncryptBouncyCastle().decryptStream(new KeyParse().parsePrivateKey(privateKey),id,in,out);
+    }
+
     /**
      * 主私钥解密
      */
@@ -121,6 +147,39 @@ public class SM9Utils {
         return new SM9EncryptBouncyCastle().userPrivateDecrypt(id,privateKey,cipherText);
     }
 
+    /**
+     * 私钥批量解密, 密文为 C1||C3||C2 字节数组, 私钥只解析一次
+     * 结果与密文一一对应, 单条失败记入该条结果
+     */
+    public static List<SM9DecryptResult> userPrivateDecryptBatch(String id,String privateKey,
+            List<byte[]> cipherBytes) {
+
+        return new SM9EncryptBouncyCastle().decryptBatchParamBytes(new KeyParse().parsePrivateKey(privateKey),
+                id,cipherBytes);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+    // 密钥封装
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * 主公钥封装一个keyLen字节的对称密钥, 返回封装密文C与密钥K
+     */
+    public static SM9EncapsulateResult encapsulate(String id,String masterPublicKey,int keyLen) {
+
+        return new SM9EncryptBouncyCastle().encapsulate(new KeyParse().parseMasterPublicKey(masterPublicKey),
+                id,keyLen);
+    }
+
+    /**
+     * 私钥解封, 由封装密文C还原密钥K
+     */
+    public static byte[] decapsulate(String id,String privateKey,byte[] bytesC1,int keyLen) {
+
+        return new SM9EncryptBouncyCastle().decapsulate(new KeyParse().parsePrivateKey(privateKey),id,
+                bytesC1,keyLen);
+    }
+
     ////////////////////////////////////////////////////////////////////////////////
     // 签名
     ////////////////////////////////////////////////////////////////////////////////
@@ -158,6 +217,15 @@ public class SM9Utils {
         return SM9SignBouncyCastle.builder().verify(id,masterPublicKey,sign,signature);
     }
 
+    /**
+     * 批量验签, 结果与参数顺序一致
+     */
+    public static List<Boolean> verifySignBatch(SM9MasterKeyPair.MasterPublicKey masterPublicKey,
+            List<SM9VerifyParameter> parameters) {
+
+        return SM9SignBouncyCastle.builder().verifyBatch(masterPublicKey,parameters);
+    }
+
     ////////////////////////////////////////////////////////////////////////////////
     // 交换协商
     ////////////////////////////////////////////////////////////////////////////////
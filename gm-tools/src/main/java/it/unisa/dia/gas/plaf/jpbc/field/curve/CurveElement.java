@@ -233,6 +233,53 @@ public class CurveElement<E extends Element, F extends CurveField> extends Abstr
         return powZn(e);
     }
 
+    /**
+     * Scalar multiplication with a width-k NAF. The accumulator is kept in
+     * Jacobian coordinates, so the only inversions are the ones needed to
+     * build the affine lookup table and the final conversion back to affine.
+     *
+     * @param n the scalar.
+     * @return this element.
+     */
+    public Element pow(BigInteger n) {
+        if (infFlag != 0)
+            return this;
+
+        if (n.signum() == 0) {
+            infFlag = 1;
+            return this;
+        }
+
+        boolean negative = n.signum() < 0;
+        if (negative)
+            n = n.negate();
+
+        int k = optimalPowWindowSize(n);
+        byte[] wnaf = BigIntegerUtils.naf(n, (byte) k);
+        CurveElement[] lookup = buildOddPowWindow(k);
+        CurveElement[] negLookup = new CurveElement[lookup.length];
+        for (int i = 0; i < lookup.length; i++) {
+            negLookup[i] = lookup[i].duplicate().negate();
+        }
+
+        CurveJacobianPoint result = new CurveJacobianPoint(field);
+        for (int i = wnaf.length - 1; i >= 0; i--) {
+            result.twice();
+
+            int digit = wnaf[i];
+            if (digit > 0)
+                result.add(lookup[digit >> 1]);
+            else if (digit < 0)
+                result.add(negLookup[(-digit) >> 1]);
+        }
+
+        result.toAffine(this);
+        if (negative)
+            negate();
+
+        return this;
+    }
+
     public boolean isSqr() {
         return BigIntegerUtils.isOdd(field.getOrder()) || duplicate().pow(field.getOrder().subtract(BigInteger.ONE).divide(BigIntegerUtils.TWO)).isOne();
     }
@@ -394,6 +441,27 @@ public class CurveElement<E extends Element, F extends CurveField> extends Abstr
         infFlag = 0;
     }
 
+    /**
+     * Builds the affine lookup table lookup[i] = (2i+1) this, for the odd
+     * digits of a width-k NAF.
+     *
+     * @param k the window size.
+     * @return the lookup table.
+     */
+    protected CurveElement[] buildOddPowWindow(int k) {
+        CurveElement[] lookup = new CurveElement[1 << (k - 2)];
+
+        lookup[0] = duplicate();
+        if (lookup.length > 1) {
+            CurveElement twice = duplicate().twice();
+            for (int i = 1; i < lookup.length; i++) {
+                lookup[i] = lookup[i - 1].duplicate().add(twice);
+            }
+        }
+
+        return lookup;
+    }
+
     protected void setPointFromX() {
         infFlag = 0;
         y.set(x.duplicate().square().add(field.a).mul(x).add(field.b).sqrt());
@@ -0,0 +1,125 @@
+package it.unisa.dia.gas.plaf.jpbc.field.curve;
+
+import it.unisa.dia.gas.jpbc.Element;
+import it.unisa.dia.gas.jpbc.ElementPowPreProcessing;
+import it.unisa.dia.gas.jpbc.Field;
+import it.unisa.dia.gas.plaf.jpbc.util.io.FieldStreamReader;
+import it.unisa.dia.gas.plaf.jpbc.util.io.PairingStreamWriter;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+/**
+ * Fixed-base comb (Lim-Lee) scalar multiplication for a curve point g.
+ * The n-bit scalar is split into w rows of d = ceil(n/w) bits; table[j]
+ * holds sum_{i : bit i of j is set} 2^(i*d) g as an affine point.
+ * A multiplication costs d doublings and at most d mixed additions,
+ * accumulated in Jacobian coordinates.
+ *
+ * @author zhaojb
+ */
+public class CurveElementCombPreProcessing implements ElementPowPreProcessing {
+    public static final int DEFAULT_W = 8;
+
+    protected CurveField field;
+
+    protected int w;
+    protected int d;
+    protected CurveElement[] table;
+
+
+    public CurveElementCombPreProcessing(CurveElement g) {
+        this(g, DEFAULT_W);
+    }
+
+    public CurveElementCombPreProcessing(CurveElement g, int w) {
+        this.field = g.getField();
+        this.w = w;
+        this.d = (field.getOrder().bitLength() + w - 1) / w;
+
+        initTable(g);
+    }
+
+    public CurveElementCombPreProcessing(CurveField field, int w, byte[] source, int offset) {
+        this.field = field;
+        this.w = w;
+        this.d = (field.getOrder().bitLength() + w - 1) / w;
+
+        initTableFromBytes(source, offset);
+    }
+
+
+    public Field getField() {
+        return field;
+    }
+
+    public Element pow(BigInteger n) {
+        return powComb(n);
+    }
+
+    public Element powZn(Element n) {
+        return pow(n.toBigInteger());
+    }
+
+    public byte[] toBytes() {
+        try {
+            PairingStreamWriter out = new PairingStreamWriter(field.getLengthInBytes() * (table.length - 1));
+            for (int j = 1; j < table.length; j++)
+                out.write(table[j]);
+            return out.toBytes();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    protected void initTable(Element g) {
+        CurveElement[] base = new CurveElement[w];
+        base[0] = (CurveElement) g.duplicate();
+        for (int i = 1; i < w; i++) {
+            CurveJacobianPoint p = new CurveJacobianPoint(base[i - 1]);
+            for (int s = 0; s < d; s++)
+                p.twice();
+            base[i] = p.toAffine();
+        }
+
+        table = new CurveElement[1 << w];
+        table[0] = (CurveElement) field.newZeroElement().getImmutable();
+        for (int i = 0; i < w; i++) {
+            int top = 1 << i;
+            for (int j = 0; j < top; j++)
+                table[top + j] = (CurveElement) base[i].duplicate().add(table[j]).getImmutable();
+        }
+    }
+
+    protected void initTableFromBytes(byte[] source, int offset) {
+        table = new CurveElement[1 << w];
+        table[0] = (CurveElement) field.newZeroElement().getImmutable();
+
+        FieldStreamReader in = new FieldStreamReader(field, source, offset);
+        for (int j = 1; j < table.length; j++)
+            table[j] = (CurveElement) in.readElement().getImmutable();
+    }
+
+    protected Element powComb(BigInteger n) {
+        if (n.signum() < 0 || n.compareTo(field.getOrder()) >= 0)
+            n = n.mod(field.getOrder());
+
+        CurveJacobianPoint result = new CurveJacobianPoint(field);
+        for (int col = d - 1; col >= 0; col--) {
+            result.twice();
+
+            int word = 0;
+            for (int i = 0; i < w; i++) {
+                if (n.testBit(i * d + col))
+                    word |= 1 << i;
+            }
+
+            if (word > 0)
+                result.add(table[word]);
+        }
+
+        return result.toAffine();
+    }
+
+}
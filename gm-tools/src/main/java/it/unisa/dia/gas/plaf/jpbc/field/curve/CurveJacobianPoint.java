@@ -0,0 +1,156 @@
+package it.unisa.dia.gas.plaf.jpbc.field.curve;
+
+import it.unisa.dia.gas.jpbc.Element;
+
+/**
+ * A point of a short Weierstrass curve y^2 = x^3 + ax + b in Jacobian
+ * coordinates (X, Y, Z), with x = X/Z^2 and y = Y/Z^3.
+ * Doubling and mixed addition need no field inversion, the only
+ * inversion happens in {@link #toAffine(CurveElement)}.
+ *
+ * @author zhaojb
+ */
+public class CurveJacobianPoint {
+
+    protected CurveField field;
+    protected Element x, y, z;
+    protected boolean infinity;
+
+
+    public CurveJacobianPoint(CurveField field) {
+        this.field = field;
+        this.x = field.getTargetField().newElement();
+        this.y = field.getTargetField().newElement();
+        this.z = field.getTargetField().newElement();
+        this.infinity = true;
+    }
+
+    public CurveJacobianPoint(CurveElement element) {
+        this(element.getField());
+        set(element);
+    }
+
+
+    public CurveJacobianPoint set(CurveElement element) {
+        if (element.isZero()) {
+            infinity = true;
+            return this;
+        }
+
+        x.set(element.getX());
+        y.set(element.getY());
+        z.setToOne();
+        infinity = false;
+
+        return this;
+    }
+
+    public CurveJacobianPoint setToInfinity() {
+        infinity = true;
+
+        return this;
+    }
+
+    public boolean isInfinity() {
+        return infinity;
+    }
+
+    /**
+     * dbl-2007-bl
+     */
+    public CurveJacobianPoint twice() {
+        if (infinity)
+            return this;
+
+        if (y.isZero()) {
+            infinity = true;
+            return this;
+        }
+
+        Element xx = x.duplicate().square();
+        Element yy = y.duplicate().square();
+        Element yyyy = yy.duplicate().square();
+        Element zz = z.duplicate().square();
+
+        // S = 2((X + YY)^2 - XX - YYYY)
+        Element s = x.duplicate().add(yy).square().sub(xx).sub(yyyy).twice();
+
+        // M = 3XX + a ZZ^2
+        Element m = xx.mul(3);
+        if (!field.getA().isZero())
+            m.add(zz.duplicate().square().mul(field.getA()));
+
+        // Z3 = (Y + Z)^2 - YY - ZZ
+        z.add(y).square().sub(yy).sub(zz);
+
+        // X3 = M^2 - 2S
+        x.set(m).square().sub(s.duplicate().twice());
+
+        // Y3 = M(S - X3) - 8YYYY
+        y.set(s.sub(x).mul(m)).sub(yyyy.mul(8));
+
+        return this;
+    }
+
+    /**
+     * madd-2007-bl, adds an affine point
+     */
+    public CurveJacobianPoint add(CurveElement element) {
+        if (element.isZero())
+            return this;
+
+        if (infinity)
+            return set(element);
+
+        Element z1z1 = z.duplicate().square();
+
+        // H = X2 Z1Z1 - X1, r = 2(Y2 Z1 Z1Z1 - Y1)
+        Element h = element.getX().duplicate().mul(z1z1).sub(x);
+        Element r = element.getY().duplicate().mul(z).mul(z1z1).sub(y);
+
+        if (h.isZero()) {
+            if (r.isZero())
+                return twice();
+
+            infinity = true;
+            return this;
+        }
+        r.twice();
+
+        Element hh = h.duplicate().square();
+        Element i = hh.duplicate().twice().twice();
+        Element j = h.duplicate().mul(i);
+        Element v = x.duplicate().mul(i);
+
+        // Z3 = (Z1 + H)^2 - Z1Z1 - HH
+        z.add(h).square().sub(z1z1).sub(hh);
+
+        // X3 = r^2 - J - 2V
+        x.set(r).square().sub(j).sub(v.duplicate().twice());
+
+        // Y3 = r(V - X3) - 2 Y1 J
+        y.mul(j).twice();
+        y.set(v.sub(x).mul(r).sub(y));
+
+        return this;
+    }
+
+    public CurveElement toAffine(CurveElement element) {
+        if (infinity)
+            return element.setToZero();
+
+        Element zInv = z.duplicate().invert();
+        Element zInv2 = zInv.duplicate().square();
+
+        element.getX().set(x).mul(zInv2);
+        element.getY().set(y).mul(zInv2).mul(zInv);
+        element.infFlag = 0;
+
+        return element;
+    }
+
+    public CurveElement toAffine() {
+        return toAffine(field.newElement());
+    }
+
+}
@@ -0,0 +1,177 @@
+package com.jb.driver.sm2;
+
+import com.jb.driver.sm3.SM3Engine;
+import com.jb.model.enity.SM2KeyPair;
+import com.jb.utils.SM2Utils;
+import org.bouncycastle.crypto.params.ParametersWithID;
+import org.bouncycastle.crypto.signers.SM2Signer;
+import org.bouncycastle.crypto.signers.StandardDSAEncoding;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author zhaojb
+ * 临时密钥池签名须能被不使用池的验签通过
+ */
+public class SM2PooledSignerTest {
+    private static final byte[] MESSAGE = "pooled sm2 signature".getBytes(StandardCharsets.UTF_8);
+
+    private static final BigInteger N = SM2Curve.getDomainParameters().getN();
+
+    private static SM2PrivateKeyHandle privateKey;
+
+    private static SM2PublicKeyHandle publicKey;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        SM2KeyPair keyPair = SM2Utils.generateKeyPair();
+        privateKey = SM2PrivateKeyHandle.fromHex(keyPair.getPriKey());
+        publicKey = SM2PublicKeyHandle.fromHex(keyPair.getPubKey());
+    }
+
+    @After
+    public void disablePool() {
+        SM2Utils.disableEphemeralPool();
+    }
+
+    @Test
+    public void pooledSignatureVerifiesWithoutPool() throws Exception {
+        SM2EphemeralPool pool = new SM2EphemeralPool(16);
+        try {
+            for (int i = 0; i < 20; ++i) {
+                byte[] sign = SM2PooledSigner.sign(privateKey, MESSAGE, pool);
+                assertTrue(verifyWithSigner(MESSAGE, sign));
+                assertTrue(SM2Utils.verify(publicKey, MESSAGE, sign));
+                assertFalse(SM2Utils.verify(publicKey, "other".getBytes(StandardCharsets.UTF_8), sign));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void pooledSignatureThroughSM2Utils() throws Exception {
+        SM2Utils.enableEphemeralPool(8);
+        String message = "sm2 utils pooled";
+        String first = SM2Utils.sign(privateKey, message);
+        String second = SM2Utils.sign(privateKey, message);
+        byte[] bytesSign = SM2Utils.sign(privateKey, MESSAGE);
+        SM2Utils.disableEphemeralPool();
+
+        assertNotEquals(first, second);
+        assertTrue(SM2Utils.verify(publicKey, message, first));
+        assertTrue(SM2Utils.verify(publicKey, message, second));
+        assertTrue(verifyWithSigner(MESSAGE, bytesSign));
+    }
+
+    @Test
+    public void retriesWhenRIsZeroOrRPlusKIsN() throws Exception {
+        SM2EphemeralPool pool = new SM2EphemeralPool(4, new SecureRandom(), false);
+        BigInteger e = e(MESSAGE);
+
+        // r = (e + x1) mod n = 0
+        pool.offer(BigInteger.valueOf(12345), N.subtract(e).mod(N));
+        // r + k = n
+        BigInteger k = BigInteger.valueOf(67890);
+        pool.offer(k, N.subtract(k).subtract(e).mod(N));
+        // 正常条目
+        BigInteger k3 = new BigInteger("1234567890abcdef1234567890abcdef", 16);
+        BigInteger x3 = x1(k3);
+        pool.offer(k3, x3);
+
+        byte[] sign = SM2PooledSigner.sign(privateKey, MESSAGE, pool);
+        assertEquals(3, pool.getConsumedCount());
+        assertEquals(0, pool.getMissCount());
+        assertEquals(0, pool.getDepth());
+        BigInteger[] rs = StandardDSAEncoding.INSTANCE.decode(N, sign);
+        assertEquals(e.add(x3).mod(N), rs[0]);
+        assertTrue(verifyWithSigner(MESSAGE, sign));
+    }
+
+    @Test
+    public void emptyPoolFallsBack() throws Exception {
+        SM2EphemeralPool pool = new SM2EphemeralPool(4, new SecureRandom(), false);
+        SM2EphemeralPool.Entry first = pool.take();
+        SM2EphemeralPool.Entry second = pool.take();
+        assertEquals(2, pool.getMissCount());
+        assertEquals(0, pool.getConsumedCount());
+        assertNotEquals(first.getK(), second.getK());
+        assertTrue(first.getK().signum() > 0 && first.getK().compareTo(N) < 0);
+        assertEquals(x1(first.getK()), first.getX1());
+
+        first.zeroize();
+        assertEquals(BigInteger.ZERO, first.getK());
+        assertEquals(BigInteger.ZERO, first.getX1());
+
+        byte[] sign = SM2PooledSigner.sign(privateKey, MESSAGE, pool);
+        assertEquals(3, pool.getMissCount());
+        assertTrue(verifyWithSigner(MESSAGE, sign));
+    }
+
+    @Test
+    public void entriesAreNeverHandedOutTwice() {
+        Set<String> seen = new HashSet<>();
+
+        SM2Utils.enableEphemeralPool(32);
+        SM2EphemeralPool first = SM2Utils.getEphemeralPool();
+        takeUnique(first, 100, seen);
+
+        SM2Utils.enableEphemeralPool(32);
+        SM2EphemeralPool second = SM2Utils.getEphemeralPool();
+        assertNotEquals(first, second);
+        assertEquals(0, first.getDepth());
+        takeUnique(second, 100, seen);
+
+        SM2Utils.disableEphemeralPool();
+        assertNull(SM2Utils.getEphemeralPool());
+        assertEquals(0, second.getDepth());
+        // 关闭后的池不再有预先计算的条目, 只能当场计算
+        long missed = second.getMissCount();
+        takeUnique(second, 10, seen);
+        assertEquals(missed + 10, second.getMissCount());
+        assertEquals(210, seen.size());
+    }
+
+    private static void takeUnique(SM2EphemeralPool pool, int count, Set<String> seen) {
+        for (int i = 0; i < count; ++i) {
+            SM2EphemeralPool.Entry entry = pool.take();
+            assertTrue(seen.add(entry.getK().toString(16)));
+            entry.zeroize();
+        }
+    }
+
+    private static boolean verifyWithSigner(byte[] data, byte[] sign) {
+        SM2Signer signer = new SM2Signer();
+        signer.init(false, new ParametersWithID(publicKey.getPublicKeyParameters(),
+                "1234567812345678".getBytes(StandardCharsets.UTF_8)));
+        signer.update(data, 0, data.length);
+        return signer.verifySignature(sign);
+    }
+
+    private static BigInteger e(byte[] data) {
+        byte[] z = privateKey.getSignContext().z;
+        SM3Engine digest = new SM3Engine();
+        digest.update(z, 0, z.length);
+        digest.update(data, 0, data.length);
+        return new BigInteger(1, digest.doFinal());
+    }
+
+    private static BigInteger x1(BigInteger k) {
+        ECPoint p = SM2Curve.getDomainParameters().getG().multiply(k).normalize();
+        return p.getAffineXCoord().toBigInteger();
+    }
+}
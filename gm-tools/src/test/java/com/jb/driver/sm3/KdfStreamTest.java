@@ -0,0 +1,90 @@
+package com.jb.driver.sm3;
+
+import com.jb.driver.sm9.method.SM9Method;
+import org.bouncycastle.crypto.digests.SM3Digest;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * @author zhaojb
+ * KdfStream 与逐块 SM3(Z||ct) 的 KDF 结果一致, SM9加密与密钥交换的兼容性依赖于此
+ */
+public class KdfStreamTest {
+    private static final int[] LENGTHS = {0, 1, 16, 31, 32, 33, 48, 63, 64, 65, 100, 255, 1000, 4096, 5000};
+
+    private final Random random = new Random(20260102L);
+
+    @Test
+    public void matchesReferenceKdf() {
+        for (int zLen : new int[]{0, 1, 63, 64, 65, 288}) {
+            byte[] z = randomBytes(zLen);
+            for (int len : LENGTHS) {
+                byte[] expected = reference(z, len);
+                assertArrayEquals("z " + zLen + " len " + len, expected, new KdfStream(z).read(len));
+                assertArrayEquals("bytesKdf z " + zLen + " len " + len, expected, SM9Method.bytesKdf(z, len));
+            }
+        }
+    }
+
+    @Test
+    public void readsAcrossBlockBoundaries() {
+        byte[] z = randomBytes(96);
+        byte[] expected = reference(z, 1000);
+        for (int step : new int[]{1, 5, 16, 31, 32, 33, 47, 100}) {
+            KdfStream kdf = new KdfStream(z);
+            byte[] actual = new byte[expected.length];
+            boolean intoArray = true;
+            for (int off = 0; off < actual.length; off += step) {
+                int n = Math.min(step, actual.length - off);
+                // 交替使用两种读取方式
+                if (intoArray) {
+                    kdf.read(actual, off, n);
+                } else {
+                    System.arraycopy(kdf.read(n), 0, actual, off, n);
+                }
+                intoArray = !intoArray;
+            }
+            assertArrayEquals("step " + step, expected, actual);
+        }
+    }
+
+    @Test
+    public void readIntoOffset() {
+        byte[] z = randomBytes(40);
+        byte[] expected = reference(z, 70);
+        KdfStream kdf = new KdfStream(z);
+        byte[] out = new byte[80];
+        kdf.read(out, 3, 20);
+        kdf.read(out, 23, 50);
+        assertArrayEquals(expected, Arrays.copyOfRange(out, 3, 73));
+    }
+
+    private byte[] randomBytes(int len) {
+        byte[] data = new byte[len];
+        this.random.nextBytes(data);
+        return data;
+    }
+
+    /**
+     * K = Ha1||Ha2||..., Hai = SM3(Z||ct), ct为32位大端计数器, 从1开始
+     */
+    private static byte[] reference(byte[] z, int keyByteLen) {
+        SM3Digest digest = new SM3Digest();
+        int groupNum = (keyByteLen + 31) / 32;
+        byte[] hv = new byte[32 * groupNum];
+        for (int ct = 1; ct <= groupNum; ++ct) {
+            digest.reset();
+            digest.update(z, 0, z.length);
+            digest.update((byte) (ct >> 24 & 255));
+            digest.update((byte) (ct >> 16 & 255));
+            digest.update((byte) (ct >> 8 & 255));
+            digest.update((byte) (ct & 255));
+            digest.doFinal(hv, (ct - 1) * 32);
+        }
+        return Arrays.copyOf(hv, keyByteLen);
+    }
+}
@@ -0,0 +1,89 @@
+package com.jb.driver.sm3;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.SM3Digest;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * @author zhaojb
+ * SM3Engine 与 SM3Digest 吞吐量, 短消息每次新建实例, 长消息复用实例
+ * 不是单元测试, 手动运行: java -cp target/classes:target/test-classes:<bcprov> com.jb.driver.sm3.SM3EngineBenchmark [轮数]
+ */
+public final class SM3EngineBenchmark {
+    private static final int[] SHORT_LENGTHS = {32, 64, 256, 1024};
+
+    private static final int SHORT_ITERATIONS = 200_000;
+
+    private static final int LARGE_LENGTH = 64 * 1024 * 1024;
+
+    private static final int WARMUP_ROUNDS = 3;
+
+    private SM3EngineBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        Random random = new Random(1);
+
+        for (int len : SHORT_LENGTHS) {
+            byte[] data = new byte[len];
+            random.nextBytes(data);
+            report("SM3Digest new", len, (long) len * SHORT_ITERATIONS,
+                    time(rounds, () -> hashShort(SM3Digest::new, data)));
+            report("SM3Engine new", len, (long) len * SHORT_ITERATIONS,
+                    time(rounds, () -> hashShort(SM3Engine::new, data)));
+            report("SM3Engine threadLocal", len, (long) len * SHORT_ITERATIONS,
+                    time(rounds, () -> hashShort(SM3Engine::threadLocal, data)));
+        }
+
+        byte[] large = new byte[LARGE_LENGTH];
+        random.nextBytes(large);
+        ByteBuffer direct = ByteBuffer.allocateDirect(LARGE_LENGTH);
+        direct.put(large).flip();
+        SM3Digest digest = new SM3Digest();
+        SM3Engine engine = new SM3Engine();
+        report("SM3Digest byte[]", LARGE_LENGTH, LARGE_LENGTH, time(rounds, () -> hash(digest, large)));
+        report("SM3Engine byte[]", LARGE_LENGTH, LARGE_LENGTH, time(rounds, () -> hash(engine, large)));
+        report("SM3Engine direct", LARGE_LENGTH, LARGE_LENGTH, time(rounds, () -> {
+            engine.update(direct.duplicate());
+            engine.doFinal();
+        }));
+    }
+
+    private static void hashShort(Supplier<? extends Digest> factory, byte[] data) {
+        byte[] out = new byte[32];
+        for (int i = 0; i < SHORT_ITERATIONS; ++i) {
+            Digest digest = factory.get();
+            digest.update(data, 0, data.length);
+            digest.doFinal(out, 0);
+        }
+    }
+
+    private static void hash(Digest digest, byte[] data) {
+        digest.update(data, 0, data.length);
+        digest.doFinal(new byte[32], 0);
+    }
+
+    /**
+     * 预热后取多轮中最快的一次, 单位纳秒
+     */
+    private static long time(int rounds, Runnable task) {
+        for (int i = 0; i < WARMUP_ROUNDS; ++i) {
+            task.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; ++i) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static void report(String name, int len, long bytes, long nanos) {
+        System.out.printf("%-22s len=%-9d %8.1f MiB/s%n", name, len, bytes * 1e9 / nanos / (1024 * 1024));
+    }
+}
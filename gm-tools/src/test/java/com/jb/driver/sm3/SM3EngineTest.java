@@ -0,0 +1,138 @@
+package com.jb.driver.sm3;
+
+import org.bouncycastle.crypto.digests.SM3Digest;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author zhaojb
+ * SM3Engine 与 GB/T 32905 示例及 BouncyCastle SM3Digest 对比
+ */
+public class SM3EngineTest {
+    private static final int MAX_LENGTH = 600;
+
+    private final Random random = new Random(20260101L);
+
+    @Test
+    public void abcVector() {
+        assertEquals("66c7f0f462eeedd9d1f2d46bdc10e4e24167c4875cf2f7a2297da02b8f4ba8e0",
+                Hex.toHexString(hash("abc".getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    @Test
+    public void sixtyFourByteVector() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 16; ++i) {
+            sb.append("abcd");
+        }
+        assertEquals("debe9ff92275b8a138604889c18e5a4d6fdb70e5387e5765293dcba39c0c5732",
+                Hex.toHexString(hash(sb.toString().getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    @Test
+    public void matchesSM3DigestForAllLengths() {
+        for (int len = 0; len <= MAX_LENGTH; ++len) {
+            byte[] data = randomBytes(len);
+            assertArrayEquals("length " + len, reference(data), hash(data));
+        }
+    }
+
+    @Test
+    public void splitUpdates() {
+        for (int len = 0; len <= MAX_LENGTH; len += 7) {
+            byte[] data = randomBytes(len);
+            byte[] expected = reference(data);
+            for (int split = 0; split <= len; split += 13) {
+                SM3Engine engine = new SM3Engine();
+                engine.update(data, 0, split);
+                for (int i = split; i < Math.min(len, split + 3); ++i) {
+                    engine.update(data[i]);
+                }
+                int rest = Math.min(len, split + 3);
+                engine.update(data, rest, len - rest);
+                assertArrayEquals("length " + len + " split " + split, expected, engine.doFinal());
+            }
+        }
+    }
+
+    @Test
+    public void byteBuffers() {
+        for (int len = 0; len <= MAX_LENGTH; len += 11) {
+            byte[] data = randomBytes(len);
+            byte[] expected = reference(data);
+
+            ByteBuffer heap = ByteBuffer.wrap(data);
+            SM3Engine engine = new SM3Engine();
+            engine.update(heap);
+            assertArrayEquals("heap " + len, expected, engine.doFinal());
+            assertEquals(len, heap.position());
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(len + 5);
+            direct.position(5);
+            direct.put(data);
+            direct.position(5);
+            // 先用byte[]写入未对齐的前缀, 再用直接缓冲区写入剩余数据
+            int prefix = Math.min(len, 17);
+            engine.update(data, 0, prefix);
+            direct.position(5 + prefix);
+            engine.update(direct);
+            assertArrayEquals("direct " + len, expected, engine.doFinal());
+        }
+    }
+
+    @Test
+    public void copyAndReset() {
+        byte[] prefix = randomBytes(100);
+        SM3Engine engine = new SM3Engine();
+        engine.update(prefix, 0, prefix.length);
+        SM3Engine saved = engine.copy();
+
+        for (int len = 0; len <= 200; len += 9) {
+            byte[] suffix = randomBytes(len);
+            byte[] data = new byte[prefix.length + len];
+            System.arraycopy(prefix, 0, data, 0, prefix.length);
+            System.arraycopy(suffix, 0, data, prefix.length, len);
+            byte[] expected = reference(data);
+
+            SM3Engine copy = saved.copy();
+            copy.update(suffix, 0, len);
+            assertArrayEquals("copy " + len, expected, copy.doFinal());
+
+            engine.reset(saved);
+            engine.update(suffix, 0, len);
+            assertArrayEquals("reset " + len, expected, engine.doFinal());
+        }
+
+        // doFinal之后回到初始状态, 不影响被复制的状态
+        assertArrayEquals(reference(new byte[0]), engine.doFinal());
+        saved.update(new byte[0], 0, 0);
+        assertArrayEquals(reference(prefix), saved.doFinal());
+    }
+
+    private byte[] randomBytes(int len) {
+        byte[] data = new byte[len];
+        this.random.nextBytes(data);
+        return data;
+    }
+
+    private static byte[] hash(byte[] data) {
+        SM3Engine engine = new SM3Engine();
+        engine.update(data, 0, data.length);
+        return engine.doFinal();
+    }
+
+    private static byte[] reference(byte[] data) {
+        SM3Digest digest = new SM3Digest();
+        digest.update(data, 0, data.length);
+        byte[] out = new byte[digest.getDigestSize()];
+        digest.doFinal(out, 0);
+        return out;
+    }
+}
@@ -0,0 +1,98 @@
+package com.jb.driver.sm3;
+
+import com.jb.utils.SM3Utils;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * @author zhaojb
+ * 树模式摘要格式固定, 完整性清单依赖这些值, 前缀, 分块或 mid 的任何改动都会使测试失败
+ * 期望值按 {@link SM3TreeHash} 文档中的格式独立计算, 文件内容第i字节为 (31i + 7) mod 251, 块大小4096
+ */
+public class SM3TreeHashTest {
+    private static final int CHUNK_SIZE = 4096;
+
+    private static final int[] LENGTHS = {0, 1, CHUNK_SIZE, 3 * CHUNK_SIZE, 3 * CHUNK_SIZE + 1, 7 * CHUNK_SIZE + 123};
+
+    private static final String[] ROOTS = {
+            "0f9b0dc099232415585804406d30a133a59f966b44ad6476f66be1e6041e5398",
+            "a1b6198dc3a4ceb65f57fe5c01c24c62cdbfcdd8f05a398b5cacc47bc36d57c4",
+            "3ac9985046960fe52f4786418a9c0c75420f68d7585875975c49faecd929b2cc",
+            "ece21b34d5f0d7684ff7edd4753399f47513338b72827103f60da0543cf75fd8",
+            "be0ccbaf63ae809be1357ebfb5bebde33b7821225d0465ad3e19a2ed86214738",
+            "40f2a56a57a2f308ad6ed65174b1494034beef13463631e0d2a40259170445b7"
+    };
+
+    private static ForkJoinPool single;
+
+    private static ForkJoinPool parallel;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void setUp() {
+        single = new ForkJoinPool(1);
+        parallel = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        single.shutdown();
+        parallel.shutdown();
+    }
+
+    @Test
+    public void knownRoots() throws IOException {
+        for (int i = 0; i < LENGTHS.length; ++i) {
+            Path path = this.file(LENGTHS[i]);
+            assertEquals("len " + LENGTHS[i], ROOTS[i], SM3Utils.hashTreeHex(path, CHUNK_SIZE, single));
+            assertEquals("len " + LENGTHS[i], ROOTS[i], SM3Utils.hashTreeHex(path, CHUNK_SIZE, parallel));
+        }
+    }
+
+    @Test
+    public void poolSizeDoesNotChangeRoot() throws IOException {
+        Path path = this.file(37 * 1000 + 5);
+        for (int chunkSize : new int[]{1, 64, 1000, 4096, 1 << 20}) {
+            String expected = Hex.toHexString(SM3Utils.hashTree(path, chunkSize, single));
+            assertEquals(expected, Hex.toHexString(SM3Utils.hashTree(path, chunkSize, parallel)));
+            assertEquals(expected, Hex.toHexString(SM3Utils.hashTree(path, chunkSize, ForkJoinPool.commonPool())));
+        }
+    }
+
+    @Test
+    public void chunkSizeAndLengthAreBound() throws IOException {
+        Path path = this.file(3 * CHUNK_SIZE);
+        assertNotEquals(ROOTS[3], SM3Utils.hashTreeHex(path, CHUNK_SIZE * 3, single));
+        // 单块时根也不是该块的普通SM3摘要
+        assertNotEquals(SM3Utils.hashHex(path), SM3Utils.hashTreeHex(path, CHUNK_SIZE * 3, single));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void chunkSizeMustBePositive() throws IOException {
+        SM3Utils.hashTree(this.file(1), 0, single);
+    }
+
+    private Path file(int length) throws IOException {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            content[i] = (byte) ((31L * i + 7) % 251);
+        }
+        Path path = this.folder.newFile().toPath();
+        Files.write(path, content);
+        return path;
+    }
+}
@@ -0,0 +1,91 @@
+package com.jb.driver.sm4;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.Security;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @author zhaojb
+ * 并行CTR吞吐量, 线程数从1到可用处理器数, 以 SM4/CTR/NoPadding 单线程为基线
+ * 不是单元测试, 手动运行: java -cp target/classes:target/test-classes:<bcprov> com.jb.driver.sm4.SM4ParallelCtrBenchmark [MiB] [轮数]
+ */
+public final class SM4ParallelCtrBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+
+    private SM4ParallelCtrBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int mebibytes = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Security.addProvider(new BouncyCastleProvider());
+
+        byte[] key = new byte[16];
+        byte[] iv = new byte[16];
+        byte[] plain = new byte[mebibytes * 1024 * 1024];
+        new Random(1).nextBytes(plain);
+        ByteBuffer heapIn = ByteBuffer.wrap(plain);
+        ByteBuffer heapOut = ByteBuffer.allocate(plain.length);
+        ByteBuffer directIn = ByteBuffer.allocateDirect(plain.length);
+        directIn.put(plain).flip();
+        ByteBuffer directOut = ByteBuffer.allocateDirect(plain.length);
+
+        Cipher cipher = Cipher.getInstance("SM4/CTR/NoPadding", BouncyCastleProvider.PROVIDER_NAME);
+        byte[] cipherOut = new byte[plain.length];
+        report("jce ctr", 1, mebibytes, time(rounds, () -> {
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "SM4"), new IvParameterSpec(iv));
+            cipher.doFinal(plain, 0, plain.length, cipherOut, 0);
+        }));
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        // 1, 2, 4, ... 直到处理器数
+        for (int threads = 1; threads < processors; threads *= 2) {
+            run(threads, key, iv, heapIn, heapOut, directIn, directOut, mebibytes, rounds);
+        }
+        run(processors, key, iv, heapIn, heapOut, directIn, directOut, mebibytes, rounds);
+    }
+
+    private static void run(int threads, byte[] key, byte[] iv, ByteBuffer heapIn, ByteBuffer heapOut,
+            ByteBuffer directIn, ByteBuffer directOut, int mebibytes, int rounds) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            report("parallel heap", threads, mebibytes, time(rounds, () ->
+                    SM4ParallelCtr.crypt(key, iv, heapIn.duplicate(), heapOut.duplicate(), executorService)));
+            report("parallel direct", threads, mebibytes, time(rounds, () ->
+                    SM4ParallelCtr.crypt(key, iv, directIn.duplicate(), directOut.duplicate(), executorService)));
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * 预热后取多轮中最快的一次, 单位纳秒
+     */
+    private static long time(int rounds, Task task) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; ++i) {
+            task.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; ++i) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static void report(String name, int threads, int mebibytes, long nanos) {
+        System.out.printf("%-16s threads=%-3d %8.1f MiB/s%n", name, threads, mebibytes * 1e9 / nanos);
+    }
+
+    private interface Task {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,164 @@
+package com.jb.driver.sm4;
+
+import com.jb.utils.SM4Utils;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Security;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author zhaojb
+ * 并行CTR与 SM4/CTR/NoPadding 顺序加密逐字节比较
+ */
+public class SM4ParallelCtrTest {
+    /**
+     * 覆盖空输入, 不足一个分组, 分组边界两侧, 以及大于两个最小段长度 (256 KiB) 的并行路径
+     */
+    private static final int[] LENGTHS = {0, 1, 15, 16, 17, 4095, 65537, 524288, 524288 + 5, 3 * 1024 * 1024 + 13};
+
+    private static final byte[] KEY = hex("0123456789abcdeffedcba9876543210");
+
+    private static final byte[] IV = hex("000102030405060708090a0b0c0d0e0f");
+
+    /**
+     * 低64位接近溢出, 计数器递增在段内和段起点计算时都要向第8字节进位
+     */
+    private static final byte[] CARRY_IV = hex("0000000000000000fffffffffffffff0");
+
+    private static ExecutorService executorService;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void setUp() {
+        Security.addProvider(new BouncyCastleProvider());
+        executorService = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        executorService.shutdown();
+    }
+
+    @Test
+    public void counter() {
+        assertArrayEquals(IV, SM4ParallelCtr.counter(IV, 0));
+        assertArrayEquals(hex("000102030405060708090a0b0c0d0e10"), SM4ParallelCtr.counter(IV, 1));
+        assertArrayEquals(hex("00000000000000010000000000000000"), SM4ParallelCtr.counter(CARRY_IV, 16));
+        assertArrayEquals(hex("00000000000000010000000000000001"), SM4ParallelCtr.counter(CARRY_IV, 17));
+        assertArrayEquals(hex("00000000000000017fffffffffffffef"),
+                SM4ParallelCtr.counter(CARRY_IV, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void heapBuffers() throws Exception {
+        for (byte[] iv : new byte[][]{IV, CARRY_IV}) {
+            for (int len : LENGTHS) {
+                byte[] plain = random(len);
+                byte[] expected = reference(iv, plain);
+
+                ByteBuffer out = ByteBuffer.allocate(len);
+                SM4Utils.encryptCtrParallel(KEY, iv, ByteBuffer.wrap(plain), out, executorService);
+                assertEquals(len, out.position());
+                assertArrayEquals("len " + len, expected, out.array());
+
+                ByteBuffer back = ByteBuffer.allocate(len);
+                SM4Utils.decryptCtrParallel(KEY, iv, ByteBuffer.wrap(expected), back, executorService);
+                assertArrayEquals("len " + len, plain, back.array());
+            }
+        }
+    }
+
+    @Test
+    public void directAndOffsetBuffers() throws Exception {
+        for (byte[] iv : new byte[][]{IV, CARRY_IV}) {
+            for (int len : LENGTHS) {
+                byte[] plain = random(len);
+                byte[] expected = reference(iv, plain);
+
+                ByteBuffer in = ByteBuffer.allocateDirect(len + 3);
+                in.position(3);
+                in.put(plain);
+                in.position(3);
+                ByteBuffer out = ByteBuffer.allocateDirect(len + 7);
+                out.position(7);
+                SM4Utils.encryptCtrParallel(KEY, iv, in, out, executorService);
+                assertEquals(len + 3, in.position());
+                assertEquals(len + 7, out.position());
+                assertArrayEquals("len " + len, expected, bytes(out, 7, len));
+
+                // 堆上的切片缓冲区, arrayOffset 不为0
+                byte[] backing = new byte[len + 11];
+                ByteBuffer slice = ByteBuffer.wrap(backing, 5, len + 6).slice();
+                out.position(7);
+                SM4Utils.decryptCtrParallel(KEY, iv, out, slice);
+                assertArrayEquals("len " + len, plain, bytes(slice, 0, len));
+            }
+        }
+    }
+
+    @Test
+    public void files() throws Exception {
+        for (byte[] iv : new byte[][]{IV, CARRY_IV}) {
+            for (int len : LENGTHS) {
+                byte[] plain = random(len);
+                Path source = folder.newFile().toPath();
+                Path target = folder.newFile().toPath();
+                Path back = folder.newFile().toPath();
+                Files.write(source, plain);
+                // 目标文件原有内容更长, 须被截断
+                Files.write(target, new byte[len + 100]);
+
+                SM4Utils.encryptCtrParallel(KEY, iv, source, target, executorService);
+                assertArrayEquals("len " + len, reference(iv, plain), Files.readAllBytes(target));
+                SM4Utils.decryptCtrParallel(KEY, iv, target, back, executorService);
+                assertArrayEquals("len " + len, plain, Files.readAllBytes(back));
+            }
+        }
+    }
+
+    private static byte[] reference(byte[] iv, byte[] plain) throws Exception {
+        Cipher cipher = Cipher.getInstance("SM4/CTR/NoPadding", BouncyCastleProvider.PROVIDER_NAME);
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(KEY, "SM4"), new IvParameterSpec(iv));
+        return cipher.doFinal(plain);
+    }
+
+    private static byte[] bytes(ByteBuffer buffer, int from, int len) {
+        byte[] bytes = new byte[len];
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(from);
+        duplicate.get(bytes);
+        return bytes;
+    }
+
+    private static byte[] random(int len) {
+        byte[] bytes = new byte[len];
+        new Random(len).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] hex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; ++i) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,150 @@
+package com.jb.driver.sm9.bouncycastle;
+
+import com.jb.driver.sm9.core.KeyParse;
+import com.jb.driver.sm9.core.SM9Curve;
+import com.jb.driver.sm9.key.SM9MasterKeyPair;
+import com.jb.driver.sm9.key.SM9PrivateKey;
+import com.jb.model.enity.SM9KeyPair;
+import com.jb.model.result.SM9CipherResult;
+import com.jb.model.result.SM9DecryptResult;
+import com.jb.utils.SM9Utils;
+import it.unisa.dia.gas.plaf.jpbc.field.curve.CurveElement;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author zhaojb
+ * 批量解密, 结果与密文一一对应, 单条失败只记入该条结果
+ */
+public class SM9DecryptBatchTest {
+    private static final String ID = "Bob";
+
+    private static final int MESSAGES = 4;
+
+    private static String privateKeyHex;
+
+    private static SM9PrivateKey privateKey;
+
+    private static final List<byte[]> PLAIN_TEXTS = new ArrayList<>();
+
+    private static final List<SM9CipherResult> CIPHER_RESULTS = new ArrayList<>();
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        SM9KeyPair keyPair = SM9Utils.generateKeyPair(ID,SM9PrivateKey.PrivateKeyType.KEY_ENCRYPT);
+        KeyParse keyParse = new KeyParse();
+        SM9MasterKeyPair.MasterPublicKey masterPublicKey = keyParse.parseMasterPublicKey(keyPair.getMasterPublic());
+        privateKeyHex = keyPair.getPrivateKey();
+        privateKey = keyParse.parsePrivateKey(privateKeyHex);
+        SM9EncryptBouncyCastle encrypt = new SM9EncryptBouncyCastle();
+        for (int i = 0;i < MESSAGES;++i) {
+            String message = "message " + i + " " + new String(new char[i * 40]).replace('\0','x');
+            PLAIN_TEXTS.add(message.getBytes(StandardCharsets.UTF_8));
+            CIPHER_RESULTS.add(encrypt.encrypt(ID,masterPublicKey,message));
+        }
+    }
+
+    @Test
+    public void mixedBytesKeepOrder() {
+        byte[] tamperedC2 = CIPHER_RESULTS.get(1).toByteArray();
+        tamperedC2[tamperedC2.length - 1] ^= 1;
+        byte[] tamperedC3 = CIPHER_RESULTS.get(2).toByteArray();
+        tamperedC3[64] ^= 1;
+        byte[] truncated = CIPHER_RESULTS.get(3).toByteArray();
+        truncated = Arrays.copyOf(truncated,truncated.length - 3);
+
+        List<byte[]> batch = Arrays.asList(
+                CIPHER_RESULTS.get(0).toByteArray(),
+                tamperedC2,
+                new byte[10],
+                tamperedC3,
+                Arrays.copyOf(CIPHER_RESULTS.get(0).toByteArray(),80),
+                truncated,
+                CIPHER_RESULTS.get(3).toByteArray(),
+                CIPHER_RESULTS.get(2).toByteArray());
+
+        List<SM9DecryptResult> results = new SM9EncryptBouncyCastle().decryptBatchParamBytes(privateKey,ID,batch);
+        assertEquals(batch.size(),results.size());
+        assertSuccess(0,results.get(0));
+        assertError("C3 verify failed",results.get(1));
+        assertError("cipher format error",results.get(2));
+        assertError("C3 verify failed",results.get(3));
+        assertError("cipher format error",results.get(4));
+        assertError("C3 verify failed",results.get(5));
+        assertSuccess(3,results.get(6));
+        assertSuccess(2,results.get(7));
+
+        // 工具类入口解析私钥后走同一路径
+        List<SM9DecryptResult> utilsResults = SM9Utils.userPrivateDecryptBatch(ID,privateKeyHex,batch);
+        for (int i = 0;i < results.size();++i) {
+            assertEquals(results.get(i).isSuccess(),utilsResults.get(i).isSuccess());
+        }
+    }
+
+    @Test
+    public void cipherResultsWithExecutor() {
+        CurveElement infinity = SM9Curve.getInstance().getCurveFieldG1().newElement();
+        infinity.setToZero();
+        SM9CipherResult badC1 = new SM9CipherResult(infinity,CIPHER_RESULTS.get(0).getBytesC2(),
+                CIPHER_RESULTS.get(0).getBytesC3());
+
+        List<SM9CipherResult> batch = new ArrayList<>();
+        for (int i = MESSAGES - 1;i >= 0;--i) {
+            batch.add(CIPHER_RESULTS.get(i));
+        }
+        batch.add(2,badC1);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        List<SM9DecryptResult> results;
+        try {
+            results = new SM9EncryptBouncyCastle().decryptBatch(privateKey,ID,batch,false,32,executorService);
+        } finally {
+            executorService.shutdown();
+        }
+        assertSuccess(3,results.get(0));
+        assertSuccess(2,results.get(1));
+        assertError("C1 is not on G1 group",results.get(2));
+        assertSuccess(1,results.get(3));
+        assertSuccess(0,results.get(4));
+    }
+
+    @Test
+    public void wrongIdFailsEveryEntry() {
+        List<SM9DecryptResult> results = new SM9EncryptBouncyCastle().decryptBatch(privateKey,"Alice",CIPHER_RESULTS);
+        assertEquals(MESSAGES,results.size());
+        for (SM9DecryptResult result : results) {
+            assertFalse(result.isSuccess());
+        }
+    }
+
+    @Test
+    public void emptyBatch() {
+        assertTrue(new SM9EncryptBouncyCastle().decryptBatch(privateKey,ID,Collections.emptyList()).isEmpty());
+        assertTrue(new SM9EncryptBouncyCastle().decryptBatchParamBytes(privateKey,ID,Collections.emptyList()).isEmpty());
+    }
+
+    private static void assertSuccess(int index,SM9DecryptResult result) {
+        assertTrue(String.valueOf(result.getError()),result.isSuccess());
+        assertNull(result.getError());
+        assertArrayEquals(PLAIN_TEXTS.get(index),result.getBytesM());
+    }
+
+    private static void assertError(String error,SM9DecryptResult result) {
+        assertFalse(result.isSuccess());
+        assertEquals(error,result.getError());
+    }
+}
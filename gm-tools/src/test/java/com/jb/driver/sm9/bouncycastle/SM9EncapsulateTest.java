@@ -0,0 +1,104 @@
+package com.jb.driver.sm9.bouncycastle;
+
+import com.jb.driver.sm9.key.SM9PrivateKey;
+import com.jb.model.enity.SM9KeyPair;
+import com.jb.model.result.SM9EncapsulateResult;
+import com.jb.utils.SM9Utils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * @author zhaojb
+ * 密钥封装与解封
+ */
+public class SM9EncapsulateTest {
+    private static final String ID = "Bob";
+
+    private static final String OTHER_ID = "Alice";
+
+    private static SM9KeyPair keyPair;
+
+    private static String otherPrivateKey;
+
+    @BeforeClass
+    public static void setUp() {
+        keyPair = SM9Utils.generateKeyPair(ID,SM9PrivateKey.PrivateKeyType.KEY_ENCRYPT);
+        otherPrivateKey = SM9Utils.generatePrivateKey(keyPair.getMasterPrivate(),OTHER_ID,
+                SM9PrivateKey.PrivateKeyType.KEY_ENCRYPT);
+    }
+
+    @Test
+    public void roundTrip() {
+        for (int keyLen : new int[]{1,16,32,33,64,100}) {
+            SM9EncapsulateResult result = SM9Utils.encapsulate(ID,keyPair.getMasterPublic(),keyLen);
+            assertEquals(64,result.getBytesC1().length);
+            assertEquals(keyLen,result.getBytesK().length);
+            assertArrayEquals(result.getBytesK(),
+                    SM9Utils.decapsulate(ID,keyPair.getPrivateKey(),result.getBytesC1(),keyLen));
+        }
+    }
+
+    @Test
+    public void freshKeyEachTime() {
+        SM9EncapsulateResult first = SM9Utils.encapsulate(ID,keyPair.getMasterPublic(),32);
+        SM9EncapsulateResult second = SM9Utils.encapsulate(ID,keyPair.getMasterPublic(),32);
+        assertFalse(Arrays.equals(first.getBytesC1(),second.getBytesC1()));
+        assertFalse(Arrays.equals(first.getBytesK(),second.getBytesK()));
+    }
+
+    @Test
+    public void shorterKeyIsPrefix() {
+        // KDF输出按长度截取, 同一C解封出的短密钥是长密钥的前缀
+        SM9EncapsulateResult result = SM9Utils.encapsulate(ID,keyPair.getMasterPublic(),64);
+        byte[] bytesK = SM9Utils.decapsulate(ID,keyPair.getPrivateKey(),result.getBytesC1(),16);
+        assertArrayEquals(Arrays.copyOf(result.getBytesK(),16),bytesK);
+    }
+
+    @Test
+    public void otherIdKeyGivesDifferentK() {
+        SM9EncapsulateResult result = SM9Utils.encapsulate(ID,keyPair.getMasterPublic(),32);
+        byte[] bytesK = SM9Utils.decapsulate(OTHER_ID,otherPrivateKey,result.getBytesC1(),32);
+        assertFalse(Arrays.equals(result.getBytesK(),bytesK));
+        // 私钥与ID不匹配
+        bytesK = SM9Utils.decapsulate(OTHER_ID,keyPair.getPrivateKey(),result.getBytesC1(),32);
+        assertFalse(Arrays.equals(result.getBytesK(),bytesK));
+    }
+
+    @Test
+    public void invalidArguments() {
+        SM9EncapsulateResult result = SM9Utils.encapsulate(ID,keyPair.getMasterPublic(),32);
+        byte[] bytesC1 = result.getBytesC1();
+
+        assertIllegalArgument(() -> SM9Utils.encapsulate(ID,keyPair.getMasterPublic(),0));
+        assertIllegalArgument(() -> SM9Utils.encapsulate(ID,keyPair.getMasterPublic(),-1));
+        assertIllegalArgument(() -> SM9Utils.decapsulate(ID,keyPair.getPrivateKey(),bytesC1,0));
+        assertIllegalArgument(() -> SM9Utils.decapsulate(ID,keyPair.getPrivateKey(),bytesC1,-32));
+        assertIllegalArgument(() -> SM9Utils.decapsulate(ID,keyPair.getPrivateKey(),Arrays.copyOf(bytesC1,63),32));
+        assertIllegalArgument(() -> SM9Utils.decapsulate(ID,keyPair.getPrivateKey(),Arrays.copyOf(bytesC1,65),32));
+        assertIllegalArgument(() -> SM9Utils.decapsulate(ID,keyPair.getPrivateKey(),new byte[0],32));
+
+        // 长度正确但不在G1上
+        try {
+            SM9Utils.decapsulate(ID,keyPair.getPrivateKey(),new byte[64],32);
+            fail("infinity C accepted");
+        } catch (RuntimeException e) {
+            assertEquals("C1 is not on G1 group",e.getMessage());
+        }
+    }
+
+    private static void assertIllegalArgument(Runnable call) {
+        try {
+            call.run();
+            fail("invalid argument accepted");
+        } catch (IllegalArgumentException e) {
+            // 预期
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.jb.driver.sm9.bouncycastle;
+
+import com.jb.driver.sm9.core.KeyParse;
+import com.jb.driver.sm9.key.SM9MasterKeyPair;
+import com.jb.driver.sm9.key.SM9PrivateKey;
+import com.jb.model.enity.SM9KeyPair;
+import com.jb.utils.SM9Utils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author zhaojb
+ * 分段认证的流式加解密
+ */
+public class SM9EncryptStreamTest {
+    private static final String ID = "Bob";
+
+    private static final int CHUNK = 64 * 1024;
+
+    private static final int C1_LENGTH = 64;
+
+    private static final int C3_LENGTH = 32;
+
+    private static SM9MasterKeyPair.MasterPublicKey masterPublicKey;
+
+    private static SM9PrivateKey privateKey;
+
+    @BeforeClass
+    public static void setUp() {
+        SM9KeyPair keyPair = SM9Utils.generateKeyPair(ID,SM9PrivateKey.PrivateKeyType.KEY_ENCRYPT);
+        KeyParse keyParse = new KeyParse();
+        masterPublicKey = keyParse.parseMasterPublicKey(keyPair.getMasterPublic());
+        privateKey = keyParse.parsePrivateKey(keyPair.getPrivateKey());
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        Random random = new Random(1);
+        for (int len : new int[]{0,1,CHUNK - 1,CHUNK,CHUNK + 1,3 * CHUNK + 17}) {
+            byte[] m = random(random,len);
+            byte[] c = encrypt(m);
+            // 长度为段长整数倍时末尾有一个空的结束段
+            assertEquals(C1_LENGTH + len + (len / CHUNK + 1) * C3_LENGTH,c.length);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long n = new SM9EncryptBouncyCastle().decryptStream(privateKey,ID,new SlowInputStream(c,random),out);
+            assertEquals(len,n);
+            assertArrayEquals(m,out.toByteArray());
+        }
+    }
+
+    @Test
+    public void tamperedChunkIsNotReleased() throws Exception {
+        byte[] m = random(new Random(2),2 * CHUNK + 100);
+        byte[] c = encrypt(m);
+        // 第二段C2的首字节
+        c[C1_LENGTH + CHUNK + C3_LENGTH] ^= 1;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            new SM9EncryptBouncyCastle().decryptStream(privateKey,ID,new ByteArrayInputStream(c),out);
+            fail("tampered chunk accepted");
+        } catch (RuntimeException e) {
+            assertArrayEquals(Arrays.copyOf(m,CHUNK),out.toByteArray());
+        }
+    }
+
+    @Test
+    public void truncatedAtChunkBoundary() throws Exception {
+        byte[] m = random(new Random(3),2 * CHUNK);
+        byte[] c = encrypt(m);
+        int record = CHUNK + C3_LENGTH;
+
+        // 去掉末尾的空结束段
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            decrypt(Arrays.copyOf(c,C1_LENGTH + 2 * record),out);
+            fail("missing final chunk accepted");
+        } catch (EOFException e) {
+            assertArrayEquals(m,out.toByteArray());
+        }
+
+        // 在段内截断, 被截短的段冒充结束段
+        out.reset();
+        try {
+            decrypt(Arrays.copyOf(c,C1_LENGTH + record + 100),out);
+            fail("truncated chunk accepted");
+        } catch (RuntimeException e) {
+            assertArrayEquals(Arrays.copyOf(m,CHUNK),out.toByteArray());
+        }
+    }
+
+    @Test
+    public void reorderedChunks() throws Exception {
+        byte[] c = encrypt(random(new Random(4),2 * CHUNK + 1));
+        int record = CHUNK + C3_LENGTH;
+        byte[] swapped = c.clone();
+        System.arraycopy(c,C1_LENGTH,swapped,C1_LENGTH + record,record);
+        System.arraycopy(c,C1_LENGTH + record,swapped,C1_LENGTH,record);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            decrypt(swapped,out);
+            fail("reordered chunks accepted");
+        } catch (RuntimeException e) {
+            assertEquals(0,out.size());
+        }
+    }
+
+    @Test
+    public void wrongId() throws Exception {
+        byte[] c = encrypt(random(new Random(5),100));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            new SM9EncryptBouncyCastle().decryptStream(privateKey,"Alice",new ByteArrayInputStream(c),out);
+            fail("wrong id accepted");
+        } catch (RuntimeException e) {
+            assertEquals(0,out.size());
+        }
+    }
+
+    private static byte[] encrypt(byte[] m) throws IOException, GeneralSecurityException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long n = new SM9EncryptBouncyCastle().encryptStream(masterPublicKey,ID,new ByteArrayInputStream(m),out);
+        assertEquals(out.size(),n);
+        return out.toByteArray();
+    }
+
+    private static void decrypt(byte[] c,ByteArrayOutputStream out) throws IOException, GeneralSecurityException {
+        new SM9EncryptBouncyCastle().decryptStream(privateKey,ID,new ByteArrayInputStream(c),out);
+    }
+
+    private static byte[] random(Random random,int len) {
+        byte[] bytes = new byte[len];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * 每次只返回随机的少量字节
+     */
+    private static final class SlowInputStream extends InputStream {
+        private final ByteArrayInputStream in;
+        private final Random random;
+
+        private SlowInputStream(byte[] bytes,Random random) {
+            this.in = new ByteArrayInputStream(bytes);
+            this.random = random;
+        }
+
+        @Override
+        public int read() {
+            return this.in.read();
+        }
+
+        @Override
+        public int read(byte[] b,int off,int len) {
+            return this.in.read(b,off,Math.min(len,1 + this.random.nextInt(5000)));
+        }
+    }
+}
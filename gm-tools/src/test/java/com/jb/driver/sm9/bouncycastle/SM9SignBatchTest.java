@@ -0,0 +1,117 @@
+package com.jb.driver.sm9.bouncycastle;
+
+import com.jb.driver.sm9.core.KeyParse;
+import com.jb.driver.sm9.core.SM9Curve;
+import com.jb.driver.sm9.key.SM9MasterKeyPair;
+import com.jb.driver.sm9.key.SM9PrivateKey;
+import com.jb.model.enity.SM9KeyPair;
+import com.jb.model.parameter.SM9VerifyParameter;
+import com.jb.model.result.SM9SignResult;
+import com.jb.utils.SM9Utils;
+import it.unisa.dia.gas.plaf.jpbc.field.curve.CurveElement;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author zhaojb
+ * 批量验签, 结果与参数一一对应, 单条出错不影响其余各条
+ */
+public class SM9SignBatchTest {
+    private static final String ID = "Alice";
+
+    private static final byte[] MESSAGE = "batch message".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] OTHER_MESSAGE = "other message".getBytes(StandardCharsets.UTF_8);
+
+    private static SM9MasterKeyPair.MasterPublicKey masterPublicKey;
+
+    private static SM9SignResult signature;
+
+    private static SM9SignResult otherSignature;
+
+    @BeforeClass
+    public static void setUp() {
+        SM9KeyPair keyPair = SM9Utils.generateKeyPair(ID,SM9PrivateKey.PrivateKeyType.KEY_SIGN);
+        KeyParse keyParse = new KeyParse();
+        masterPublicKey = keyParse.parseMasterPublicKey(keyPair.getMasterPublic());
+        SM9PrivateKey privateKey = keyParse.parsePrivateKey(keyPair.getPrivateKey());
+        signature = SM9Utils.sign(masterPublicKey,privateKey,MESSAGE);
+        otherSignature = SM9Utils.sign(masterPublicKey,privateKey,OTHER_MESSAGE);
+    }
+
+    @Test
+    public void mixedResultsKeepOrder() {
+        List<SM9VerifyParameter> parameters = Arrays.asList(
+                new SM9VerifyParameter(ID,MESSAGE,signature),
+                new SM9VerifyParameter(ID,OTHER_MESSAGE,signature),
+                new SM9VerifyParameter("Bob",MESSAGE,signature),
+                new SM9VerifyParameter(ID,OTHER_MESSAGE,otherSignature));
+        assertEquals(Arrays.asList(true,false,false,true),SM9Utils.verifySignBatch(masterPublicKey,parameters));
+    }
+
+    @Test
+    public void malformedEntriesAreFalse() {
+        SM9Curve sm9Curve = SM9Curve.getInstance();
+        CurveElement infinity = sm9Curve.getCurveFieldG1().newElement();
+        infinity.setToZero();
+        byte[] garbage = new byte[96];
+        Arrays.fill(garbage,(byte)0x5A);
+
+        List<SM9VerifyParameter> parameters = Arrays.asList(
+                new SM9VerifyParameter(ID,MESSAGE,signature),
+                null,
+                new SM9VerifyParameter(ID,MESSAGE,null),
+                new SM9VerifyParameter(ID,MESSAGE,new SM9SignResult(null,signature.getS())),
+                new SM9VerifyParameter(ID,MESSAGE,new SM9SignResult(signature.getH(),null)),
+                new SM9VerifyParameter(ID,MESSAGE,new SM9SignResult(signature.getH(),infinity)),
+                new SM9VerifyParameter(ID,MESSAGE,new SM9SignResult(BigInteger.ZERO,signature.getS())),
+                new SM9VerifyParameter(ID,MESSAGE,new SM9SignResult(sm9Curve.getBigIntegerN(),signature.getS())),
+                new SM9VerifyParameter(ID,MESSAGE,SM9SignResult.fromByteArray(sm9Curve,garbage)),
+                new SM9VerifyParameter(null,MESSAGE,signature),
+                new SM9VerifyParameter(ID,null,signature),
+                new SM9VerifyParameter(ID,MESSAGE,signature));
+
+        List<Boolean> results = SM9Utils.verifySignBatch(masterPublicKey,parameters);
+        assertEquals(parameters.size(),results.size());
+        assertTrue(results.get(0));
+        for (int i = 1;i < results.size() - 1;++i) {
+            assertEquals("entry " + i,Boolean.FALSE,results.get(i));
+        }
+        assertTrue(results.get(results.size() - 1));
+    }
+
+    @Test
+    public void emptyBatch() {
+        assertTrue(SM9Utils.verifySignBatch(masterPublicKey,Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    public void explicitExecutor() {
+        List<SM9VerifyParameter> parameters = new ArrayList<>();
+        List<Boolean> expected = new ArrayList<>();
+        for (int i = 0;i < 12;++i) {
+            boolean valid = i % 3 != 1;
+            parameters.add(new SM9VerifyParameter(ID,valid ? MESSAGE : OTHER_MESSAGE,signature));
+            expected.add(valid);
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        try {
+            assertEquals(expected,SM9SignBouncyCastle.builder().verifyBatch(masterPublicKey,parameters,executorService));
+        } finally {
+            executorService.shutdown();
+        }
+    }
+}
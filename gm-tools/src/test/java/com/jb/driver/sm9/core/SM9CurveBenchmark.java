@@ -0,0 +1,80 @@
+package com.jb.driver.sm9.core;
+
+import com.jb.driver.sm9.key.SM9PrivateKey;
+import com.jb.model.enity.SM9KeyPair;
+import com.jb.utils.SM9Utils;
+
+import java.util.Arrays;
+
+/**
+ * @author zhaojb
+ * 共享曲线与每次调用重建曲线的单次调用耗时
+ * 共享曲线之前驱动类与KeyParse在每次调用中各建一条曲线, 原先的构造只有曲线参数与配对域
+ * 重建路径按调用本身加两次配对域构造计算, 另外单独列出当前 new SM9Curve() 的耗时, 它还要建P1,P2梳状表与P2线函数
+ * 不是单元测试, 手动运行: java -cp target/classes:target/test-classes:<依赖> com.jb.driver.sm9.core.SM9CurveBenchmark [轮数]
+ */
+public final class SM9CurveBenchmark {
+    private static final String ID = "Alice";
+
+    private static final String MESSAGE = "sm9 benchmark message";
+
+    private static final int WARMUP_ROUNDS = 5;
+
+    private SM9CurveBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+
+        SM9KeyPair signKeyPair = SM9Utils.generateKeyPair(ID,SM9PrivateKey.PrivateKeyType.KEY_SIGN);
+        SM9KeyPair encryptKeyPair = SM9Utils.generateKeyPair(ID,SM9PrivateKey.PrivateKeyType.KEY_ENCRYPT);
+        String signature = SM9Utils.sign(signKeyPair.getMasterPublic(),signKeyPair.getPrivateKey(),MESSAGE);
+
+        Task sign = () -> SM9Utils.sign(signKeyPair.getMasterPublic(),signKeyPair.getPrivateKey(),MESSAGE);
+        Task verify = () -> {
+            if (!SM9Utils.verifySign(ID,signKeyPair.getMasterPublic(),MESSAGE,signature)) {
+                throw new IllegalStateException("verify failed");
+            }
+        };
+        Task encrypt = () -> SM9Utils.encrypt(ID,encryptKeyPair.getMasterPublic(),MESSAGE);
+
+        long curve = time(rounds,() -> new SM9Curve.SM9CurveParameters.SM9Pairing(
+                SM9Curve.SM9CurveParameters.createSM9PropertiesParameters()));
+        report("pairing setup",curve);
+        report("new SM9Curve()",time(rounds,SM9Curve::new));
+        run("sign",sign,curve,rounds);
+        run("verify",verify,curve,rounds);
+        run("encrypt",encrypt,curve,rounds);
+    }
+
+    private static void run(String name,Task task,long curve,int rounds) throws Exception {
+        long shared = time(rounds,task);
+        report(name + " shared",shared);
+        report(name + " per-call curve",shared + 2 * curve);
+    }
+
+    /**
+     * 预热后取多轮的中位数, 单位纳秒
+     */
+    private static long time(int rounds,Task task) throws Exception {
+        for (int i = 0;i < WARMUP_ROUNDS;++i) {
+            task.run();
+        }
+        long[] times = new long[rounds];
+        for (int i = 0;i < rounds;++i) {
+            long start = System.nanoTime();
+            task.run();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[rounds / 2];
+    }
+
+    private static void report(String name,long nanos) {
+        System.out.printf("%-24s %10.2f ms%n",name,nanos / 1e6);
+    }
+
+    private interface Task {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,61 @@
+package com.jb.driver.sm9.core;
+
+import it.unisa.dia.gas.plaf.jpbc.field.curve.CurveElement;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author zhaojb
+ * 共享曲线的生成元不可被改写
+ */
+public class SM9CurveTest {
+    private final SM9Curve sm9Curve = SM9Curve.getInstance();
+
+    @Test
+    public void sharedInstance() {
+        assertSame(this.sm9Curve,SM9Curve.getInstance());
+    }
+
+    @Test
+    public void generatorsAreNotModifiedInPlace() {
+        CurveElement p1 = this.sm9Curve.getCurveP1();
+        CurveElement p2 = this.sm9Curve.getCurveP2();
+        byte[] p1Bytes = p1.toBytes();
+        byte[] p2Bytes = p2.toBytes();
+        assertTrue(p1.isImmutable());
+        assertTrue(p2.isImmutable());
+
+        // 不可变元素的运算返回新元素, 不抛出异常, 也不修改自身
+        assertFalse(p1.twice().isEqual(p1));
+        assertTrue(p1.mul(BigInteger.ONE.negate()).isEqual(p1.duplicate().negate()));
+        p1.add(p1);
+        p2.twice();
+        p2.mul(BigInteger.TEN);
+
+        // 赋值方法抛出异常
+        assertSetterThrows(p1::setToZero);
+        assertSetterThrows(() -> p1.setFromBytes(p2Bytes));
+        assertSetterThrows(() -> p2.set(p2.duplicate().twice()));
+
+        assertArrayEquals(p1Bytes,this.sm9Curve.getCurveP1().toBytes());
+        assertArrayEquals(p2Bytes,this.sm9Curve.getCurveP2().toBytes());
+        assertTrue(this.sm9Curve.mulP1(BigInteger.ONE).isEqual(p1));
+        assertTrue(this.sm9Curve.mulP2(BigInteger.ONE).isEqual(p2));
+    }
+
+    private static void assertSetterThrows(Runnable setter) {
+        try {
+            setter.run();
+            fail("immutable generator modified");
+        } catch (IllegalStateException e) {
+            // 预期
+        }
+    }
+}
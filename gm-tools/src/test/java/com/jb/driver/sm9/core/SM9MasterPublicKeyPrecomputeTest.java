@@ -0,0 +1,71 @@
+package com.jb.driver.sm9.core;
+
+import com.jb.driver.sm9.key.SM9MasterKeyPair;
+import com.jb.driver.sm9.key.SM9PrivateKey;
+import com.jb.utils.SM9Utils;
+import org.junit.After;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author zhaojb
+ * 主公钥预计算缓存
+ */
+public class SM9MasterPublicKeyPrecomputeTest {
+    private final SM9Curve sm9Curve = SM9Curve.getInstance();
+
+    @After
+    public void restoreCacheSize() {
+        SM9MasterPublicKeyPrecompute.configureCache(SM9MasterPublicKeyPrecompute.MAX_CACHE_SIZE);
+    }
+
+    @Test
+    public void powMatchesG() {
+        SM9MasterKeyPair.MasterPublicKey masterPublicKey = this.masterPublicKey(SM9PrivateKey.PrivateKeyType.KEY_SIGN);
+        SM9MasterPublicKeyPrecompute precompute = SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,masterPublicKey);
+        assertTrue(precompute.getG().isEqual(this.sm9Curve.pairing(this.sm9Curve.getCurveP1(),masterPublicKey.Q)));
+        BigInteger r = new BigInteger("1234567890abcdef1234567890abcdef",16);
+        assertTrue(precompute.pow(r).isEqual(precompute.getG().duplicate().pow(r)));
+
+        masterPublicKey = this.masterPublicKey(SM9PrivateKey.PrivateKeyType.KEY_ENCRYPT);
+        precompute = SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,masterPublicKey);
+        assertTrue(precompute.getG().isEqual(this.sm9Curve.pairing(masterPublicKey.Q,this.sm9Curve.getCurveP2())));
+    }
+
+    @Test
+    public void configureCacheEvictsLeastRecentlyUsed() {
+        SM9MasterKeyPair.MasterPublicKey first = this.masterPublicKey(SM9PrivateKey.PrivateKeyType.KEY_SIGN);
+        SM9MasterKeyPair.MasterPublicKey second = this.masterPublicKey(SM9PrivateKey.PrivateKeyType.KEY_SIGN);
+        SM9MasterKeyPair.MasterPublicKey third = this.masterPublicKey(SM9PrivateKey.PrivateKeyType.KEY_ENCRYPT);
+
+        SM9MasterPublicKeyPrecompute firstPrecompute = SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,first);
+        SM9MasterPublicKeyPrecompute secondPrecompute = SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,second);
+        assertSame(firstPrecompute,SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,first));
+
+        // 缩小到1个, 最近使用的first保留
+        SM9MasterPublicKeyPrecompute.configureCache(1);
+        assertSame(firstPrecompute,SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,first));
+        assertNotSame(secondPrecompute,SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,second));
+
+        // 新的主公钥挤掉之前的
+        SM9MasterPublicKeyPrecompute.configureCache(2);
+        SM9MasterPublicKeyPrecompute current = SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,second);
+        SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,third);
+        assertSame(current,SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,second));
+        assertNotSame(firstPrecompute,SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,first));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cacheSizeMustBePositive() {
+        SM9MasterPublicKeyPrecompute.configureCache(0);
+    }
+
+    private SM9MasterKeyPair.MasterPublicKey masterPublicKey(SM9PrivateKey.PrivateKeyType type) {
+        return new KeyParse().parseMasterPublicKey(SM9Utils.generateKeyPair("Alice",type).getMasterPublic());
+    }
+}
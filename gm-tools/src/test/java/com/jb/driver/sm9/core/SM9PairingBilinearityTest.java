@@ -0,0 +1,71 @@
+package com.jb.driver.sm9.core;
+
+import it.unisa.dia.gas.jpbc.Element;
+import it.unisa.dia.gas.plaf.jpbc.field.curve.CurveElement;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author zhaojb
+ * 配对的双线性与非退化性, 随机标量覆盖Miller循环中各种倍点,加点线函数与稀疏乘法的输入
+ */
+public class SM9PairingBilinearityTest {
+    private static final int ROUNDS = 8;
+
+    private final SM9Curve sm9Curve = SM9Curve.getInstance();
+
+    private final Random random = new Random(20240601L);
+
+    @Test
+    public void nonDegenerate() {
+        Element g = this.sm9Curve.pairing(this.sm9Curve.getCurveP1(),this.sm9Curve.getCurveP2());
+        assertFalse(g.isOne());
+        assertTrue(g.duplicate().pow(this.sm9Curve.getBigIntegerN()).isOne());
+    }
+
+    @Test
+    public void scalarsMoveOutOfThePairing() {
+        Element g = this.sm9Curve.pairing(this.sm9Curve.getCurveP1(),this.sm9Curve.getCurveP2());
+        for (int i = 0;i < ROUNDS;++i) {
+            BigInteger a = this.randomScalar();
+            BigInteger b = this.randomScalar();
+            CurveElement p = this.sm9Curve.mulP1(a);
+            CurveElement q = this.sm9Curve.mulP2(b);
+            Element expected = g.duplicate().pow(a.multiply(b).mod(this.sm9Curve.getBigIntegerN()));
+
+            assertTrue(this.sm9Curve.pairing(p,q).isEqual(expected));
+            assertTrue(this.sm9Curve.pairingPreProcessing(q).pairing(p).isEqual(expected));
+        }
+    }
+
+    @Test
+    public void linearInEachArgument() {
+        for (int i = 0;i < ROUNDS;++i) {
+            CurveElement p = this.sm9Curve.mulP1(this.randomScalar());
+            CurveElement p2 = this.sm9Curve.mulP1(this.randomScalar());
+            CurveElement q = this.sm9Curve.mulP2(this.randomScalar());
+            CurveElement q2 = this.sm9Curve.mulP2(this.randomScalar());
+
+            // e(p + p2, q) = e(p, q) * e(p2, q)
+            Element left = this.sm9Curve.pairing((CurveElement)p.duplicate().add(p2),q);
+            assertTrue(left.isEqual(this.sm9Curve.pairing(p,q).duplicate().mul(this.sm9Curve.pairing(p2,q))));
+            // e(p, q + q2) = e(p, q) * e(p, q2)
+            Element right = this.sm9Curve.pairing(p,(CurveElement)q.duplicate().add(q2));
+            assertTrue(right.isEqual(this.sm9Curve.pairing(p,q).duplicate().mul(this.sm9Curve.pairing(p,q2))));
+        }
+    }
+
+    private BigInteger randomScalar() {
+        BigInteger n = this.sm9Curve.getBigIntegerN();
+        BigInteger k;
+        do {
+            k = new BigInteger(n.bitLength(),this.random);
+        } while (k.signum() == 0 || k.compareTo(n) >= 0);
+        return k;
+    }
+}
@@ -0,0 +1,73 @@
+package com.jb.driver.sm9.core;
+
+import com.jb.driver.sm9.method.SM9Method;
+import it.unisa.dia.gas.jpbc.Element;
+import it.unisa.dia.gas.plaf.jpbc.field.curve.CurveElement;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author zhaojb
+ * 配对已知答案, 与配对的实现方式无关
+ * GB/T 38635.2 数字签名示例: 签名主私钥 ks, 签名主公钥 Ppub-s = [ks]P2, g = e(P1, Ppub-s)
+ * 另一组为改写配对之前的版本计算的 e([123456789]P1, [987654321]P2)
+ */
+public class SM9PairingKnownAnswerTest {
+    private static final BigInteger KS = new BigInteger("0130E78459D78545CB54C587E02CF480CE0B66340F319F348A1D5B1F2DC5F4",16);
+
+    private static final String PPUB_S = "9f64080b3084f733e48aff4b41b565011ce0711c5e392cfb0ab1b6791b94c408" +
+            "29dba116152d1f786ce843ed24a3b573414d2177386a92dd8f14d65696ea5e32" +
+            "69850938abea0112b57329f447e3a0cbad3e2fdb1a77f335e89e1408d0ef1c25" +
+            "41e00a53dda532da1a7ce027b7a46f741006e85f5cdff0730e75c05fb4e3216d";
+
+    private static final String G = "4e378fb5561cd0668f906b731ac58fee25738edf09cadc7a29c0abc0177aea6d" +
+            "28b3404a61908f5d6198815c99af1990c8af38655930058c28c21bb539ce0000" +
+            "38bffe40a22d529a0c66124b2c308dac9229912656f62b4facfced408e02380f" +
+            "a01f2c8bee81769609462c69c96aa923fd863e209d3ce26dd889b55e2e3873db" +
+            "67e0e0c2eed7a6993dce28fe9aa2ef56834307860839677f96685f2b44d0911f" +
+            "5a1ae172102efd95df7338dbc577c66d8d6c15e0a0158c7507228efb078f42a6" +
+            "1604a3fcfa9783e667ce9fcb1062c2a5c6685c316dda62de0548baa6ba30038b" +
+            "93634f44fa13af76169f3cc8fbea880adaff8475d5fd28a75deb83c44362b439" +
+            "b3129a75d31d17194675a1bc56947920898fbf390a5bf5d931ce6cbb3340f66d" +
+            "4c744e69c4a2e1c8ed72f796d151a17ce2325b943260fc460b9f73cb57c9014b" +
+            "84b87422330d7936eaba1109fa5a7a7181ee16f2438b0aeb2f38fd5f7554e57a" +
+            "aab9f06a4eeba4323a7833db202e4e35639d93fa3305af73f0f071d7d284fcfb";
+
+    private static final String BASELINE = "a9290e4347e35672f3407a72fd3e72ad4c2e4b1cc1389ea4f932efc9e2e0489c" +
+            "a39918c7966517be73683b46c43363af929896b65b0128bfea3a1a4e84588e06" +
+            "1284a8f5e377f465e17a27d2b14f6b48924f4acb549d04cb00716414e0e65b1d" +
+            "6e4d17ed8fd9fae7371e26f619b1bccf8a2746b3a6c4a1908da60fa96acd9c41" +
+            "0a406c0d02132aa5f84a085ff481585781aeb3fe38d150b6952496e19205f69b" +
+            "8e93c48ceb7dbdc2b33d1b5a5635473de8b513eeae39b63bec2cc226e62cff16" +
+            "09a0698a6255a222d381417affaeeefdad58156121c0d79286c4d33fa98a1d54" +
+            "a71c754050bdf40536a2700ff76d276ffa524474cd819c1cb18bc0f56b89c271" +
+            "58dc78fa6a7c86093298086529284ae1d6cb1a9ad37e1ea7b76a30d04b4006a6" +
+            "540de7fc6b9591770a8fedd110f41aaf214e2275635188d01a495bd87389a145" +
+            "01b2d7023e8f6ba40e89fc1715fad819a3727c6d7d55818ccea98323ea6b5cb1" +
+            "5de6486efe89a0e6efea9ee88185caef75566f3683261fbaaf784dccb90e1ee1";
+
+    private final SM9Curve sm9Curve = SM9Curve.getInstance();
+
+    @Test
+    public void standardSignExample() {
+        CurveElement pubS = this.sm9Curve.mulP2(KS);
+        assertEquals(PPUB_S,Hex.toHexString(SM9Method.curveFieldG2ToByte(pubS)));
+
+        Element g = this.sm9Curve.pairing(this.sm9Curve.getCurveP1(),pubS);
+        assertEquals(G,Hex.toHexString(SM9Method.gtFiniteToByte(g)));
+        g = this.sm9Curve.pairingPreProcessing(pubS).pairing(this.sm9Curve.getCurveP1());
+        assertEquals(G,Hex.toHexString(SM9Method.gtFiniteToByte(g)));
+    }
+
+    @Test
+    public void baselinePairing() {
+        CurveElement p = this.sm9Curve.mulP1(new BigInteger("123456789"));
+        CurveElement q = this.sm9Curve.mulP2(new BigInteger("987654321"));
+        assertEquals(BASELINE,Hex.toHexString(SM9Method.gtFiniteToByte(this.sm9Curve.pairing(p,q))));
+        assertEquals(BASELINE,Hex.toHexString(SM9Method.gtFiniteToByte(this.sm9Curve.pairingPreProcessing(q).pairing(p))));
+    }
+}
@@ -0,0 +1,113 @@
+package com.jb.driver.sm9.core;
+
+import com.jb.driver.sm9.key.SM9PrivateKey;
+import com.jb.model.enity.SM9KeyPair;
+import com.jb.utils.SM9Utils;
+import it.unisa.dia.gas.jpbc.PairingPreProcessing;
+import it.unisa.dia.gas.plaf.jpbc.field.curve.CurveElement;
+import org.junit.After;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author zhaojb
+ * 固定G2点的配对预处理及其序列化格式
+ */
+public class SM9PairingPreProcessingTest {
+    /**
+     * 序列化长度: G2点128字节 + 81个线函数 * 3 * 64字节, 持久化格式依赖于此
+     */
+    private static final int PREPROCESSING_LENGTH = 15872;
+
+    private final SM9Curve sm9Curve = SM9Curve.getInstance();
+
+    @After
+    public void disableVerifyPreProcessing() {
+        SM9MasterPublicKeyPrecompute.setVerifyPairingPreProcessingEnabled(false);
+    }
+
+    @Test
+    public void pairingMatchesPlainPairing() {
+        CurveElement q = this.sm9Curve.mulP2(new BigInteger("123456789abcdef0",16));
+        PairingPreProcessing preProcessing = this.sm9Curve.pairingPreProcessing(q);
+        for (int i = 1;i <= 4;++i) {
+            CurveElement p = this.sm9Curve.mulP1(BigInteger.valueOf(1000L * i + 7));
+            assertTrue(preProcessing.pairing(p).isEqual(this.sm9Curve.pairing(p,q)));
+        }
+        CurveElement p = this.sm9Curve.mulP1(BigInteger.valueOf(99L));
+        assertTrue(this.sm9Curve.pairingP2(p).isEqual(this.sm9Curve.pairing(p,this.sm9Curve.getCurveP2())));
+    }
+
+    @Test
+    public void bytesRoundTrip() {
+        CurveElement q = this.sm9Curve.mulP2(new BigInteger("fedcba9876543210",16));
+        byte[] bytes = this.sm9Curve.pairingPreProcessing(q).toBytes();
+        assertEquals(PREPROCESSING_LENGTH,bytes.length);
+        assertEquals(PREPROCESSING_LENGTH,this.sm9Curve.getSm9Pairing().getPairingPreProcessingLengthInBytes());
+        assertArrayEquals(q.toBytes(),Arrays.copyOf(bytes,128));
+
+        PairingPreProcessing restored = this.sm9Curve.pairingPreProcessingFromBytes(bytes);
+        assertArrayEquals(bytes,restored.toBytes());
+        for (int i = 1;i <= 3;++i) {
+            CurveElement p = this.sm9Curve.mulP1(BigInteger.valueOf(31L * i));
+            assertTrue(restored.pairing(p).isEqual(this.sm9Curve.pairing(p,q)));
+        }
+    }
+
+    @Test
+    public void infinityQ() {
+        CurveElement q = this.sm9Curve.getCurveFieldG2().newElement();
+        q.setToZero();
+        PairingPreProcessing preProcessing = this.sm9Curve.pairingPreProcessing(q);
+        CurveElement p = this.sm9Curve.mulP1(BigInteger.TEN);
+        assertTrue(preProcessing.pairing(p).isOne());
+
+        byte[] bytes = preProcessing.toBytes();
+        assertEquals(PREPROCESSING_LENGTH,bytes.length);
+        assertTrue(this.sm9Curve.pairingPreProcessingFromBytes(bytes).pairing(p).isOne());
+    }
+
+    @Test
+    public void infinityP() {
+        PairingPreProcessing preProcessing = this.sm9Curve.pairingPreProcessing(this.sm9Curve.getCurveP2());
+        CurveElement p = this.sm9Curve.getCurveFieldG1().newElement();
+        p.setToZero();
+        assertTrue(preProcessing.pairing(p).isOne());
+    }
+
+    @Test
+    public void truncatedBytesRejected() {
+        byte[] bytes = this.sm9Curve.pairingPreProcessing(this.sm9Curve.getCurveP2()).toBytes();
+        try {
+            this.sm9Curve.pairingPreProcessingFromBytes(Arrays.copyOf(bytes,bytes.length - 1));
+            fail("truncated preprocessing accepted");
+        } catch (IllegalArgumentException e) {
+            // 预期
+        }
+    }
+
+    @Test
+    public void verifyWithPreProcessing() {
+        SM9MasterPublicKeyPrecompute.setVerifyPairingPreProcessingEnabled(true);
+        SM9KeyPair keyPair = SM9Utils.generateKeyPair("Alice",SM9PrivateKey.PrivateKeyType.KEY_SIGN);
+        String signature = SM9Utils.sign(keyPair.getMasterPublic(),keyPair.getPrivateKey(),"message");
+
+        for (int i = 0;i < 3;++i) {
+            assertTrue(SM9Utils.verifySign("Alice",keyPair.getMasterPublic(),"message",signature));
+        }
+        assertFalse(SM9Utils.verifySign("Alice",keyPair.getMasterPublic(),"other message",signature));
+        assertFalse(SM9Utils.verifySign("Bob",keyPair.getMasterPublic(),"message",signature));
+
+        SM9MasterPublicKeyPrecompute precompute = SM9MasterPublicKeyPrecompute.getInstance(this.sm9Curve,
+                new KeyParse().parseMasterPublicKey(keyPair.getMasterPublic()));
+        assertTrue(precompute.getVerifyPairingCache().getHitCount() >= 3);
+    }
+}
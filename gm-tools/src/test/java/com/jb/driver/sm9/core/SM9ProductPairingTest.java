@@ -0,0 +1,96 @@
+package com.jb.driver.sm9.core;
+
+import it.unisa.dia.gas.jpbc.Element;
+import it.unisa.dia.gas.plaf.jpbc.field.curve.CurveElement;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author zhaojb
+ * 配对乘积须等于各配对值之积, 含无穷远点的一对视为1
+ */
+public class SM9ProductPairingTest {
+    private final SM9Curve sm9Curve = SM9Curve.getInstance();
+
+    @Test
+    public void productOfOneTwoThree() {
+        CurveElement[] p = this.pointsP(3);
+        CurveElement[] q = this.pointsQ(3);
+        for (int n = 1;n <= 3;++n) {
+            CurveElement[] pn = Arrays.copyOf(p,n);
+            CurveElement[] qn = Arrays.copyOf(q,n);
+            assertTrue("n = " + n,this.sm9Curve.pairing(pn,qn).isEqual(this.product(pn,qn)));
+            assertTrue("n = " + n,this.sm9Curve.getSm9Pairing().pairing(pn,qn).isEqual(this.product(pn,qn)));
+        }
+    }
+
+    @Test
+    public void pairWithInfinityContributesOne() {
+        CurveElement[] p = this.pointsP(3);
+        CurveElement[] q = this.pointsQ(3);
+        Element withoutMiddle = this.sm9Curve.pairing(p[0],q[0]).duplicate().mul(this.sm9Curve.pairing(p[2],q[2]));
+
+        // 无穷远点在G1一侧
+        CurveElement[] p1 = p.clone();
+        p1[1] = this.infinity(this.sm9Curve.getCurveFieldG1().newElement());
+        assertTrue(this.sm9Curve.pairing(p1,q).isEqual(withoutMiddle));
+
+        // 无穷远点在G2一侧
+        CurveElement[] q1 = q.clone();
+        q1[1] = this.infinity(this.sm9Curve.getCurveFieldG2().newElement());
+        assertTrue(this.sm9Curve.pairing(p,q1).isEqual(withoutMiddle));
+
+        // 单独一对无穷远点
+        assertTrue(this.sm9Curve.pairing(new CurveElement[]{p1[1]},new CurveElement[]{q[1]}).isOne());
+        assertTrue(this.sm9Curve.pairing(new CurveElement[]{p[1]},new CurveElement[]{q1[1]}).isOne());
+    }
+
+    @Test
+    public void emptyProductIsOne() {
+        assertTrue(this.sm9Curve.pairing(new CurveElement[0],new CurveElement[0]).isOne());
+    }
+
+    @Test
+    public void lengthMismatchRejected() {
+        try {
+            this.sm9Curve.pairing(this.pointsP(2),this.pointsQ(1));
+            fail("length mismatch accepted");
+        } catch (IllegalArgumentException e) {
+            // 预期
+        }
+    }
+
+    private Element product(CurveElement[] p,CurveElement[] q) {
+        Element product = this.sm9Curve.getFiniteFieldGT().newOneElement();
+        for (int i = 0;i < p.length;++i) {
+            product.mul(this.sm9Curve.pairing(p[i],q[i]));
+        }
+        return product;
+    }
+
+    private CurveElement[] pointsP(int n) {
+        CurveElement[] points = new CurveElement[n];
+        for (int i = 0;i < n;++i) {
+            points[i] = this.sm9Curve.mulP1(BigInteger.valueOf(1000003L * (i + 1)));
+        }
+        return points;
+    }
+
+    private CurveElement[] pointsQ(int n) {
+        CurveElement[] points = new CurveElement[n];
+        for (int i = 0;i < n;++i) {
+            points[i] = this.sm9Curve.mulP2(BigInteger.valueOf(7000001L * (i + 1)));
+        }
+        return points;
+    }
+
+    private CurveElement infinity(CurveElement point) {
+        point.setToZero();
+        return point;
+    }
+}
@@ -0,0 +1,188 @@
+package com.jb.driver.sm9.field;
+
+import com.jb.driver.sm9.core.SM9Curve;
+import it.unisa.dia.gas.jpbc.Point;
+import it.unisa.dia.gas.plaf.jpbc.field.z.ZrElement;
+import it.unisa.dia.gas.plaf.jpbc.field.z.ZrField;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author zhaojb
+ * Montgomery形式的 Fq 与 Zr 运算与 BigInteger 模运算对比
+ */
+public class SM9FpFieldTest {
+    private static final int ROUNDS = 300;
+
+    private static final BigInteger TWO_256 = BigInteger.ONE.shiftLeft(256);
+
+    private final Random random = new Random(20260103L);
+
+    private static SM9FpField fq() {
+        SM9Curve.SM9CurveParameters.SM9Pairing pairing = SM9Curve.getInstance().getSm9Pairing();
+        return (SM9FpField)((Point)pairing.getFq2().newElement()).getX().getField();
+    }
+
+    private static SM9FpField zr() {
+        return (SM9FpField)SM9Curve.getInstance().getSm9Pairing().getZr();
+    }
+
+    @Test
+    public void arithmeticModQ() {
+        checkArithmetic(fq());
+    }
+
+    @Test
+    public void arithmeticModN() {
+        checkArithmetic(zr());
+    }
+
+    @Test
+    public void sqrtModQ() {
+        SM9FpField field = fq();
+        BigInteger p = field.getOrder();
+        for (BigInteger a : this.operands(p)) {
+            BigInteger square = a.multiply(a).mod(p);
+            SM9FpElement root = field.newElement().set(square);
+            assertTrue(root.isSqr());
+            root.sqrt();
+            assertEquals("sqrt(" + a + "^2)",square,root.toBigInteger().multiply(root.toBigInteger()).mod(p));
+        }
+        // beta为非二次剩余
+        assertTrue(!field.newElement().set(field.getNqr().toBigInteger()).isSqr());
+    }
+
+    @Test
+    public void setFromHashMatchesZrField() {
+        for (SM9FpField field : new SM9FpField[]{fq(),zr()}) {
+            ZrField reference = new ZrField(field.getOrder());
+            for (int len : new int[]{0,1,20,31,32,33,64,100}) {
+                byte[] hash = this.randomBytes(len);
+                ZrElement expected = reference.newElement();
+                expected.setFromHash(hash,0,len);
+                SM9FpElement actual = field.newElement();
+                actual.setFromHash(hash,0,len);
+                assertEquals("hash length " + len,expected.toBigInteger(),actual.toBigInteger());
+            }
+        }
+    }
+
+    @Test
+    public void bytesRoundTrip() {
+        for (SM9FpField field : new SM9FpField[]{fq(),zr()}) {
+            BigInteger p = field.getOrder();
+            for (BigInteger a : this.operands(p)) {
+                byte[] bytes = field.newElement().set(a).toBytes();
+                assertEquals(32,bytes.length);
+                assertArrayEquals(toFixedBytes(a),bytes);
+
+                byte[] padded = new byte[bytes.length + 3];
+                System.arraycopy(bytes,0,padded,3,bytes.length);
+                SM9FpElement back = field.newElement();
+                assertEquals(32,back.setFromBytes(padded,3));
+                assertEquals(a,back.toBigInteger());
+            }
+        }
+    }
+
+    private void checkArithmetic(SM9FpField field) {
+        BigInteger p = field.getOrder();
+        BigInteger halfInverse = BigInteger.valueOf(2L).modInverse(p);
+        List<BigInteger> operands = this.operands(p);
+        for (BigInteger a : operands) {
+            for (BigInteger b : operands) {
+                String tag = a.toString(16) + ", " + b.toString(16);
+                assertEquals("add " + tag,a.add(b).mod(p),element(field,a).add(element(field,b)).toBigInteger());
+                assertEquals("sub " + tag,a.subtract(b).mod(p),
+                        element(field,a).sub(element(field,b)).toBigInteger());
+                assertEquals("mul " + tag,a.multiply(b).mod(p),
+                        element(field,a).mul(element(field,b)).toBigInteger());
+                assertEquals("mul(BigInteger) " + tag,a.multiply(b).mod(p),
+                        element(field,a).mul(b).toBigInteger());
+                if (b.signum() != 0) {
+                    assertEquals("div " + tag,a.multiply(b.modInverse(p)).mod(p),
+                            element(field,a).div(element(field,b)).toBigInteger());
+                }
+            }
+            assertEquals("square " + a,a.multiply(a).mod(p),element(field,a).square().toBigInteger());
+            assertEquals("twice " + a,a.shiftLeft(1).mod(p),element(field,a).twice().toBigInteger());
+            assertEquals("halve " + a,a.multiply(halfInverse).mod(p),element(field,a).halve().toBigInteger());
+            assertEquals("negate " + a,a.negate().mod(p),element(field,a).negate().toBigInteger());
+            assertEquals("mul(int) " + a,a.multiply(BigInteger.valueOf(-7L)).mod(p),
+                    element(field,a).mul(-7).toBigInteger());
+            assertEquals("mul(int) " + a,a.multiply(BigInteger.valueOf(Integer.MAX_VALUE)).mod(p),
+                    element(field,a).mul(Integer.MAX_VALUE).toBigInteger());
+            BigInteger e = new BigInteger(256,this.random);
+            assertEquals("pow " + a,a.modPow(e,p),element(field,a).pow(e).toBigInteger());
+            if (a.signum() != 0) {
+                assertEquals("invert " + a,a.modInverse(p),element(field,a).invert().toBigInteger());
+                assertEquals("pow(-e) " + a,a.modPow(e.negate(),p),element(field,a).pow(e.negate()).toBigInteger());
+            }
+        }
+
+        for (int i = 0;i < ROUNDS;++i) {
+            BigInteger a = new BigInteger(256,this.random).mod(p);
+            BigInteger b = new BigInteger(256,this.random).mod(p);
+            assertEquals(a.multiply(b).mod(p),element(field,a).mul(element(field,b)).toBigInteger());
+            assertEquals(a.add(b).mod(p),element(field,a).add(element(field,b)).toBigInteger());
+            assertEquals(a.subtract(b).mod(p),element(field,a).sub(element(field,b)).toBigInteger());
+        }
+
+        // set对超出范围与负数取模
+        assertEquals(TWO_256.subtract(BigInteger.ONE).mod(p),
+                field.newElement().set(TWO_256.subtract(BigInteger.ONE)).toBigInteger());
+        assertEquals(p.subtract(BigInteger.ONE),field.newElement().set(-1).toBigInteger());
+        assertTrue(field.newElement().set(p).isZero());
+        assertTrue(field.newElement().set(BigInteger.ONE).isOne());
+    }
+
+    private static SM9FpElement element(SM9FpField field,BigInteger value) {
+        return field.newElement().set(value);
+    }
+
+    /**
+     * 边界值 0, 1, 2, p-1, p-2, (p-1)/2, 2^256 mod p 附近的值, 以及随机值
+     */
+    private List<BigInteger> operands(BigInteger p) {
+        List<BigInteger> values = new ArrayList<>();
+        values.add(BigInteger.ZERO);
+        values.add(BigInteger.ONE);
+        values.add(BigInteger.valueOf(2L));
+        values.add(p.subtract(BigInteger.ONE));
+        values.add(p.subtract(BigInteger.valueOf(2L)));
+        values.add(p.shiftRight(1));
+        values.add(TWO_256.mod(p));
+        values.add(TWO_256.subtract(BigInteger.ONE).mod(p));
+        values.add(TWO_256.add(BigInteger.ONE).mod(p));
+        values.add(TWO_256.multiply(TWO_256).mod(p));
+        values.add(BigInteger.ONE.shiftLeft(255).mod(p));
+        values.add(BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE));
+        values.add(BigInteger.ONE.shiftLeft(192));
+        for (int i = 0;i < 8;++i) {
+            values.add(new BigInteger(256,this.random).mod(p));
+        }
+        return values;
+    }
+
+    private byte[] randomBytes(int len) {
+        byte[] data = new byte[len];
+        this.random.nextBytes(data);
+        return data;
+    }
+
+    private static byte[] toFixedBytes(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] result = new byte[32];
+        int len = Math.min(bytes.length,32);
+        System.arraycopy(bytes,bytes.length - len,result,32 - len,len);
+        return result;
+    }
+}
@@ -0,0 +1,123 @@
+package com.jb.driver.sm9.field;
+
+import com.jb.driver.sm9.core.SM9Curve;
+import it.unisa.dia.gas.jpbc.Element;
+import it.unisa.dia.gas.jpbc.Field;
+import it.unisa.dia.gas.jpbc.Point;
+import it.unisa.dia.gas.plaf.jpbc.field.poly.PolyElement;
+import it.unisa.dia.gas.plaf.jpbc.field.poly.PolyField;
+import it.unisa.dia.gas.plaf.jpbc.field.poly.PolyModElement;
+import it.unisa.dia.gas.plaf.jpbc.field.poly.PolyModField;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author zhaojb
+ * 塔式扩域 Fq12 与通用 PolyModField Fq2[w]/(w^6 - u) 对比, 两者系数顺序与序列化一致
+ */
+public class SM9Fq12ElementTest {
+    private static final int ROUNDS = 10;
+
+    private final SM9Curve.SM9CurveParameters.SM9Pairing pairing = SM9Curve.getInstance().getSm9Pairing();
+    private final SM9Fq12Field<Field> fq12 = this.pairing.getFq12();
+    private final PolyModField<Field> generic = genericFq12(this.pairing.getFq2());
+
+    /**
+     * w^6 - u, 即TypeFPairing中的不可约多项式 w^6 + negAlpha
+     */
+    @SuppressWarnings("unchecked")
+    private static PolyModField<Field> genericFq12(Field fq2) {
+        SecureRandom random = new SecureRandom();
+        PolyField<Field> polyField = new PolyField<>(random,fq2);
+        PolyElement<Element> irreduciblePoly = polyField.newElement();
+        Point negU = (Point)fq2.newElement();
+        negU.getY().setToOne().negate();
+        irreduciblePoly.getCoefficients().add(negU);
+        for (int i = 1;i < 6;++i) {
+            irreduciblePoly.getCoefficients().add(fq2.newElement());
+        }
+        irreduciblePoly.getCoefficients().add(fq2.newOneElement());
+        return new PolyModField<>(random,irreduciblePoly);
+    }
+
+    @Test
+    public void mulAndSquare() {
+        for (int i = 0;i < ROUNDS;++i) {
+            SM9Fq12Element a = this.random();
+            SM9Fq12Element b = this.random();
+            assertSame("mul",this.toGeneric(a).mul(this.toGeneric(b)),a.duplicate().mul(b));
+            assertSame("square",this.toGeneric(a).square(),a.duplicate().square());
+        }
+    }
+
+    @Test
+    public void invert() {
+        for (int i = 0;i < ROUNDS;++i) {
+            SM9Fq12Element a = this.random();
+            assertSame("invert",this.toGeneric(a).invert(),a.duplicate().invert());
+            assertTrue(a.duplicate().invert().mul(a).isOne());
+        }
+        // 只有部分系数非零的元素
+        SM9Fq12Element sparse = this.fq12.newElement();
+        sparse.getCoefficient(3).setToRandom();
+        assertSame("invert sparse",this.toGeneric(sparse).invert(),sparse.duplicate().invert());
+    }
+
+    @Test
+    public void frobeniusAndConjugate() {
+        BigInteger q = this.pairing.getQ();
+        for (int i = 0;i < 3;++i) {
+            SM9Fq12Element a = this.random();
+            for (int k = 1;k <= 3;++k) {
+                assertSame("frobenius " + k,this.toGeneric(a).pow(q.pow(k)),a.duplicate().frobenius(k));
+            }
+            assertSame("conjugate",this.toGeneric(a).pow(q.pow(6)),a.duplicate().conjugate());
+        }
+    }
+
+    @Test
+    public void mulByLine() {
+        Field fq2 = this.pairing.getFq2();
+        for (int i = 0;i < ROUNDS;++i) {
+            SM9Fq12Element a = this.random();
+            Element l0 = fq2.newRandomElement();
+            Element l3 = fq2.newRandomElement();
+            Element l5 = fq2.newRandomElement();
+
+            SM9Fq12Element line = this.fq12.newElement();
+            line.getCoefficient(0).set(l0);
+            line.getCoefficient(3).set(l3);
+            line.getCoefficient(5).set(l5);
+            assertSame("mulByLine",this.toGeneric(a).mul(this.toGeneric(line)),a.duplicate().mulByLine(l0,l3,l5));
+        }
+    }
+
+    @Test
+    public void bytesRoundTrip() {
+        SM9Fq12Element a = this.random();
+        byte[] bytes = a.toBytes();
+        SM9Fq12Element back = this.fq12.newElement();
+        back.setFromBytes(bytes,0);
+        assertTrue(back.isEqual(a));
+        assertArrayEquals(this.toGeneric(a).toBytes(),bytes);
+    }
+
+    private SM9Fq12Element random() {
+        return this.fq12.newElement().setToRandom();
+    }
+
+    private PolyModElement<Element> toGeneric(SM9Fq12Element element) {
+        PolyModElement<Element> result = this.generic.newElement();
+        result.setFromBytes(element.toBytes());
+        return result;
+    }
+
+    private static void assertSame(String message,Element expected,SM9Fq12Element actual) {
+        assertArrayEquals(message,expected.toBytes(),actual.toBytes());
+    }
+}
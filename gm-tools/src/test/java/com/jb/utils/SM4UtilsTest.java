@@ -0,0 +1,231 @@
+package com.jb.utils;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Test;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author zhaojb
+ * CBC/CTR/GCM 的字节数组, ByteBuffer 与流接口, 与每次新建的 Cipher 比较
+ */
+public class SM4UtilsTest {
+    private static final int[] LENGTHS = {0,1,15,16,17,1000,8192,8193,20000};
+
+    private static final byte[] KEY = Hex.decode("0123456789abcdeffedcba9876543210");
+
+    private static final byte[] OTHER_KEY = Hex.decode("00112233445566778899aabbccddeeff");
+
+    private static final byte[] AAD = "associated data".getBytes();
+
+    private final Random random = new Random(19);
+
+    @Test
+    public void cbcKnownAnswer() throws GeneralSecurityException {
+        // GB/T 32907 示例, IV为0时CBC第一个分组与ECB相同
+        byte[] cipherText = SM4Utils.encryptCbc(KEY,new byte[16],KEY);
+        assertEquals("681edf34d206965e86b3e94f536e4246",Hex.toHexString(Arrays.copyOf(cipherText,16)));
+        assertEquals(32,cipherText.length);
+    }
+
+    @Test
+    public void byteArrays() throws GeneralSecurityException {
+        byte[] iv = SM4Utils.generateIv();
+        byte[] nonce = SM4Utils.generateGcmNonce();
+        for (int len : LENGTHS) {
+            byte[] data = this.random(len);
+
+            byte[] cbc = SM4Utils.encryptCbc(KEY,iv,data);
+            assertArrayEquals(reference(SM4Utils.ALGORITHM_NAME_CBC_PADDING,new IvParameterSpec(iv),null,data),cbc);
+            assertArrayEquals(data,SM4Utils.decryptCbc(KEY,iv,cbc));
+
+            byte[] ctr = SM4Utils.encryptCtr(KEY,iv,data);
+            assertArrayEquals(reference(SM4Utils.ALGORITHM_NAME_CTR,new IvParameterSpec(iv),null,data),ctr);
+            assertArrayEquals(data,SM4Utils.decryptCtr(KEY,iv,ctr));
+
+            for (byte[] aad : new byte[][]{null,AAD}) {
+                nonce = SM4Utils.generateGcmNonce();
+                byte[] gcm = SM4Utils.encryptGcm(KEY,nonce,aad,data);
+                assertEquals(len + SM4Utils.GCM_TAG_LENGTH,gcm.length);
+                assertArrayEquals(reference(SM4Utils.ALGORITHM_NAME_GCM,
+                        new GCMParameterSpec(SM4Utils.GCM_TAG_LENGTH * 8,nonce),aad,data),gcm);
+                assertArrayEquals(data,SM4Utils.decryptGcm(KEY,nonce,aad,gcm));
+            }
+        }
+    }
+
+    @Test
+    public void byteBuffersMatchByteArrays() throws GeneralSecurityException {
+        byte[] iv = SM4Utils.generateIv();
+        for (int len : LENGTHS) {
+            byte[] data = this.random(len);
+            for (boolean direct : new boolean[]{false,true}) {
+                byte[] cbc = SM4Utils.encryptCbc(KEY,iv,data);
+                assertArrayEquals(cbc,this.crypt(direct,data,cbc.length,(in,out) -> SM4Utils.encryptCbc(KEY,iv,in,out)));
+                assertArrayEquals(data,this.crypt(direct,cbc,len,(in,out) -> SM4Utils.decryptCbc(KEY,iv,in,out)));
+
+                byte[] ctr = SM4Utils.encryptCtr(KEY,iv,data);
+                assertArrayEquals(ctr,this.crypt(direct,data,len,(in,out) -> SM4Utils.encryptCtr(KEY,iv,in,out)));
+                assertArrayEquals(data,this.crypt(direct,ctr,len,(in,out) -> SM4Utils.decryptCtr(KEY,iv,in,out)));
+
+                byte[] nonce = SM4Utils.generateGcmNonce();
+                byte[] gcm = SM4Utils.encryptGcm(KEY,nonce,AAD,data);
+                // GCM同一密钥下不能用相同随机数再次加密, 用新的随机数与参考实现比较
+                byte[] nonce2 = SM4Utils.generateGcmNonce();
+                byte[] gcm2 = reference(SM4Utils.ALGORITHM_NAME_GCM,
+                        new GCMParameterSpec(SM4Utils.GCM_TAG_LENGTH * 8,nonce2),AAD,data);
+                assertArrayEquals(gcm2,this.crypt(direct,data,gcm2.length,
+                        (in,out) -> SM4Utils.encryptGcm(KEY,nonce2,AAD,in,out)));
+                assertArrayEquals(data,this.crypt(direct,gcm,len,(in,out) -> SM4Utils.decryptGcm(KEY,nonce,AAD,in,out)));
+            }
+        }
+    }
+
+    @Test
+    public void streamsMatchByteArrays() throws Exception {
+        byte[] iv = SM4Utils.generateIv();
+        for (int len : LENGTHS) {
+            byte[] data = this.random(len);
+
+            byte[] cbc = SM4Utils.encryptCbc(KEY,iv,data);
+            assertArrayEquals(cbc,this.stream(data,(in,out) -> SM4Utils.encryptCbc(KEY,iv,in,out)));
+            assertArrayEquals(data,this.stream(cbc,(in,out) -> SM4Utils.decryptCbc(KEY,iv,in,out)));
+
+            byte[] ctr = SM4Utils.encryptCtr(KEY,iv,data);
+            assertArrayEquals(ctr,this.stream(data,(in,out) -> SM4Utils.encryptCtr(KEY,iv,in,out)));
+            assertArrayEquals(data,this.stream(ctr,(in,out) -> SM4Utils.decryptCtr(KEY,iv,in,out)));
+
+            // GCM同一密钥下不能用相同随机数再次加密, 流接口用新的随机数与参考实现比较
+            byte[] nonce = SM4Utils.generateGcmNonce();
+            byte[] gcm = this.stream(data,(in,out) -> SM4Utils.encryptGcm(KEY,nonce,AAD,in,out));
+            assertArrayEquals(reference(SM4Utils.ALGORITHM_NAME_GCM,
+                    new GCMParameterSpec(SM4Utils.GCM_TAG_LENGTH * 8,nonce),AAD,data),gcm);
+            assertArrayEquals(data,this.stream(gcm,(in,out) -> SM4Utils.decryptGcm(KEY,nonce,AAD,in,out)));
+            assertArrayEquals(data,SM4Utils.decryptGcm(KEY,nonce,AAD,gcm));
+        }
+    }
+
+    @Test
+    public void gcmRejectsTampering() throws Exception {
+        byte[] nonce = SM4Utils.generateGcmNonce();
+        byte[] data = this.random(100);
+        byte[] gcm = SM4Utils.encryptGcm(KEY,nonce,AAD,data);
+
+        byte[] badTag = gcm.clone();
+        badTag[badTag.length - 1] ^= 1;
+        byte[] badCipherText = gcm.clone();
+        badCipherText[0] ^= 1;
+        byte[] badAad = AAD.clone();
+        badAad[0] ^= 1;
+
+        assertBadTag(() -> SM4Utils.decryptGcm(KEY,nonce,AAD,badTag));
+        assertBadTag(() -> SM4Utils.decryptGcm(KEY,nonce,AAD,badCipherText));
+        assertBadTag(() -> SM4Utils.decryptGcm(KEY,nonce,badAad,gcm));
+        assertBadTag(() -> SM4Utils.decryptGcm(KEY,nonce,null,gcm));
+        assertBadTag(() -> SM4Utils.decryptGcm(KEY,nonce,AAD,ByteBuffer.wrap(badTag),ByteBuffer.allocate(gcm.length)));
+        assertBadTag(() -> SM4Utils.decryptGcm(KEY,nonce,badAad,new ByteArrayInputStream(gcm),new ByteArrayOutputStream()));
+
+        // 校验失败后当前线程的Cipher仍可正常使用
+        assertArrayEquals(data,SM4Utils.decryptGcm(KEY,nonce,AAD,gcm));
+    }
+
+    @Test
+    public void backToBackCallsReinitialise() throws GeneralSecurityException {
+        byte[] iv = SM4Utils.generateIv();
+        byte[] iv2 = SM4Utils.generateIv();
+        byte[] data = this.random(1000);
+        for (int i = 0;i < 3;++i) {
+            // 同一线程上交替使用不同的密钥, IV与方向, 每次结果须与新建的Cipher相同
+            byte[] a = SM4Utils.encryptCbc(KEY,iv,data);
+            byte[] b = SM4Utils.encryptCbc(OTHER_KEY,iv2,data);
+            assertArrayEquals(reference(SM4Utils.ALGORITHM_NAME_CBC_PADDING,new IvParameterSpec(iv),null,data),a);
+            assertArrayEquals(data,SM4Utils.decryptCbc(OTHER_KEY,iv2,b));
+            assertArrayEquals(data,SM4Utils.decryptCbc(KEY,iv,a));
+
+            byte[] c = SM4Utils.encryptCtr(OTHER_KEY,iv,data);
+            byte[] d = SM4Utils.encryptCtr(KEY,iv2,data);
+            assertArrayEquals(data,SM4Utils.decryptCtr(OTHER_KEY,iv,c));
+            assertArrayEquals(data,SM4Utils.decryptCtr(KEY,iv2,d));
+
+            byte[] nonce = SM4Utils.generateGcmNonce();
+            byte[] nonce2 = SM4Utils.generateGcmNonce();
+            byte[] e = SM4Utils.encryptGcm(KEY,nonce,AAD,data);
+            byte[] f = SM4Utils.encryptGcm(OTHER_KEY,nonce2,null,data);
+            assertArrayEquals(data,SM4Utils.decryptGcm(OTHER_KEY,nonce2,null,f));
+            assertArrayEquals(data,SM4Utils.decryptGcm(KEY,nonce,AAD,e));
+        }
+    }
+
+    private static byte[] reference(String algorithm,AlgorithmParameterSpec spec,byte[] aad,byte[] data)
+            throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(algorithm,BouncyCastleProvider.PROVIDER_NAME);
+        cipher.init(Cipher.ENCRYPT_MODE,new SecretKeySpec(KEY,SM4Utils.ALGORIGTHM_NAME),spec);
+        if (aad != null) {
+            cipher.updateAAD(aad);
+        }
+        return cipher.doFinal(data);
+    }
+
+    private static void assertBadTag(Call call) throws Exception {
+        try {
+            call.run();
+            fail("tampered gcm accepted");
+        } catch (AEADBadTagException e) {
+            // 预期
+        }
+    }
+
+    private byte[] crypt(boolean direct,byte[] input,int outputLength,BufferCall call) throws GeneralSecurityException {
+        ByteBuffer in = direct ? ByteBuffer.allocateDirect(input.length) : ByteBuffer.allocate(input.length);
+        in.put(input).flip();
+        ByteBuffer out = direct ? ByteBuffer.allocateDirect(outputLength + 16) : ByteBuffer.allocate(outputLength + 16);
+        int n = call.run(in,out);
+        assertEquals(outputLength,n);
+        assertEquals(0,in.remaining());
+        byte[] result = new byte[n];
+        out.flip();
+        out.get(result);
+        return result;
+    }
+
+    private byte[] stream(byte[] input,StreamCall call) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long n = call.run(new ByteArrayInputStream(input),out);
+        assertEquals(out.size(),n);
+        return out.toByteArray();
+    }
+
+    private byte[] random(int len) {
+        byte[] bytes = new byte[len];
+        this.random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private interface Call {
+        void run() throws Exception;
+    }
+
+    private interface BufferCall {
+        int run(ByteBuffer in,ByteBuffer out) throws GeneralSecurityException;
+    }
+
+    private interface StreamCall {
+        long run(ByteArrayInputStream in,ByteArrayOutputStream out) throws Exception;
+    }
+}